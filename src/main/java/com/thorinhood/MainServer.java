@@ -8,6 +8,7 @@ import com.thorinhood.drivers.lock.EntityLockDriver;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.drivers.main.S3FileDriverImpl;
 import com.thorinhood.drivers.metadata.MetadataDriver;
+import com.thorinhood.drivers.metadata.MetadataLayout;
 import com.thorinhood.drivers.principal.PolicyDriver;
 import com.thorinhood.drivers.user.UserDriver;
 import com.thorinhood.utils.ArgumentParser;
@@ -15,6 +16,7 @@ import com.thorinhood.utils.RequestUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,6 +27,26 @@ public class MainServer {
     public static final String BASE_PATH = "basePath";
     public static final String PORT = "port";
     public static final String USERS = "users";
+    public static final String UPLOAD_WINDOW = "uploadWindow";
+    public static final String EPOLL = "epoll";
+    public static final String BOSS_THREADS = "bossThreads";
+    public static final String WORKER_THREADS = "workerThreads";
+    public static final String BACKLOG = "backlog";
+    public static final String TCP_NO_DELAY = "tcpNoDelay";
+    public static final String REUSE_PORT = "reusePort";
+    public static final String RECEIVE_BUFFER = "receiveBuffer";
+    public static final String SEND_BUFFER = "sendBuffer";
+    public static final String WRITE_BUFFER_LOW = "writeBufferLow";
+    public static final String WRITE_BUFFER_HIGH = "writeBufferHigh";
+    public static final String STORAGE_THREADS = "storageThreads";
+    public static final String STORAGE_MAX_THREADS = "storageMaxThreads";
+    public static final String STORAGE_QUEUE = "storageQueue";
+    public static final String MAX_OBJECT_SIZE = "maxObjectSize";
+    public static final String METADATA_LAYOUT = "metadataLayout";
+    public static final String MIGRATE_METADATA = "migrateMetadata";
+    public static final String KEY_INDEX = "keyIndex";
+    public static final String SCAN_THREADS = "scanThreads";
+    public static final String VIRTUAL_MULTIPART = "virtualMultipart";
 
     public static void main(String[] args) throws Exception {
         Map<String, String> parsedArgs = ArgumentParser.parseArguments(args);
@@ -40,11 +62,35 @@ public class MainServer {
             log.error("\'--port\' is not int");
             return;
         }
+        ServerConfig serverConfig;
+        MetadataLayout metadataLayout;
+        boolean migrateMetadata;
+        boolean keyIndex;
+        int scanThreads;
+        boolean virtualMultipart;
+        try {
+            serverConfig = buildServerConfig(parsedArgs);
+            metadataLayout = metadataLayoutArgument(parsedArgs);
+            migrateMetadata = booleanArgument(parsedArgs, MIGRATE_METADATA, false);
+            keyIndex = booleanArgument(parsedArgs, KEY_INDEX, true);
+            scanThreads = intArgument(parsedArgs, SCAN_THREADS, 1);
+            if (scanThreads < 1) {
+                throw new Exception("'--" + SCAN_THREADS + "' must be positive");
+            }
+            virtualMultipart = booleanArgument(parsedArgs, VIRTUAL_MULTIPART, false);
+        } catch (Exception exception) {
+            log.error(exception.getMessage());
+            return;
+        }
 
         EntityLockDriver entityLockDriver = new EntityLockDriver();
-        FileDriversFactory fileFactory = new FileDriversFactory(parsedArgs.get(BASE_PATH));
+        FileDriversFactory fileFactory = new FileDriversFactory(parsedArgs.get(BASE_PATH), metadataLayout,
+                keyIndex, scanThreads, virtualMultipart);
         try {
             fileFactory.init();
+            if (migrateMetadata) {
+                fileFactory.migrateMetadata();
+            }
         } catch (Exception exception) {
             log.error(exception.getMessage());
             return;
@@ -60,10 +106,87 @@ public class MainServer {
         if (parsedArgs.containsKey(USERS)) {
             addAllRootUsers(userDriver, parsedArgs.get(USERS));
         }
-        Server server = new Server(port, s3Driver, new RequestUtil(userDriver, parsedArgs.get(BASE_PATH)));
+        Server server = new Server(port, s3Driver, new RequestUtil(userDriver, parsedArgs.get(BASE_PATH)),
+                serverConfig);
         log.info("port : {}", port);
         log.info("base path : {}", parsedArgs.get(BASE_PATH));
-        server.run();
+        log.info("metadata layout : {}", metadataLayout);
+        log.info("key index : {}", keyIndex);
+        log.info("virtual multipart : {}", virtualMultipart);
+        try {
+            server.run();
+        } finally {
+            userDriver.close();
+        }
+    }
+
+    private static ServerConfig buildServerConfig(Map<String, String> parsedArgs) throws Exception {
+        ServerConfig defaultConfig = ServerConfig.defaultConfig();
+        return ServerConfig.builder()
+                .setEpoll(booleanArgument(parsedArgs, EPOLL, defaultConfig.isEpoll()))
+                .setBossThreads(intArgument(parsedArgs, BOSS_THREADS, defaultConfig.getBossThreads()))
+                .setWorkerThreads(intArgument(parsedArgs, WORKER_THREADS, defaultConfig.getWorkerThreads()))
+                .setBacklog(intArgument(parsedArgs, BACKLOG, defaultConfig.getBacklog()))
+                .setTcpNoDelay(booleanArgument(parsedArgs, TCP_NO_DELAY, defaultConfig.isTcpNoDelay()))
+                .setReusePort(booleanArgument(parsedArgs, REUSE_PORT, defaultConfig.isReusePort()))
+                .setReceiveBufferSize(intArgument(parsedArgs, RECEIVE_BUFFER, defaultConfig.getReceiveBufferSize()))
+                .setSendBufferSize(intArgument(parsedArgs, SEND_BUFFER, defaultConfig.getSendBufferSize()))
+                .setWriteBufferWaterMark(
+                        intArgument(parsedArgs, WRITE_BUFFER_LOW, defaultConfig.getWriteBufferLowWaterMark()),
+                        intArgument(parsedArgs, WRITE_BUFFER_HIGH, defaultConfig.getWriteBufferHighWaterMark()))
+                .setUploadWindow(intArgument(parsedArgs, UPLOAD_WINDOW, defaultConfig.getUploadWindow()))
+                .setStorageThreads(intArgument(parsedArgs, STORAGE_THREADS, defaultConfig.getStorageThreads()))
+                .setStorageMaxThreads(intArgument(parsedArgs, STORAGE_MAX_THREADS, 0))
+                .setStorageQueueSize(intArgument(parsedArgs, STORAGE_QUEUE, defaultConfig.getStorageQueueSize()))
+                .setMaxObjectSize(longArgument(parsedArgs, MAX_OBJECT_SIZE, defaultConfig.getMaxObjectSize()))
+                .build();
+    }
+
+    private static int intArgument(Map<String, String> parsedArgs, String key, int defaultValue) throws Exception {
+        if (!parsedArgs.containsKey(key)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(parsedArgs.get(key));
+        } catch (NumberFormatException exception) {
+            throw new Exception("'--" + key + "' is not int");
+        }
+    }
+
+    private static long longArgument(Map<String, String> parsedArgs, String key, long defaultValue)
+            throws Exception {
+        if (!parsedArgs.containsKey(key)) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(parsedArgs.get(key));
+        } catch (NumberFormatException exception) {
+            throw new Exception("'--" + key + "' is not long");
+        }
+    }
+
+    private static MetadataLayout metadataLayoutArgument(Map<String, String> parsedArgs) throws Exception {
+        if (!parsedArgs.containsKey(METADATA_LAYOUT)) {
+            return MetadataLayout.FILES;
+        }
+        try {
+            return MetadataLayout.valueOf(parsedArgs.get(METADATA_LAYOUT).toUpperCase());
+        } catch (IllegalArgumentException exception) {
+            throw new Exception("'--" + METADATA_LAYOUT + "' must be one of " +
+                    Arrays.toString(MetadataLayout.values()));
+        }
+    }
+
+    private static boolean booleanArgument(Map<String, String> parsedArgs, String key, boolean defaultValue)
+            throws Exception {
+        if (!parsedArgs.containsKey(key)) {
+            return defaultValue;
+        }
+        String value = parsedArgs.get(key);
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw new Exception("'--" + key + "' is not boolean");
+        }
+        return Boolean.parseBoolean(value);
     }
 
     private static void addAllRootUsers(UserDriver userDriver, String files) throws Exception {
@@ -1,52 +1,124 @@
 package com.thorinhood;
 
 import com.thorinhood.drivers.main.S3Driver;
-import com.thorinhood.drivers.user.UserDriver;
+import com.thorinhood.handlers.StorageExecutor;
 import com.thorinhood.utils.RequestUtil;
 import io.netty.bootstrap.ServerBootstrap;
-import io.netty.channel.Channel;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.EventLoop;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class Server {
 
+    private static final Logger log = LogManager.getLogger(Server.class);
+
     private final int port;
+    private final ServerConfig serverConfig;
     private final ServerInitializer serverInitializer;
+    private final StorageExecutor storageExecutor;
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
-    private ChannelFuture future;
+    private final List<ChannelFuture> futures;
 
     public Server(int port, S3Driver s3Driver, RequestUtil requestUtil) {
+        this(port, s3Driver, requestUtil, ServerConfig.defaultConfig());
+    }
+
+    public Server(int port, S3Driver s3Driver, RequestUtil requestUtil, ServerConfig serverConfig) {
         this.port = port;
-        serverInitializer = new ServerInitializer(s3Driver, requestUtil);
+        this.serverConfig = serverConfig;
+        this.futures = new ArrayList<>();
+        storageExecutor = new StorageExecutor(serverConfig.getStorageThreads(), serverConfig.getStorageMaxThreads(),
+                serverConfig.getStorageQueueSize());
+        serverInitializer = new ServerInitializer(s3Driver, requestUtil, storageExecutor,
+                serverConfig.getUploadWindow(), serverConfig.getMaxObjectSize());
     }
 
     public void run() throws Exception {
-        bossGroup = new NioEventLoopGroup();
-        workerGroup = new NioEventLoopGroup();
+        boolean epoll = useEpoll();
+        Class<? extends ServerChannel> channelClass;
+        if (epoll) {
+            bossGroup = new EpollEventLoopGroup(serverConfig.getBossThreads());
+            workerGroup = new EpollEventLoopGroup(serverConfig.getWorkerThreads());
+            channelClass = EpollServerSocketChannel.class;
+        } else {
+            bossGroup = new NioEventLoopGroup(serverConfig.getBossThreads());
+            workerGroup = new NioEventLoopGroup(serverConfig.getWorkerThreads());
+            channelClass = NioServerSocketChannel.class;
+        }
         try {
             ServerBootstrap bootstrap = new ServerBootstrap();
             bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+                .channel(channelClass)
+                .option(ChannelOption.SO_BACKLOG, serverConfig.getBacklog())
+                .childOption(ChannelOption.TCP_NODELAY, serverConfig.isTcpNoDelay())
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .childHandler(serverInitializer);
+            if (serverConfig.getReceiveBufferSize() > 0) {
+                bootstrap.childOption(ChannelOption.SO_RCVBUF, serverConfig.getReceiveBufferSize());
+            }
+            if (serverConfig.getSendBufferSize() > 0) {
+                bootstrap.childOption(ChannelOption.SO_SNDBUF, serverConfig.getSendBufferSize());
+            }
+            if (serverConfig.hasWriteBufferWaterMark()) {
+                bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                        serverConfig.getWriteBufferLowWaterMark(), serverConfig.getWriteBufferHighWaterMark()));
+            }
 
-            future = bootstrap.bind(port).sync();
-            Channel channel = future.channel();
-            channel.closeFuture().sync();
+            // with SO_REUSEPORT every boss thread gets its own listening socket and the kernel balances accepts
+            int binds = 1;
+            if (epoll && serverConfig.isReusePort()) {
+                bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+                binds = Math.max(1, serverConfig.getBossThreads());
+            }
+            for (int i = 0; i < binds; i++) {
+                futures.add(bootstrap.bind(port).sync());
+            }
+            log.info("transport : {}, {}", epoll ? "epoll" : "nio", serverConfig);
+            for (ChannelFuture future : futures) {
+                future.channel().closeFuture().sync();
+            }
         } finally {
             workerGroup.shutdownGracefully();
             bossGroup.shutdownGracefully();
+            storageExecutor.shutdown();
+        }
+    }
+
+    private boolean useEpoll() {
+        if (!serverConfig.isEpoll()) {
+            return false;
+        }
+        if (!Epoll.isAvailable()) {
+            log.warn("Epoll transport is not available, fallback to NIO : {}",
+                    Epoll.unavailabilityCause().getMessage());
+            return false;
         }
+        return true;
     }
 
     public void stop() {
         try {
             bossGroup.shutdownGracefully().sync();
             workerGroup.shutdownGracefully().sync();
-            future.channel().closeFuture().sync();
+            storageExecutor.shutdown();
+            for (ChannelFuture future : futures) {
+                future.channel().closeFuture().sync();
+            }
         }
         catch (InterruptedException e) {
             e.printStackTrace();
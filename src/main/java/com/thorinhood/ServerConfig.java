@@ -0,0 +1,212 @@
+package com.thorinhood;
+
+public class ServerConfig {
+
+    public static final int DEFAULT_UPLOAD_WINDOW = 256 * 1024;
+    public static final int DEFAULT_BACKLOG = 1024;
+    public static final int DEFAULT_STORAGE_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+    public static final int DEFAULT_STORAGE_QUEUE_SIZE = 1024;
+    public static final long DEFAULT_MAX_OBJECT_SIZE = 5L * 1024 * 1024 * 1024;
+
+    private boolean epoll;
+    private int bossThreads;
+    private int workerThreads;
+    private int backlog;
+    private boolean tcpNoDelay;
+    private boolean reusePort;
+    private int receiveBufferSize;
+    private int sendBufferSize;
+    private int writeBufferLowWaterMark;
+    private int writeBufferHighWaterMark;
+    private int uploadWindow;
+    private int storageThreads;
+    private int storageMaxThreads;
+    private int storageQueueSize;
+    private long maxObjectSize;
+
+    public static ServerConfig defaultConfig() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private ServerConfig() {
+        bossThreads = 1;
+        backlog = DEFAULT_BACKLOG;
+        tcpNoDelay = true;
+        uploadWindow = DEFAULT_UPLOAD_WINDOW;
+        storageThreads = DEFAULT_STORAGE_THREADS;
+        storageQueueSize = DEFAULT_STORAGE_QUEUE_SIZE;
+        maxObjectSize = DEFAULT_MAX_OBJECT_SIZE;
+    }
+
+    public boolean isEpoll() {
+        return epoll;
+    }
+
+    public int getBossThreads() {
+        return bossThreads;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public int getWriteBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    public int getWriteBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    public boolean hasWriteBufferWaterMark() {
+        return writeBufferLowWaterMark > 0 && writeBufferHighWaterMark >= writeBufferLowWaterMark;
+    }
+
+    public int getUploadWindow() {
+        return uploadWindow;
+    }
+
+    public int getStorageThreads() {
+        return storageThreads;
+    }
+
+    public int getStorageMaxThreads() {
+        return Math.max(storageThreads, storageMaxThreads);
+    }
+
+    public int getStorageQueueSize() {
+        return storageQueueSize;
+    }
+
+    public long getMaxObjectSize() {
+        return maxObjectSize;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerConfig{" +
+                "epoll=" + epoll +
+                ", bossThreads=" + bossThreads +
+                ", workerThreads=" + workerThreads +
+                ", backlog=" + backlog +
+                ", tcpNoDelay=" + tcpNoDelay +
+                ", reusePort=" + reusePort +
+                ", receiveBufferSize=" + receiveBufferSize +
+                ", sendBufferSize=" + sendBufferSize +
+                ", writeBufferLowWaterMark=" + writeBufferLowWaterMark +
+                ", writeBufferHighWaterMark=" + writeBufferHighWaterMark +
+                ", uploadWindow=" + uploadWindow +
+                ", storageThreads=" + storageThreads +
+                ", storageMaxThreads=" + getStorageMaxThreads() +
+                ", storageQueueSize=" + storageQueueSize +
+                ", maxObjectSize=" + maxObjectSize +
+                '}';
+    }
+
+    public static class Builder {
+        private final ServerConfig serverConfig;
+
+        public Builder() {
+            serverConfig = new ServerConfig();
+        }
+
+        public Builder setEpoll(boolean epoll) {
+            serverConfig.epoll = epoll;
+            return this;
+        }
+
+        public Builder setBossThreads(int bossThreads) {
+            serverConfig.bossThreads = bossThreads;
+            return this;
+        }
+
+        public Builder setWorkerThreads(int workerThreads) {
+            serverConfig.workerThreads = workerThreads;
+            return this;
+        }
+
+        public Builder setBacklog(int backlog) {
+            serverConfig.backlog = backlog;
+            return this;
+        }
+
+        public Builder setTcpNoDelay(boolean tcpNoDelay) {
+            serverConfig.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        public Builder setReusePort(boolean reusePort) {
+            serverConfig.reusePort = reusePort;
+            return this;
+        }
+
+        public Builder setReceiveBufferSize(int receiveBufferSize) {
+            serverConfig.receiveBufferSize = receiveBufferSize;
+            return this;
+        }
+
+        public Builder setSendBufferSize(int sendBufferSize) {
+            serverConfig.sendBufferSize = sendBufferSize;
+            return this;
+        }
+
+        public Builder setWriteBufferWaterMark(int low, int high) {
+            serverConfig.writeBufferLowWaterMark = low;
+            serverConfig.writeBufferHighWaterMark = high;
+            return this;
+        }
+
+        public Builder setUploadWindow(int uploadWindow) {
+            serverConfig.uploadWindow = uploadWindow;
+            return this;
+        }
+
+        public Builder setStorageThreads(int storageThreads) {
+            serverConfig.storageThreads = storageThreads;
+            return this;
+        }
+
+        public Builder setStorageMaxThreads(int storageMaxThreads) {
+            serverConfig.storageMaxThreads = storageMaxThreads;
+            return this;
+        }
+
+        public Builder setStorageQueueSize(int storageQueueSize) {
+            serverConfig.storageQueueSize = storageQueueSize;
+            return this;
+        }
+
+        public Builder setMaxObjectSize(long maxObjectSize) {
+            serverConfig.maxObjectSize = maxObjectSize;
+            return this;
+        }
+
+        public ServerConfig build() {
+            return serverConfig;
+        }
+    }
+}
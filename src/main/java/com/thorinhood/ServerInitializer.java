@@ -1,8 +1,13 @@
 package com.thorinhood;
 
+import com.thorinhood.chunks.AwsChunkedDecoder;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.drivers.user.UserDriver;
+import com.thorinhood.handlers.PipeliningHandler;
+import com.thorinhood.handlers.RequestHeadHandler;
 import com.thorinhood.handlers.ServerHandler;
+import com.thorinhood.handlers.StorageExecutor;
+import com.thorinhood.handlers.StreamingUploadHandler;
 import com.thorinhood.utils.RequestUtil;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
@@ -13,10 +18,23 @@ import io.netty.handler.codec.http.HttpResponseEncoder;
 
 public class ServerInitializer extends ChannelInitializer<SocketChannel> {
 
+    private static final int MAX_AGGREGATED_CONTENT_LENGTH = 64 * 1024 * 1024;
+
+    private final S3Driver s3Driver;
+    private final RequestUtil requestUtil;
+    private final int uploadWindow;
+    private final long maxObjectSize;
+    private final StorageExecutor storageExecutor;
     private final ServerHandler serverHandler;
 
-    public ServerInitializer(S3Driver s3Driver, RequestUtil requestUtil) {
-        serverHandler = new ServerHandler(s3Driver, requestUtil);
+    public ServerInitializer(S3Driver s3Driver, RequestUtil requestUtil, StorageExecutor storageExecutor,
+                             int uploadWindow, long maxObjectSize) {
+        this.s3Driver = s3Driver;
+        this.requestUtil = requestUtil;
+        this.uploadWindow = uploadWindow;
+        this.maxObjectSize = maxObjectSize;
+        this.storageExecutor = storageExecutor;
+        serverHandler = new ServerHandler(s3Driver, requestUtil, storageExecutor);
     }
 
     @Override
@@ -24,7 +42,12 @@ public class ServerInitializer extends ChannelInitializer<SocketChannel> {
         ChannelPipeline pipeline = socketChannel.pipeline();
         pipeline.addLast(new HttpRequestDecoder());
         pipeline.addLast(new HttpResponseEncoder());
-        pipeline.addLast(new HttpObjectAggregator(Integer.MAX_VALUE));
+        pipeline.addLast(new PipeliningHandler());
+        pipeline.addLast(new RequestHeadHandler(requestUtil, serverHandler, storageExecutor, maxObjectSize,
+                MAX_AGGREGATED_CONTENT_LENGTH));
+        pipeline.addLast(new AwsChunkedDecoder());
+        pipeline.addLast(new StreamingUploadHandler(s3Driver, storageExecutor, uploadWindow));
+        pipeline.addLast(new HttpObjectAggregator(MAX_AGGREGATED_CONTENT_LENGTH));
         pipeline.addLast(serverHandler);
     }
 
@@ -0,0 +1,303 @@
+package com.thorinhood.chunks;
+
+import com.thorinhood.data.requests.S3Headers;
+import com.thorinhood.data.requests.S3ResponseErrorCodes;
+import com.thorinhood.exceptions.S3Exception;
+import com.thorinhood.exceptions.S3ExceptionFull;
+import com.thorinhood.handlers.RequestHeadHandler;
+import com.thorinhood.handlers.StreamedHttpRequest;
+import com.thorinhood.processors.Processor;
+import com.thorinhood.utils.ParsedRequest;
+import com.thorinhood.utils.PayloadSignType;
+import com.thorinhood.utils.SignUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ByteProcessor;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Decodes aws-chunked bodies (STREAMING-AWS4-HMAC-SHA256-PAYLOAD) while they arrive. Chunk headers are parsed straight
+ * from the received buffers, every chunk signature is verified against the previous one, and the payload goes
+ * downstream as retained slices of the received buffers. The handlers after this one never see the chunk framing.
+ */
+public class AwsChunkedDecoder extends ChannelInboundHandlerAdapter {
+
+    private static final Logger log = LogManager.getLogger(AwsChunkedDecoder.class);
+
+    private static final int MAX_HEADER_LENGTH = 1024;
+    private static final String SIGNATURE_PREFIX = "chunk-signature=";
+
+    private enum State {
+        HEADER,
+        DATA,
+        DATA_END,
+        DONE
+    }
+
+    private HttpRequest request;
+    private ParsedRequest parsedRequest;
+    private State state;
+    private ByteBuf header;
+    private MessageDigest sha256;
+    private String prevSignature;
+    private String chunkSignature;
+    private long remaining;
+    private long decodedLength;
+    private boolean skipContent;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest && !(msg instanceof FullHttpRequest) && isAwsChunked((HttpRequest) msg)) {
+            start(ctx, (HttpRequest) msg);
+            return;
+        }
+        if (msg instanceof HttpContent && (request != null || skipContent)) {
+            decode(ctx, (HttpContent) msg);
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof HttpExpectationFailedEvent) {
+            // the request was rejected before its body
+            reset();
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        reset();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        reset();
+    }
+
+    private boolean isAwsChunked(HttpRequest request) {
+        return request.decoderResult().isSuccess() && PayloadSignType.CHUNKED.getValue()
+                .equalsIgnoreCase(request.headers().get(S3Headers.X_AMZ_CONTENT_SHA256));
+    }
+
+    private void start(ChannelHandlerContext ctx, HttpRequest request) {
+        this.request = request;
+        parsedRequest = RequestHeadHandler.getParsedRequest(ctx.channel());
+        if (parsedRequest == null) {
+            fail(ctx, S3Exception.builder("Head of aws-chunked request is not parsed")
+                    .setStatus(HttpResponseStatus.BAD_REQUEST)
+                    .setCode(S3ResponseErrorCodes.INVALID_REQUEST)
+                    .setMessage("Invalid request")
+                    .build(), false);
+            return;
+        }
+        state = State.HEADER;
+        header = ctx.alloc().buffer(128, MAX_HEADER_LENGTH);
+        sha256 = DigestUtils.getSha256Digest();
+        prevSignature = parsedRequest.getSignature();
+        decodedLength = 0;
+        ctx.fireChannelRead(request);
+    }
+
+    private void decode(ChannelHandlerContext ctx, HttpContent content) {
+        boolean isLast = content instanceof LastHttpContent;
+        try {
+            if (skipContent) {
+                skipContent = !isLast;
+                return;
+            }
+            ByteBuf in = content.content();
+            while (in.isReadable() && state != State.DONE) {
+                switch (state) {
+                    case HEADER:
+                        readHeader(in);
+                        break;
+                    case DATA:
+                        readData(ctx, in);
+                        break;
+                    case DATA_END:
+                        readDataEnd(in);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (isLast) {
+                finish(ctx, (LastHttpContent) content);
+            }
+        } catch (S3Exception exception) {
+            fail(ctx, exception, isLast);
+        } finally {
+            ReferenceCountUtil.release(content);
+        }
+    }
+
+    private void readHeader(ByteBuf in) throws S3Exception {
+        int lineEnd = in.forEachByte(ByteProcessor.FIND_LF);
+        int length = lineEnd == -1 ? in.readableBytes() : lineEnd - in.readerIndex() + 1;
+        if (header.readableBytes() + length > MAX_HEADER_LENGTH) {
+            throw incorrectChunk("Chunk header is too long");
+        }
+        header.writeBytes(in, length);
+        if (lineEnd == -1) {
+            return;
+        }
+        int separator = header.indexOf(header.readerIndex(), header.writerIndex(), (byte) ';');
+        if (separator == -1) {
+            throw incorrectChunk("Chunk header without signature");
+        }
+        long chunkSize = parseChunkSize(header, separator);
+        int signatureStart = separator + 1 + SIGNATURE_PREFIX.length();
+        int signatureEnd = header.writerIndex() - 1;
+        if (signatureEnd > signatureStart && header.getByte(signatureEnd - 1) == '\r') {
+            signatureEnd--;
+        }
+        if (signatureEnd <= signatureStart || !header.toString(separator + 1, SIGNATURE_PREFIX.length(),
+                StandardCharsets.US_ASCII).equals(SIGNATURE_PREFIX)) {
+            throw incorrectChunk("Chunk header without signature");
+        }
+        chunkSignature = header.toString(signatureStart, signatureEnd - signatureStart, StandardCharsets.US_ASCII);
+        header.clear();
+        if (chunkSize == 0) {
+            verifyChunk();
+            state = State.DONE;
+        } else {
+            remaining = chunkSize;
+            state = State.DATA;
+        }
+    }
+
+    private long parseChunkSize(ByteBuf line, int end) throws S3Exception {
+        if (end == line.readerIndex() || end - line.readerIndex() > 15) {
+            throw incorrectChunk("Incorrect chunk size");
+        }
+        long chunkSize = 0;
+        for (int i = line.readerIndex(); i < end; i++) {
+            int digit = Character.digit(line.getByte(i), 16);
+            if (digit == -1) {
+                throw incorrectChunk("Incorrect chunk size");
+            }
+            chunkSize = chunkSize * 16 + digit;
+        }
+        return chunkSize;
+    }
+
+    private void readData(ChannelHandlerContext ctx, ByteBuf in) throws S3Exception {
+        int length = (int) Math.min(remaining, in.readableBytes());
+        ByteBuf data = in.readRetainedSlice(length);
+        for (ByteBuffer buffer : data.nioBuffers()) {
+            sha256.update(buffer);
+        }
+        remaining -= length;
+        decodedLength += length;
+        if (remaining == 0) {
+            try {
+                verifyChunk();
+            } catch (S3Exception exception) {
+                data.release();
+                throw exception;
+            }
+            remaining = 2;
+            state = State.DATA_END;
+        }
+        ctx.fireChannelRead(new DefaultHttpContent(data));
+    }
+
+    private void readDataEnd(ByteBuf in) {
+        int length = (int) Math.min(remaining, in.readableBytes());
+        in.skipBytes(length);
+        remaining -= length;
+        if (remaining == 0) {
+            state = State.HEADER;
+        }
+    }
+
+    private void verifyChunk() throws S3Exception {
+        String calculatedSignature = SignUtil.calcPayloadSignature(
+                parsedRequest.getHeader(S3Headers.X_AMZ_DATE),
+                parsedRequest.getCredential(),
+                prevSignature,
+                Hex.encodeHexString(sha256.digest()),
+                parsedRequest.getS3User().getSecretKey());
+        if (!calculatedSignature.equals(chunkSignature)) {
+            throw S3Exception.builder("Chunk signature is incorrect")
+                    .setStatus(HttpResponseStatus.BAD_REQUEST)
+                    .setCode(S3ResponseErrorCodes.SIGNATURE_DOES_NOT_MATCH)
+                    .setMessage("Chunk signature is incorrect")
+                    .build();
+        }
+        prevSignature = chunkSignature;
+    }
+
+    private void finish(ChannelHandlerContext ctx, LastHttpContent last) throws S3Exception {
+        if (state != State.DONE) {
+            throw incompleteBody("The final chunk is missing");
+        }
+        String expectedLength = request.headers().get(S3Headers.X_AMZ_DECODED_CONTENT_LENGTH);
+        if (expectedLength != null && !expectedLength.equals(String.valueOf(decodedLength))) {
+            throw incompleteBody("Decoded content length " + decodedLength + " is not equal to " +
+                    expectedLength);
+        }
+        LastHttpContent decodedLast = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER);
+        decodedLast.trailingHeaders().add(last.trailingHeaders());
+        reset();
+        ctx.fireChannelRead(decodedLast);
+    }
+
+    private void fail(ChannelHandlerContext ctx, S3Exception exception, boolean isLast) {
+        log.error("Can't decode aws-chunked body of {} : {}", request.uri(), exception.getMessage());
+        // the rest of the body can't be trusted, the connection is closed after the answer
+        FullHttpRequest failedRequest = new StreamedHttpRequest(request, EmptyHttpHeaders.INSTANCE, null);
+        HttpUtil.setKeepAlive(failedRequest, false);
+        S3ExceptionFull error = S3ExceptionFull.build(exception, parsedRequest != null ?
+                parsedRequest.getS3ObjectPathUnsafe() : null, "1");
+        reset();
+        skipContent = !isLast;
+        Processor.sendError(ctx, failedRequest, error);
+    }
+
+    private S3Exception incorrectChunk(String message) {
+        return S3Exception.builder(message)
+                .setStatus(HttpResponseStatus.BAD_REQUEST)
+                .setCode(S3ResponseErrorCodes.INVALID_REQUEST)
+                .setMessage(message)
+                .build();
+    }
+
+    private S3Exception incompleteBody(String message) {
+        return S3Exception.builder(message)
+                .setStatus(HttpResponseStatus.BAD_REQUEST)
+                .setCode(S3ResponseErrorCodes.INCOMPLETE_BODY)
+                .setMessage("You did not provide the number of bytes specified by the Content-Length HTTP header")
+                .build();
+    }
+
+    private void reset() {
+        if (header != null) {
+            header.release();
+            header = null;
+        }
+        request = null;
+        parsedRequest = null;
+        state = null;
+        sha256 = null;
+        prevSignature = null;
+        chunkSignature = null;
+        remaining = 0;
+        decodedLength = 0;
+    }
+}
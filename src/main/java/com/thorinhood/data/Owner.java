@@ -1,8 +1,7 @@
 package com.thorinhood.data;
 
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 import org.w3c.dom.Node;
 
 import java.io.Serializable;
@@ -32,10 +31,11 @@ public class Owner implements Serializable, XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        return createElement(doc, "Owner",
-                id != null ? createElement(doc, "ID", doc.createTextNode(id)) : null,
-                displayName != null ? createElement(doc, "DisplayName", doc.createTextNode(displayName)) : null);
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("Owner")
+                .textElement("ID", id)
+                .textElement("DisplayName", displayName)
+                .endElement();
     }
 
     public static class Builder {
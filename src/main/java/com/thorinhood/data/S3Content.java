@@ -1,8 +1,7 @@
 package com.thorinhood.data;
 
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 
 public class S3Content implements XmlObject {
 
@@ -21,14 +20,15 @@ public class S3Content implements XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        return createElement(doc, "Contents",
-                    createTextElement(doc, "Key", key),
-                    createTextElement(doc, "LastModified", lastModified),
-                    createTextElement(doc, "ETag", eTag),
-                    createTextElement(doc, "Size", String.valueOf(size)),
-                    createTextElement(doc, "StorageClass", storageClass),
-                    owner != null ? owner.buildXmlRootNode(doc) : null);
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("Contents")
+                .textElement("Key", key)
+                .textElement("LastModified", lastModified)
+                .textElement("ETag", eTag)
+                .textElement("Size", String.valueOf(size))
+                .textElement("StorageClass", storageClass)
+                .element(owner)
+                .endElement();
     }
 
     public static class Builder {
@@ -38,6 +38,14 @@ public class S3FileBucketPath {
         return getPathToBucketMetadataFolder() + File.separatorChar + bucket + S3FileStatic.POSTFIX_POLICY_FILE;
     }
 
+    public String getPathToBucketKeyIndexFile() {
+        return getPathToBucketMetadataFolder() + File.separatorChar + bucket + ".keys";
+    }
+
+    public String getPathToBucketKeyJournalFile() {
+        return getPathToBucketMetadataFolder() + File.separatorChar + bucket + ".journal";
+    }
+
     public String getKeyWithBucket() {
         return bucket;
     }
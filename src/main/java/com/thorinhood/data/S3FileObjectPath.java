@@ -94,6 +94,14 @@ public class S3FileObjectPath extends S3FileBucketPath {
         return getPathToObjectMetadataFolder() + File.separatorChar + name + ".acl";
     }
 
+    public String getPathToObjectPartsFile() {
+        return getPathToObjectMetadataFolder() + File.separatorChar + name + ".parts";
+    }
+
+    public String getPathToObjectRecordFile() throws S3Exception {
+        return getPathToObjectFolder() + S3FileStatic.METADATA_RECORD_PREFIX + name;
+    }
+
     public String getPathToObjectUploadFolder(String uploadId) {
         return getPathToObjectMultipartFolder() + File.separatorChar + uploadId;
     }
@@ -106,6 +114,17 @@ public class S3FileObjectPath extends S3FileBucketPath {
        return getPathToObjectUploadFolder(uploadId) + File.separatorChar + partNumber;
     }
 
+    /**
+     * Part files of an object completed without copying its parts, in a folder per upload
+     */
+    public String getPathToObjectPartsFolder() {
+        return getPathToObjectMetadataFolder() + File.separatorChar + S3FileStatic.PARTS_FOLDER_NAME;
+    }
+
+    public String getPathToObjectPart(String uploadId, int partNumber) {
+        return getPathToObjectPartsFolder() + File.separatorChar + uploadId + File.separatorChar + partNumber;
+    }
+
     @Override
     public String toString() {
         return "S3Path{" +
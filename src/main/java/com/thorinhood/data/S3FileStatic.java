@@ -2,6 +2,9 @@ package com.thorinhood.data;
 
 public class S3FileStatic {
     public static final String METADATA_FOLDER_PREFIX = ".#";
+    public static final String METADATA_RECORD_PREFIX = ".@";
+    public static final String METADATA_ATTRIBUTE = "s3.record";
     public static final String POSTFIX_POLICY_FILE = "-policy.json";
     public static final String MULTIPART_FOLDER_NAME = "multipart";
+    public static final String PARTS_FOLDER_NAME = "parts";
 }
@@ -0,0 +1,64 @@
+package com.thorinhood.data;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class StreamedContent {
+
+    private static final Logger log = LogManager.getLogger(StreamedContent.class);
+
+    private final Path file;
+    private final long size;
+    private final String md5;
+    private final String sha256;
+
+    public StreamedContent(Path file, long size, String md5, String sha256) {
+        this.file = file;
+        this.size = size;
+        this.md5 = md5;
+        this.sha256 = sha256;
+    }
+
+    public boolean isStored() {
+        return file != null;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getMd5() {
+        return md5;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void delete() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exception) {
+            log.error("Can't delete tmp file : " + file, exception);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StreamedContent{" +
+                "file=" + file +
+                ", size=" + size +
+                '}';
+    }
+}
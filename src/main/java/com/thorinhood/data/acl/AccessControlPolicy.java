@@ -2,14 +2,12 @@ package com.thorinhood.data.acl;
 
 import com.thorinhood.data.Owner;
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 import org.w3c.dom.Node;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class AccessControlPolicy implements Serializable, XmlObject {
 
@@ -41,19 +39,16 @@ public class AccessControlPolicy implements Serializable, XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        Element accessControlListNode = doc.createElement("AccessControlList");
-        if (accessControlList != null) {
-            accessControlList.forEach(grant -> {
-                accessControlListNode.appendChild(grant.buildXmlRootNode(doc));
-            });
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("AccessControlPolicy")
+                .attribute("xmlns", xmlns)
+                .element(owner);
+        if (accessControlList != null && !accessControlList.isEmpty()) {
+            writer.startElement("AccessControlList");
+            accessControlList.forEach(writer::element);
+            writer.endElement();
         }
-        Element root = createElement(doc, "AccessControlPolicy",
-                owner != null ? owner.buildXmlRootNode(doc) : null,
-                accessControlList != null && !accessControlList.isEmpty() ? accessControlListNode : null);
-        return appendAttributes(root, Map.of(
-            "xmlns", xmlns
-        ));
+        writer.endElement();
     }
 
     public static class Builder {
@@ -1,8 +1,7 @@
 package com.thorinhood.data.acl;
 
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 import org.w3c.dom.Node;
 
 import java.io.Serializable;
@@ -32,10 +31,11 @@ public class Grant implements Serializable, XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        return createElement(doc, "Grant",
-                grantee != null ? grantee.buildXmlRootNode(doc) : null,
-                permission != null ? createElement(doc, "Permission", doc.createTextNode(permission.name())) : null);
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("Grant")
+                .element(grantee)
+                .textElement("Permission", permission != null ? permission.name() : null)
+                .endElement();
     }
 
     public static class Builder {
@@ -1,12 +1,10 @@
 package com.thorinhood.data.acl;
 
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 import org.w3c.dom.Node;
 
 import java.io.Serializable;
-import java.util.Map;
 
 public class Grantee implements Serializable, XmlObject {
 
@@ -48,15 +46,14 @@ public class Grantee implements Serializable, XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        Element root = createElement(doc, "Grantee",
-                displayName != null ? createElement(doc, "DisplayName", doc.createTextNode(displayName)) : null,
-                emailAddress != null ? createElement(doc, "EmailAddress", doc.createTextNode(emailAddress)) : null,
-                id != null ? createElement(doc, "ID", doc.createTextNode(id)) : null);
-        return appendAttributes(root, Map.of(
-                "xmlns:xsi", xsi,
-                "xsi:type", type
-        ));
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("Grantee")
+                .attribute("xmlns:xsi", xsi)
+                .attribute("xsi:type", type)
+                .textElement("DisplayName", displayName)
+                .textElement("EmailAddress", emailAddress)
+                .textElement("ID", id)
+                .endElement();
     }
 
 
@@ -1,55 +1,43 @@
 package com.thorinhood.data.acl;
 
-import java.util.Collection;
-import java.util.Set;
-import java.util.stream.Collectors;
+import static com.thorinhood.data.acl.S3Action.*;
 
 public enum Permission {
     READ (
-            Set.of("s3:ListBucket", "s3:ListBucketVersions", "s3:ListBucketMultipartUploads"),
-            Set.of("s3:GetObject", "s3:GetObjectVersion", "s3:GetObjectTorrent")
+            mask(LIST_BUCKET, LIST_BUCKET_VERSIONS, LIST_BUCKET_MULTIPART_UPLOADS),
+            mask(GET_OBJECT, GET_OBJECT_VERSION, GET_OBJECT_TORRENT)
     ),
     WRITE (
-            Set.of("s3:PutObject", "s3:DeleteObject"),
-            Set.of()
+            mask(PUT_OBJECT, DELETE_OBJECT),
+            mask()
     ),
     READ_ACP (
-            Set.of("s3:GetBucketAcl"),
-            Set.of("s3:GetObjectAcl", "s3:GetObjectVersionAcl")
+            mask(GET_BUCKET_ACL),
+            mask(GET_OBJECT_ACL, GET_OBJECT_VERSION_ACL)
     ),
     WRITE_ACP (
-            Set.of("s3:PutBucketAcl"),
-            Set.of("s3:PutObjectAcl", "s3:PutObjectVersionAcl")
+            mask(PUT_BUCKET_ACL),
+            mask(PUT_OBJECT_ACL, PUT_OBJECT_VERSION_ACL)
     ),
     FULL_CONTROL (
-            Set.of(
-                    READ.getMethodsBucket(),
-                    WRITE.getMethodsBucket(),
-                    READ_ACP.getMethodsBucket(),
-                    WRITE_ACP.getMethodsBucket(),
-                    Set.of("s3:DeleteBucket")
-            ).stream().flatMap(Collection::stream).collect(Collectors.toSet()),
-            Set.of(
-                    READ.getMethodsObject(),
-                    WRITE.getMethodsObject(),
-                    READ_ACP.getMethodsObject(),
-                    WRITE_ACP.getMethodsObject()
-            ).stream().flatMap(Collection::stream).collect(Collectors.toSet())
+            READ.bucketActions | WRITE.bucketActions | READ_ACP.bucketActions | WRITE_ACP.bucketActions |
+                    mask(DELETE_BUCKET),
+            READ.objectActions | WRITE.objectActions | READ_ACP.objectActions | WRITE_ACP.objectActions
     );
 
-    private final Set<String> methodsBucket;
-    private final Set<String> methodsObject;
+    private final long bucketActions;
+    private final long objectActions;
 
-    Permission(Set<String> methodsBucket, Set<String> methodsObject) {
-        this.methodsBucket = methodsBucket;
-        this.methodsObject = methodsObject;
+    Permission(long bucketActions, long objectActions) {
+        this.bucketActions = bucketActions;
+        this.objectActions = objectActions;
     }
 
-    public Set<String> getMethodsBucket() {
-        return methodsBucket;
+    public long getBucketActions() {
+        return bucketActions;
     }
 
-    public Set<String> getMethodsObject() {
-        return methodsObject;
+    public long getObjectActions() {
+        return objectActions;
     }
 }
@@ -0,0 +1,48 @@
+package com.thorinhood.data.acl;
+
+public enum S3Action {
+    LIST_BUCKET("s3:ListBucket"),
+    LIST_BUCKET_VERSIONS("s3:ListBucketVersions"),
+    LIST_BUCKET_MULTIPART_UPLOADS("s3:ListBucketMultipartUploads"),
+    LIST_BUCKETS("s3:ListBuckets"),
+    CREATE_BUCKET("s3:CreateBucket"),
+    DELETE_BUCKET("s3:DeleteBucket"),
+    GET_BUCKET_ACL("s3:GetBucketAcl"),
+    PUT_BUCKET_ACL("s3:PutBucketAcl"),
+    GET_BUCKET_POLICY("s3:GetBucketPolicy"),
+    PUT_BUCKET_POLICY("s3:PutBucketPolicy"),
+    GET_OBJECT("s3:GetObject"),
+    GET_OBJECT_VERSION("s3:GetObjectVersion"),
+    GET_OBJECT_TORRENT("s3:GetObjectTorrent"),
+    PUT_OBJECT("s3:PutObject"),
+    DELETE_OBJECT("s3:DeleteObject"),
+    GET_OBJECT_ACL("s3:GetObjectAcl"),
+    GET_OBJECT_VERSION_ACL("s3:GetObjectVersionAcl"),
+    PUT_OBJECT_ACL("s3:PutObjectAcl"),
+    PUT_OBJECT_VERSION_ACL("s3:PutObjectVersionAcl"),
+    ABORT_MULTIPART_UPLOAD("s3:AbortMultipartUpload");
+
+    private final String name;
+    private final long mask;
+
+    S3Action(String name) {
+        this.name = name;
+        this.mask = 1L << ordinal();
+    }
+
+    public static long mask(S3Action... actions) {
+        long mask = 0;
+        for (S3Action action : actions) {
+            mask |= action.mask;
+        }
+        return mask;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getMask() {
+        return mask;
+    }
+}
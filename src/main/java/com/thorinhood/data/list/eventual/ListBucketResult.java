@@ -1,7 +1,6 @@
 package com.thorinhood.data.list.eventual;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 
 public class ListBucketResult extends ListBucketResultAbstract {
 
@@ -16,16 +15,18 @@ public class ListBucketResult extends ListBucketResultAbstract {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        Element root = createElement(doc, "ListBucketResult",
-                createTextElement(doc, "Name", name),
-                createTextElement(doc, "MaxKeys", String.valueOf(maxKeys)),
-                createTextElement(doc, "Prefix", prefix),
-                createTextElement(doc, "IsTruncated", String.valueOf(isTruncated)),
-                createTextElement(doc, "Marker", marker),
-                createTextElement(doc, "NextMarker", nextMarker),
-                createTextElement(doc, "Delimiter", delimiter));
-        return buildXmlContentsPrefixesAttr(doc, root);
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("ListBucketResult")
+                .attribute("xmlns", xmlns)
+                .textElement("Name", name)
+                .textElement("MaxKeys", String.valueOf(maxKeys))
+                .textElement("Prefix", prefix)
+                .textElement("IsTruncated", String.valueOf(isTruncated))
+                .textElement("Marker", marker)
+                .textElement("NextMarker", nextMarker)
+                .textElement("Delimiter", delimiter);
+        writeContentsPrefixes(writer);
+        writer.endElement();
     }
 
     public String getMarker() {
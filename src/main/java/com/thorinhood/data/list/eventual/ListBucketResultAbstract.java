@@ -2,17 +2,17 @@ package com.thorinhood.data.list.eventual;
 
 import com.thorinhood.data.S3Content;
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 
-import java.util.List;
-import java.util.Map;
+import java.util.Iterator;
 import java.util.Set;
 
 public abstract class ListBucketResultAbstract implements XmlObject {
 
+    private static final int CONTENTS_PER_FLUSH = 64;
+
     protected boolean isTruncated;
-    protected List<S3Content> contents;
+    protected Iterator<S3Content> contents;
     protected String name;
     protected String prefix;
     protected String delimiter;
@@ -24,7 +24,10 @@ public abstract class ListBucketResultAbstract implements XmlObject {
         return isTruncated;
     }
 
-    public List<S3Content> getContents() {
+    /**
+     * Contents may be resolved lazily while they are written
+     */
+    public Iterator<S3Content> getContents() {
         return contents;
     }
 
@@ -48,19 +51,21 @@ public abstract class ListBucketResultAbstract implements XmlObject {
         return commonPrefixes;
     }
 
-    protected Element buildXmlContentsPrefixesAttr(Document doc, Element root) {
-        if (contents != null && !contents.isEmpty()) {
-            contents.forEach(content -> root.appendChild(content.buildXmlRootNode(doc)));
+    protected void writeContentsPrefixes(XmlWriter writer) {
+        if (contents != null) {
+            int written = 0;
+            while (contents.hasNext()) {
+                writer.element(contents.next());
+                if (++written % CONTENTS_PER_FLUSH == 0) {
+                    writer.flush();
+                }
+            }
         }
         if (commonPrefixes != null && !commonPrefixes.isEmpty()) {
-            Element commonPrefixesElement = doc.createElement("CommonPrefixes");
-            commonPrefixes.forEach(prefix -> commonPrefixesElement
-                    .appendChild(createTextElement(doc, "Prefix", prefix)));
-            root.appendChild(commonPrefixesElement);
+            writer.startElement("CommonPrefixes");
+            commonPrefixes.forEach(prefix -> writer.textElement("Prefix", prefix));
+            writer.endElement();
         }
-        return appendAttributes(root, Map.of(
-                "xmlns", xmlns
-        ));
     }
 
     public static abstract class Builder<T extends Builder> {
@@ -73,7 +78,7 @@ public abstract class ListBucketResultAbstract implements XmlObject {
             this.childBuilder = childBuilder;
         }
 
-        public T setContents(List<S3Content> contents) {
+        public T setContents(Iterator<S3Content> contents) {
             listBucketResultAbstract.contents = contents;
             return childBuilder;
         }
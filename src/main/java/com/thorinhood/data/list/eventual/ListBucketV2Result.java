@@ -1,7 +1,6 @@
 package com.thorinhood.data.list.eventual;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 
 public class ListBucketV2Result extends ListBucketResultAbstract {
 
@@ -18,18 +17,20 @@ public class ListBucketV2Result extends ListBucketResultAbstract {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        Element root = createElement(doc, "ListBucketResult",
-                            createTextElement(doc, "Name", name),
-                            createTextElement(doc, "MaxKeys", String.valueOf(maxKeys)),
-                            createTextElement(doc, "Prefix", prefix),
-                            createTextElement(doc, "StartAfter", startAfter),
-                            createTextElement(doc, "IsTruncated", String.valueOf(isTruncated)),
-                            createTextElement(doc, "KeyCount", String.valueOf(keyCount)),
-                            createTextElement(doc, "NextContinuationToken", nextContinuationToken),
-                            createTextElement(doc, "ContinuationToken", continuationToken),
-                            createTextElement(doc, "Delimiter", delimiter));
-        return buildXmlContentsPrefixesAttr(doc, root);
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("ListBucketResult")
+                .attribute("xmlns", xmlns)
+                .textElement("Name", name)
+                .textElement("MaxKeys", String.valueOf(maxKeys))
+                .textElement("Prefix", prefix)
+                .textElement("StartAfter", startAfter)
+                .textElement("IsTruncated", String.valueOf(isTruncated))
+                .textElement("KeyCount", String.valueOf(keyCount))
+                .textElement("NextContinuationToken", nextContinuationToken)
+                .textElement("ContinuationToken", continuationToken)
+                .textElement("Delimiter", delimiter);
+        writeContentsPrefixes(writer);
+        writer.endElement();
     }
 
     public String getStartAfter() {
@@ -8,6 +8,7 @@ public class GetBucketObjectsV2 {
     private String continuationToken;
     private String delimiter;
     private int maxKeys = 1000;
+    private boolean fetchOwner;
 
     public static Builder builder() {
         return new Builder();
@@ -40,6 +41,10 @@ public class GetBucketObjectsV2 {
         return delimiter;
     }
 
+    public boolean isFetchOwner() {
+        return fetchOwner;
+    }
+
     public static class Builder {
         private final GetBucketObjectsV2 request;
 
@@ -77,6 +82,11 @@ public class GetBucketObjectsV2 {
             return this;
         }
 
+        public Builder setFetchOwner(boolean fetchOwner) {
+            request.fetchOwner = fetchOwner;
+            return this;
+        }
+
         public GetBucketObjectsV2 build() {
             return request;
         }
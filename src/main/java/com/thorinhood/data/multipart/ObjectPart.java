@@ -0,0 +1,35 @@
+package com.thorinhood.data.multipart;
+
+/**
+ * Part of a completed multipart upload as it lies in the object file
+ */
+public class ObjectPart {
+
+    private final int partNumber;
+    private final long offset;
+    private final long size;
+    private final String eTag;
+
+    public ObjectPart(int partNumber, long offset, long size, String eTag) {
+        this.partNumber = partNumber;
+        this.offset = offset;
+        this.size = size;
+        this.eTag = eTag;
+    }
+
+    public int getPartNumber() {
+        return partNumber;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+}
@@ -0,0 +1,55 @@
+package com.thorinhood.data.multipart;
+
+import java.util.List;
+
+/**
+ * Parts of an object completed by a multipart upload. The ETag of the object is kept with the parts, so the layout of
+ * an object rewritten later by a plain put is not used.
+ */
+public class PartLayout {
+
+    private final String eTag;
+    private final String uploadId;
+    private final List<ObjectPart> parts;
+
+    public PartLayout(String eTag, List<ObjectPart> parts) {
+        this(eTag, null, parts);
+    }
+
+    public PartLayout(String eTag, String uploadId, List<ObjectPart> parts) {
+        this.eTag = eTag;
+        this.uploadId = uploadId;
+        this.parts = parts;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Upload which part files hold the data of a virtual object, null if the parts are copied into the object file
+     */
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public boolean isVirtual() {
+        return uploadId != null;
+    }
+
+    public List<ObjectPart> getParts() {
+        return parts;
+    }
+
+    public int getPartsCount() {
+        return parts.size();
+    }
+
+    /**
+     * @param partNumber position of the part in the completed upload, starting from 1
+     * @return null if the object has fewer parts
+     */
+    public ObjectPart getPart(int partNumber) {
+        return partNumber >= 1 && partNumber <= parts.size() ? parts.get(partNumber - 1) : null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.thorinhood.data.requests;
+
+import com.thorinhood.exceptions.S3Exception;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ByteRange {
+
+    private static final String BYTES_UNIT = "bytes=";
+    private static final int MAX_RANGES = 128;
+
+    private final long first;
+    private final long last;
+
+    /**
+     * Parses the Range header against an object of the given length. Ranges which start after the end of the object
+     * are dropped and the rest are clamped to it.
+     *
+     * @return null if the header is not a valid byte ranges set, so the whole object is sent
+     * @throws S3Exception if none of the ranges can be satisfied
+     */
+    public static List<ByteRange> parse(String header, long length) throws S3Exception {
+        if (header == null || !header.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+        String[] specs = header.substring(BYTES_UNIT.length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<ByteRange> ranges = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix < 0) {
+                        return null;
+                    }
+                    if (suffix > 0 && length > 0) {
+                        ranges.add(new ByteRange(Math.max(0, length - suffix), length - 1));
+                    }
+                    continue;
+                }
+                long first = Long.parseLong(spec.substring(0, dash));
+                long last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                if (first < 0 || last < first) {
+                    return null;
+                }
+                if (first < length) {
+                    ranges.add(new ByteRange(first, Math.min(last, length - 1)));
+                }
+            } catch (NumberFormatException exception) {
+                return null;
+            }
+        }
+        if (ranges.isEmpty()) {
+            throw S3Exception.INVALID_RANGE(header, length);
+        }
+        return ranges;
+    }
+
+    public ByteRange(long first, long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getLast() {
+        return last;
+    }
+
+    public long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * @return value of the Content-Range header
+     */
+    public String toContentRange(long length) {
+        return "bytes " + first + "-" + last + "/" + length;
+    }
+}
@@ -0,0 +1,28 @@
+package com.thorinhood.data.requests;
+
+public enum S3Operation {
+    LIST_BUCKETS,
+    CREATE_BUCKET,
+    DELETE_BUCKET,
+    LIST_OBJECTS,
+    LIST_OBJECTS_V2,
+    GET_BUCKET_ACL,
+    PUT_BUCKET_ACL,
+    GET_BUCKET_POLICY,
+    PUT_BUCKET_POLICY,
+    GET_OBJECT,
+    HEAD_OBJECT,
+    PUT_OBJECT,
+    COPY_OBJECT,
+    DELETE_OBJECT,
+    GET_OBJECT_ACL,
+    PUT_OBJECT_ACL,
+    CREATE_MULTIPART_UPLOAD,
+    UPLOAD_PART,
+    COMPLETE_MULTIPART_UPLOAD,
+    ABORT_MULTIPART_UPLOAD;
+
+    public boolean isStreamingUpload() {
+        return this == PUT_OBJECT || this == UPLOAD_PART;
+    }
+}
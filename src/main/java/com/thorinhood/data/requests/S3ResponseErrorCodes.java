@@ -14,4 +14,9 @@ public class S3ResponseErrorCodes {
     public static final String NO_SUCH_UPLOAD = "NoSuchUpload";
     public static final String INVALID_PART = "InvalidPart";
     public static final String ENTITY_TOO_SMALL = "EntityTooSmall";
+    public static final String SLOW_DOWN = "SlowDown";
+    public static final String ENTITY_TOO_LARGE = "EntityTooLarge";
+    public static final String INCOMPLETE_BODY = "IncompleteBody";
+    public static final String INVALID_RANGE = "InvalidRange";
+    public static final String INVALID_PART_NUMBER = "InvalidPartNumber";
 }
@@ -1,10 +1,8 @@
 package com.thorinhood.data.results;
 
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 
-import java.util.Map;
 
 public class CompleteMultipartUploadResult implements XmlObject {
 
@@ -22,15 +20,14 @@ public class CompleteMultipartUploadResult implements XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        Element root = createElement(doc, "CompleteMultipartUploadResult",
-                createTextElement(doc, "Location", location),
-                createTextElement(doc, "Bucket", bucket),
-                createTextElement(doc, "Key", key),
-                createTextElement(doc, "ETag", eTag));
-        return appendAttributes(root, Map.of(
-                "xmlns", xmlns
-        ));
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("CompleteMultipartUploadResult")
+                .attribute("xmlns", xmlns)
+                .textElement("Location", location)
+                .textElement("Bucket", bucket)
+                .textElement("Key", key)
+                .textElement("ETag", eTag)
+                .endElement();
     }
 
     public static class Builder {
@@ -1,8 +1,7 @@
 package com.thorinhood.data.results;
 
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 
 public class CopyObjectResult implements XmlObject {
 
@@ -17,10 +16,11 @@ public class CopyObjectResult implements XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        return createElement(doc, "CopyObjectResult",
-                createTextElement(doc, "LastModified", lastModified),
-                createTextElement(doc, "ETag", eTag));
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("CopyObjectResult")
+                .textElement("LastModified", lastModified)
+                .textElement("ETag", eTag)
+                .endElement();
     }
 
     public static class Builder {
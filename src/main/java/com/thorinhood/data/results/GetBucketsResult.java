@@ -3,8 +3,7 @@ package com.thorinhood.data.results;
 import com.thorinhood.data.Owner;
 import com.thorinhood.utils.Pair;
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 
 import java.util.List;
 
@@ -21,20 +20,18 @@ public class GetBucketsResult implements XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        Element root = createElement(doc, "ListAllMyBucketsResult",
-                    owner.buildXmlRootNode(doc));
-        Element bucketsElement = doc.createElement("Buckets");
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("ListAllMyBucketsResult")
+                .element(owner)
+                .startElement("Buckets");
         if (buckets != null) {
-            buckets.forEach(bucket -> {
-                Element bucketElement = createElement(doc, "Bucket",
-                        createTextElement(doc, "CreationDate", bucket.getSecond()),
-                        createTextElement(doc, "Name", bucket.getFirst()));
-                bucketsElement.appendChild(bucketElement);
-            });
+            buckets.forEach(bucket -> writer.startElement("Bucket")
+                    .textElement("CreationDate", bucket.getSecond())
+                    .textElement("Name", bucket.getFirst())
+                    .endElement());
         }
-        root.appendChild(bucketsElement);
-        return root;
+        writer.endElement()
+                .endElement();
     }
 
     public List<Pair<String, String>> getBuckets() {
@@ -1,8 +1,7 @@
 package com.thorinhood.data.results;
 
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 
 public class InitiateMultipartUploadResult implements XmlObject {
 
@@ -18,11 +17,12 @@ public class InitiateMultipartUploadResult implements XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        return createElement(doc, "InitiateMultipartUploadResult",
-                createTextElement(doc, "Bucket", bucket),
-                createTextElement(doc, "Key", key),
-                createTextElement(doc, "UploadId", uploadId));
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("InitiateMultipartUploadResult")
+                .textElement("Bucket", bucket)
+                .textElement("Key", key)
+                .textElement("UploadId", uploadId)
+                .endElement();
     }
 
     public static class Builder {
@@ -0,0 +1,6 @@
+package com.thorinhood.data.s3object;
+
+public interface HasBody {
+    HasLastModified setBody(S3ObjectBody body);
+    S3ObjectBody getBody();
+}
@@ -3,6 +3,6 @@ package com.thorinhood.data.s3object;
 import java.io.File;
 
 public interface HasFile {
-    HasRawBytes setFile(File file);
+    HasBody setFile(File file);
     File getFile();
 }
@@ -5,15 +5,16 @@ import com.thorinhood.data.S3FileObjectPath;
 import java.io.File;
 import java.util.Map;
 
-public class S3Object implements HasAbsolutePath, HasS3Path, HasETag, HasFile, HasRawBytes, HasLastModified, HasMetaData {
+public class S3Object implements HasAbsolutePath, HasS3Path, HasETag, HasFile, HasBody, HasLastModified, HasMetaData {
 
     private String absolutePath;
     private S3FileObjectPath s3FileObjectPath;
     private String ETag;
     private File file;
-    private byte[] bytes;
+    private S3ObjectBody body;
     private String lastModified;
     private Map<String, String> metadata;
+    private Integer partsCount;
 
     private S3Object() {
     }
@@ -35,7 +36,7 @@ public class S3Object implements HasAbsolutePath, HasS3Path, HasETag, HasFile, H
     }
 
     @Override
-    public HasRawBytes setFile(File file) {
+    public HasBody setFile(File file) {
         this.file = file;
         return this;
     }
@@ -47,8 +48,8 @@ public class S3Object implements HasAbsolutePath, HasS3Path, HasETag, HasFile, H
     }
 
     @Override
-    public HasLastModified setRawBytes(byte[] rawBytes) {
-        bytes = rawBytes;
+    public HasLastModified setBody(S3ObjectBody body) {
+        this.body = body;
         return this;
     }
 
@@ -84,8 +85,8 @@ public class S3Object implements HasAbsolutePath, HasS3Path, HasETag, HasFile, H
     }
 
     @Override
-    public byte[] getRawBytes() {
-        return bytes;
+    public S3ObjectBody getBody() {
+        return body;
     }
 
     @Override
@@ -98,4 +99,16 @@ public class S3Object implements HasAbsolutePath, HasS3Path, HasETag, HasFile, H
     public Map<String, String> getMetaData() {
         return metadata;
     }
+
+    public S3Object setPartsCount(Integer partsCount) {
+        this.partsCount = partsCount;
+        return this;
+    }
+
+    /**
+     * Parts of the multipart upload of the object if a part of it is requested, null otherwise
+     */
+    public Integer getPartsCount() {
+        return partsCount;
+    }
 }
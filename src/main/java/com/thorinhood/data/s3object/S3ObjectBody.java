@@ -0,0 +1,196 @@
+package com.thorinhood.data.s3object;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bytes of an object as a sequence of file ranges: one range of the object file, or a range per part file of an object
+ * completed without copying its parts. The files are opened on the first {@link #open()}, so a head request never
+ * touches the data, and the opened channels keep reading the same files even if the object is rewritten after it.
+ */
+public class S3ObjectBody implements Closeable {
+
+    private final List<Segment> segments;
+    private final long offset;
+    private final long length;
+
+    public S3ObjectBody(Path file, long offset, long length) {
+        this(Collections.singletonList(new Segment(new Source(file), offset, length)), offset, length);
+    }
+
+    private S3ObjectBody(List<Segment> segments, long offset, long length) {
+        this.segments = segments;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Body of the whole files one after another
+     */
+    public static S3ObjectBody ofFiles(List<Path> files, List<Long> lengths) {
+        List<Segment> segments = new ArrayList<>(files.size());
+        long length = 0;
+        for (int i = 0; i < files.size(); i++) {
+            segments.add(new Segment(new Source(files.get(i)), 0, lengths.get(i)));
+            length += lengths.get(i);
+        }
+        return new S3ObjectBody(segments, 0, length);
+    }
+
+    /**
+     * Position of the body in the object
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Body of a range of this body, it shares the files of this body and is opened if this body is
+     */
+    public S3ObjectBody slice(long offset, long length) {
+        List<Segment> sliced = new ArrayList<>();
+        long skip = offset;
+        long left = length;
+        for (Segment segment : segments) {
+            if (left == 0) {
+                break;
+            }
+            if (skip >= segment.length) {
+                skip -= segment.length;
+                continue;
+            }
+            long count = Math.min(segment.length - skip, left);
+            sliced.add(new Segment(segment.source, segment.position + skip, count));
+            left -= count;
+            skip = 0;
+        }
+        return new S3ObjectBody(sliced, this.offset + offset, length);
+    }
+
+    public void open() throws IOException {
+        try {
+            for (Segment segment : segments) {
+                segment.source.open();
+            }
+        } catch (IOException exception) {
+            close();
+            throw exception;
+        }
+    }
+
+    public boolean isOpen() {
+        return segments.stream().allMatch(segment -> segment.source.isOpen());
+    }
+
+    public void transferTo(WritableByteChannel target) throws IOException {
+        for (Segment segment : segments) {
+            FileChannel source = segment.getChannel();
+            long position = segment.position;
+            long end = segment.position + segment.length;
+            while (position < end) {
+                long transferred = source.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("Unexpected end of object : " + segment.getFile());
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Segment segment : segments) {
+            try {
+                segment.source.close();
+            } catch (IOException exception) {
+                failure = exception;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Range of one file of the body
+     */
+    public static class Segment {
+
+        private final Source source;
+        private final long position;
+        private final long length;
+
+        private Segment(Source source, long position, long length) {
+            this.source = source;
+            this.position = position;
+            this.length = length;
+        }
+
+        public Path getFile() {
+            return source.file;
+        }
+
+        /**
+         * Position of the range in the file
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public FileChannel getChannel() throws IOException {
+            return source.open();
+        }
+    }
+
+    private static class Source {
+
+        private final Path file;
+        private FileChannel channel;
+        private boolean closed;
+
+        private Source(Path file) {
+            this.file = file;
+        }
+
+        private synchronized FileChannel open() throws IOException {
+            if (closed) {
+                throw new IOException("Body is closed : " + file);
+            }
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+            return channel;
+        }
+
+        private synchronized boolean isOpen() {
+            return channel != null && !closed;
+        }
+
+        private synchronized void close() throws IOException {
+            closed = true;
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.thorinhood.data.s3object;
+
+import com.thorinhood.data.Owner;
+import com.thorinhood.data.S3FileObjectPath;
+
+/**
+ * What a listing shows about an object
+ */
+public class S3ObjectSummary {
+
+    private S3FileObjectPath s3FileObjectPath;
+    private String eTag;
+    private long size;
+    private long lastModified;
+    private Owner owner;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private S3ObjectSummary() {
+    }
+
+    public S3FileObjectPath getS3FileObjectPath() {
+        return s3FileObjectPath;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Null if the owner was not requested
+     */
+    public Owner getOwner() {
+        return owner;
+    }
+
+    public static class Builder {
+        private final S3ObjectSummary s3ObjectSummary;
+
+        public Builder() {
+            s3ObjectSummary = new S3ObjectSummary();
+        }
+
+        public Builder setS3FileObjectPath(S3FileObjectPath s3FileObjectPath) {
+            s3ObjectSummary.s3FileObjectPath = s3FileObjectPath;
+            return this;
+        }
+
+        public Builder setETag(String eTag) {
+            s3ObjectSummary.eTag = eTag;
+            return this;
+        }
+
+        public Builder setSize(long size) {
+            s3ObjectSummary.size = size;
+            return this;
+        }
+
+        public Builder setLastModified(long lastModified) {
+            s3ObjectSummary.lastModified = lastModified;
+            return this;
+        }
+
+        public Builder setOwner(Owner owner) {
+            s3ObjectSummary.owner = owner;
+            return this;
+        }
+
+        public S3ObjectSummary build() {
+            return s3ObjectSummary;
+        }
+    }
+}
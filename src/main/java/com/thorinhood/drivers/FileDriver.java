@@ -14,6 +14,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.util.Objects;
 import java.util.Random;
 
@@ -46,6 +47,33 @@ public class FileDriver {
         return Files.isRegularFile(path) && isMetadataFolder(path.getParent());
     }
 
+    protected boolean isMetadataRecord(Path path) {
+        return path.getFileName().toString().startsWith(S3FileStatic.METADATA_RECORD_PREFIX) &&
+                Files.isRegularFile(path);
+    }
+
+    protected boolean hasMetadataAttribute(Path path) {
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(path, UserDefinedFileAttributeView.class);
+        try {
+            return view != null && view.list().contains(S3FileStatic.METADATA_ATTRIBUTE);
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * @return null if the object doesn't exist
+     */
+    protected BasicFileAttributes readObjectAttributes(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        try {
+            return Files.readAttributes(Path.of(s3FileObjectPath.getPathToObject()), BasicFileAttributes.class);
+        } catch (NoSuchFileException exception) {
+            return null;
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
     public boolean isBucket(Path path) {
         return Files.isDirectory(path) && path.getParent().toString().equals(BASE_FOLDER_PATH);
     }
@@ -59,6 +87,16 @@ public class FileDriver {
     }
 
     protected Path createPreparedTmpFile(Path tmpFolder, Path file, byte[] bytes) {
+        Path tmpFile = createTmpFile(tmpFolder, file);
+        try (FileOutputStream outputStream = new FileOutputStream(tmpFile.toFile())) {
+            outputStream.write(bytes);
+            return tmpFile;
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
+    protected Path createTmpFile(Path tmpFolder, Path file) {
         File tmpFile = new File(tmpFolder.toAbsolutePath().toString() + File.separatorChar +
             file.getFileName().toString() + "." + new Random().nextLong());
         while (tmpFile.exists()) {
@@ -67,9 +105,6 @@ public class FileDriver {
         }
         try {
             if (tmpFile.createNewFile()) {
-                try (FileOutputStream outputStream = new FileOutputStream(tmpFile)) {
-                    outputStream.write(bytes);
-                }
                 return tmpFile.toPath();
             } else {
                 throw S3Exception.INTERNAL_ERROR("Can't create file : " + tmpFile.getAbsolutePath());
@@ -148,12 +183,18 @@ public class FileDriver {
                     .setMessage("The resource you requested does not exist")
                     .build();
         }
+        if (isFileExists(s3FileObjectPath.getPathToObjectRecordFile())) {
+            return;
+        }
         Path pathToObjectMetadataFolder = new File(s3FileObjectPath.getPathToObjectMetadataFolder()).toPath();
         Path pathToObjectMetaFile = new File(s3FileObjectPath.getPathToObjectMetaFile()).toPath();
         Path pathToObjectAclFile = new File(s3FileObjectPath.getPathToObjectAclFile()).toPath();
         if (!isFolderExists(pathToObjectMetadataFolder) || !isMetadataFolder(pathToObjectMetadataFolder) ||
             !isFileExists(pathToObjectMetaFile) || !isMetadataFile(pathToObjectMetaFile) ||
             !isFileExists(pathToObjectAclFile) || !isMetadataFile(pathToObjectAclFile)) {
+            if (hasMetadataAttribute(pathToObject)) {
+                return;
+            }
             throw S3Exception.INTERNAL_ERROR("Object is corrupt");
         }
     }
@@ -207,4 +248,8 @@ public class FileDriver {
         }
         return S3FileObjectPath.relative(BASE_FOLDER_PATH, bucketKey);
     }
+
+    public S3FileBucketPath buildPathToBucket(String bucket) {
+        return new S3FileBucketPath(BASE_FOLDER_PATH, bucket);
+    }
 }
@@ -4,27 +4,69 @@ import com.thorinhood.drivers.acl.AclDriver;
 import com.thorinhood.drivers.acl.FileAclDriver;
 import com.thorinhood.drivers.entity.EntityDriver;
 import com.thorinhood.drivers.entity.FileEntityDriver;
+import com.thorinhood.drivers.index.FileKeyIndexDriver;
+import com.thorinhood.drivers.index.KeyIndexDriver;
+import com.thorinhood.drivers.index.ParallelTreeScanner;
+import com.thorinhood.drivers.index.TreeKeyIndexDriver;
 import com.thorinhood.drivers.metadata.FileMetadataDriver;
 import com.thorinhood.drivers.metadata.MetadataDriver;
+import com.thorinhood.drivers.metadata.MetadataLayout;
+import com.thorinhood.drivers.metadata.RecordMetadataDriver;
+import com.thorinhood.drivers.metadata.RecordMetadataDriverAbstract;
+import com.thorinhood.drivers.metadata.XattrMetadataDriver;
 import com.thorinhood.drivers.principal.FilePolicyDriver;
 import com.thorinhood.drivers.principal.PolicyDriver;
 import com.thorinhood.drivers.user.FileUserDriver;
 import com.thorinhood.drivers.user.UserDriver;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
 
 public class FileDriversFactory extends FileDriver {
 
+    private final MetadataLayout metadataLayout;
+    private final boolean keyIndex;
+    private final ParallelTreeScanner scanner;
+    private final boolean virtualMultipart;
+
     public FileDriversFactory(String baseFolderPath) {
+        this(baseFolderPath, MetadataLayout.FILES);
+    }
+
+    public FileDriversFactory(String baseFolderPath, MetadataLayout metadataLayout) {
+        this(baseFolderPath, metadataLayout, true);
+    }
+
+    public FileDriversFactory(String baseFolderPath, MetadataLayout metadataLayout, boolean keyIndex) {
+        this(baseFolderPath, metadataLayout, keyIndex, 1);
+    }
+
+    public FileDriversFactory(String baseFolderPath, MetadataLayout metadataLayout, boolean keyIndex,
+                              int scanThreads) {
+        this(baseFolderPath, metadataLayout, keyIndex, scanThreads, false);
+    }
+
+    public FileDriversFactory(String baseFolderPath, MetadataLayout metadataLayout, boolean keyIndex,
+                              int scanThreads, boolean virtualMultipart) {
         super(baseFolderPath,
 baseFolderPath + File.separatorChar + CONFIG_FOLDER_NAME,
 baseFolderPath + File.separatorChar + CONFIG_FOLDER_NAME + File.separatorChar + USERS_FOLDER_NAME);
+        this.metadataLayout = metadataLayout;
+        this.keyIndex = keyIndex;
+        this.scanner = new ParallelTreeScanner(scanThreads);
+        this.virtualMultipart = virtualMultipart;
     }
 
     public void init() throws Exception {
         createFolder(BASE_FOLDER_PATH);
         createFolder(CONFIG_FOLDER_PATH);
         createFolder(USERS_FOLDER_PATH);
+        if (metadataLayout == MetadataLayout.XATTR && !Files.getFileStore(Path.of(BASE_FOLDER_PATH))
+                .supportsFileAttributeView(UserDefinedFileAttributeView.class)) {
+            throw new Exception("File system of " + BASE_FOLDER_PATH + " doesn't support extended attributes");
+        }
     }
 
     public void clearAll() throws Exception {
@@ -36,11 +78,31 @@ baseFolderPath + File.separatorChar + CONFIG_FOLDER_NAME + File.separatorChar +
     }
 
     public AclDriver createAclDriver() {
-        return new FileAclDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH);
+        if (metadataLayout == MetadataLayout.FILES) {
+            return new FileAclDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH);
+        }
+        return createRecordMetadataDriver();
     }
 
     public MetadataDriver createMetadataDriver() {
-        return new FileMetadataDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH);
+        if (metadataLayout == MetadataLayout.FILES) {
+            return new FileMetadataDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH);
+        }
+        return createRecordMetadataDriver();
+    }
+
+    public int migrateMetadata() throws Exception {
+        if (metadataLayout == MetadataLayout.FILES) {
+            throw new Exception("Metadata can't be migrated to the " + MetadataLayout.FILES + " layout");
+        }
+        return createRecordMetadataDriver().migrate();
+    }
+
+    private RecordMetadataDriverAbstract createRecordMetadataDriver() {
+        if (metadataLayout == MetadataLayout.XATTR) {
+            return new XattrMetadataDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH);
+        }
+        return new RecordMetadataDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH);
     }
 
     public PolicyDriver createPolicyDriver() {
@@ -48,7 +110,15 @@ baseFolderPath + File.separatorChar + CONFIG_FOLDER_NAME + File.separatorChar +
     }
 
     public EntityDriver createEntityDriver() {
-        return new FileEntityDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH);
+        return new FileEntityDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH, createKeyIndexDriver(),
+                scanner, virtualMultipart);
+    }
+
+    public KeyIndexDriver createKeyIndexDriver() {
+        if (!keyIndex) {
+            return new TreeKeyIndexDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH);
+        }
+        return new FileKeyIndexDriver(BASE_FOLDER_PATH, CONFIG_FOLDER_PATH, USERS_FOLDER_PATH, scanner);
     }
 
     public FileDriver createFileDriver() {
@@ -0,0 +1,9 @@
+package com.thorinhood.drivers;
+
+import com.thorinhood.exceptions.S3Exception;
+
+import java.io.IOException;
+
+public interface S3BiConsumer<T, U> {
+    void accept(T t, U u) throws S3Exception, IOException;
+}
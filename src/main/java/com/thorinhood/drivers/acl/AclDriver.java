@@ -1,5 +1,6 @@
 package com.thorinhood.drivers.acl;
 
+import com.thorinhood.data.Owner;
 import com.thorinhood.data.S3FileBucketPath;
 import com.thorinhood.data.S3FileObjectPath;
 import com.thorinhood.data.acl.AccessControlPolicy;
@@ -10,6 +11,7 @@ public interface AclDriver {
     String putObjectAcl(S3FileObjectPath s3FileObjectPath, AccessControlPolicy acl)
             throws S3Exception;
     AccessControlPolicy getObjectAcl(S3FileObjectPath s3FileObjectPath) throws S3Exception;
+    Owner getObjectOwner(S3FileObjectPath s3FileObjectPath) throws S3Exception;
     void putBucketAcl(S3FileBucketPath s3FileBucketPath, AccessControlPolicy acl) throws S3Exception;
     AccessControlPolicy getBucketAcl(S3FileBucketPath s3FileBucketPath) throws S3Exception;
     AccessControlPolicy parseFromBytes(byte[] bytes) throws S3Exception;
@@ -0,0 +1,54 @@
+package com.thorinhood.drivers.acl;
+
+import com.thorinhood.data.S3User;
+import com.thorinhood.data.acl.AccessControlPolicy;
+import com.thorinhood.data.acl.Grant;
+import com.thorinhood.data.acl.S3Action;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ACL prepared for permission checks: grants are resolved once to a mask of allowed {@link S3Action} per grantee, so a
+ * check is one lookup and one AND.
+ */
+public class CompiledAcl {
+
+    private final AccessControlPolicy acl;
+    private final Map<String, Long> actionsByGrantee;
+
+    private CompiledAcl(AccessControlPolicy acl, boolean isBucketAcl) {
+        this.acl = acl;
+        actionsByGrantee = new HashMap<>();
+        if (acl.getAccessControlList() == null) {
+            return;
+        }
+        for (Grant grant : acl.getAccessControlList()) {
+            if (grant.getGrantee() == null || grant.getPermission() == null ||
+                    grant.getGrantee().getId() == null || grant.getGrantee().getDisplayName() == null) {
+                continue;
+            }
+            long actions = isBucketAcl ? grant.getPermission().getBucketActions() :
+                    grant.getPermission().getObjectActions();
+            actionsByGrantee.merge(granteeKey(grant.getGrantee().getDisplayName(), grant.getGrantee().getId()),
+                    actions, (a, b) -> a | b);
+        }
+    }
+
+    public static CompiledAcl compile(AccessControlPolicy acl, boolean isBucketAcl) {
+        return new CompiledAcl(acl, isBucketAcl);
+    }
+
+    public AccessControlPolicy getAcl() {
+        return acl;
+    }
+
+    public boolean isAllowed(S3User s3User, S3Action action) {
+        Long actions = actionsByGrantee.get(granteeKey(s3User.getAccountName(), s3User.getCanonicalUserId()));
+        return actions != null && (actions & action.getMask()) != 0;
+    }
+
+    private static String granteeKey(String displayName, String id) {
+        return displayName + '\n' + id;
+    }
+}
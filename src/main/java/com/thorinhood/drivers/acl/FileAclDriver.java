@@ -13,9 +13,16 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +30,8 @@ import java.util.function.Supplier;
 
 public class FileAclDriver extends FileDriver implements AclDriver {
 
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
     public FileAclDriver(String baseFolderPath, String configFolderPath, String usersFolderPath) {
         super(baseFolderPath, configFolderPath, usersFolderPath);
     }
@@ -31,10 +40,9 @@ public class FileAclDriver extends FileDriver implements AclDriver {
     public String putObjectAcl(S3FileObjectPath s3FileObjectPath, AccessControlPolicy acl) throws S3Exception {
         String pathToObjectAclFile = s3FileObjectPath.getPathToObjectAclFile();
         String pathToMetadataFolder = s3FileObjectPath.getPathToObjectMetadataFolder();
-        String xml = acl.buildXmlText();
         File metadataFolder = new File(pathToMetadataFolder);
         File metaFile = new File(pathToObjectAclFile);
-        Path source = createPreparedTmpFile(metadataFolder.toPath(), metaFile.toPath(), xml.getBytes());
+        Path source = createPreparedTmpFile(metadataFolder.toPath(), metaFile.toPath(), acl.buildXmlBytes());
         commitFile(source, metaFile.toPath());
         return metaFile.exists() ? DateTimeUtil.parseDateTime(metaFile) : null;
     }
@@ -44,12 +52,48 @@ public class FileAclDriver extends FileDriver implements AclDriver {
         return getAcl(s3FileObjectPath, s3FileObjectPath::getPathToObjectAclFile);
     }
 
+    /**
+     * Reads the acl file only up to the owner
+     */
+    @Override
+    public Owner getObjectOwner(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        String pathToAclFile = s3FileObjectPath.getPathToObjectAclFile();
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(pathToAclFile))) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+            try {
+                Owner.Builder owner = Owner.builder();
+                boolean inOwner = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (name.equals("Owner")) {
+                            inOwner = true;
+                        } else if (inOwner && name.equals("ID")) {
+                            owner.setId(reader.getElementText());
+                        } else if (inOwner && name.equals("DisplayName")) {
+                            owner.setDisplayName(reader.getElementText());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("Owner")) {
+                        return owner.build();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (FileNotFoundException exception) {
+            throw S3Exception.INTERNAL_ERROR("Can't find acl file : " + pathToAclFile);
+        } catch (IOException | XMLStreamException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+        throw S3Exception.INTERNAL_ERROR("Acl file has no owner : " + pathToAclFile);
+    }
+
     @Override
     public void putBucketAcl(S3FileBucketPath s3FileBucketPath, AccessControlPolicy acl) throws S3Exception {
-        String xml = acl.buildXmlText();
         File metadataFolder = new File(s3FileBucketPath.getPathToBucketMetadataFolder());
         File metaFile = new File(s3FileBucketPath.getPathToBucketAclFile());
-        Path source = createPreparedTmpFile(metadataFolder.toPath(), metaFile.toPath(), xml.getBytes());
+        Path source = createPreparedTmpFile(metadataFolder.toPath(), metaFile.toPath(), acl.buildXmlBytes());
         commitFile(source, metaFile.toPath());
     }
 
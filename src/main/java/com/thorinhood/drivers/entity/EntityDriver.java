@@ -6,14 +6,19 @@ import com.thorinhood.data.list.request.GetBucketObjectsV2;
 import com.thorinhood.data.S3FileBucketPath;
 import com.thorinhood.data.S3FileObjectPath;
 import com.thorinhood.data.S3User;
+import com.thorinhood.data.StreamedContent;
 import com.thorinhood.data.multipart.Part;
+import com.thorinhood.data.multipart.PartLayout;
 import com.thorinhood.data.list.raw.ListBucketV2ResultRaw;
 import com.thorinhood.data.s3object.HasMetaData;
 import com.thorinhood.data.s3object.S3Object;
+import com.thorinhood.data.s3object.S3ObjectBody;
+import com.thorinhood.drivers.S3BiConsumer;
 import com.thorinhood.exceptions.S3Exception;
 import com.thorinhood.utils.Pair;
 import io.netty.handler.codec.http.HttpHeaders;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -22,17 +27,37 @@ public interface EntityDriver {
     HasMetaData getObject(S3FileObjectPath s3FileObjectPath, String eTag, HttpHeaders httpHeaders, boolean isCopyRead)
             throws S3Exception;
     HasMetaData headObject(S3FileObjectPath s3FileObjectPath, String eTag, HttpHeaders httpHeaders) throws S3Exception;
-    S3Object putObject(S3FileObjectPath s3FileObjectPath, byte[] bytes, Map<String, String> metadata)
-            throws S3Exception;
+    /**
+     * @param beforeCommit gets the not yet committed object file and its ETag
+     */
+    S3Object putObject(S3FileObjectPath s3FileObjectPath, byte[] bytes, Map<String, String> metadata,
+                       S3BiConsumer<Path, String> beforeCommit) throws S3Exception;
+    S3Object putObject(S3FileObjectPath s3FileObjectPath, StreamedContent content, Map<String, String> metadata,
+                       S3BiConsumer<Path, String> beforeCommit) throws S3Exception;
+    Path createTmpFile(S3FileObjectPath s3FileObjectPath, String uploadId) throws S3Exception;
+    /**
+     * Copies the body to a tmp file of the target bucket, so it can be put by
+     * {@link #putObject(S3FileObjectPath, StreamedContent, Map, S3BiConsumer)}
+     */
+    StreamedContent storeBody(S3FileObjectPath s3FileObjectPath, S3ObjectBody body) throws S3Exception;
     void deleteObject(S3FileObjectPath s3FileObjectPath) throws S3Exception;
     void deleteBucket(S3FileBucketPath s3FileBucketPath) throws S3Exception;
     ListBucketV2ResultRaw getBucketObjectsV2(GetBucketObjectsV2 getBucketObjectsV2) throws S3Exception;
     ListBucketResultRaw getBucketObjects(GetBucketObjects getBucketObjects) throws S3Exception;
     List<Pair<S3FileBucketPath, String>> getBuckets(S3User s3User) throws S3Exception;
+    String getBucketCreationDate(S3FileBucketPath s3FileBucketPath) throws S3Exception;
     void createMultipartUpload(S3FileObjectPath s3FileObjectPath, String uploadId) throws S3Exception;
     void abortMultipartUpload(S3FileObjectPath s3FileObjectPath, String uploadId) throws S3Exception;
     String putUploadPart(S3FileObjectPath s3FileObjectPath, String uploadId, int partNumber, byte[] bytes)
             throws S3Exception;
+    String putUploadPart(S3FileObjectPath s3FileObjectPath, String uploadId, int partNumber, StreamedContent content)
+            throws S3Exception;
     String completeMultipartUpload(S3FileObjectPath s3FileObjectPath, String uploadId, List<Part> parts)
             throws S3Exception;
+
+    /**
+     * @param eTag current ETag of the object
+     * @return null if the object was not completed by a multipart upload
+     */
+    PartLayout getPartLayout(S3FileObjectPath s3FileObjectPath, String eTag) throws S3Exception;
 }
@@ -6,27 +6,42 @@ import com.thorinhood.data.list.request.GetBucketObjectsV2;
 import com.thorinhood.data.S3FileBucketPath;
 import com.thorinhood.data.S3FileObjectPath;
 import com.thorinhood.data.S3User;
+import com.thorinhood.data.StreamedContent;
+import com.thorinhood.data.multipart.ObjectPart;
 import com.thorinhood.data.multipart.Part;
+import com.thorinhood.data.multipart.PartLayout;
 import com.thorinhood.data.requests.S3Headers;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
 import com.thorinhood.data.list.raw.ListBucketV2ResultRaw;
 import com.thorinhood.data.s3object.HasMetaData;
 import com.thorinhood.data.s3object.S3Object;
+import com.thorinhood.data.s3object.S3ObjectBody;
 import com.thorinhood.drivers.FileDriver;
+import com.thorinhood.drivers.S3BiConsumer;
+import com.thorinhood.drivers.index.KeyIndexDriver;
+import com.thorinhood.drivers.index.KeyPage;
+import com.thorinhood.drivers.index.ParallelTreeScanner;
 import com.thorinhood.exceptions.S3Exception;
 import com.thorinhood.processors.selectors.*;
 import com.thorinhood.utils.DateTimeUtil;
 import com.thorinhood.utils.Pair;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.xml.bind.DatatypeConverter;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -42,14 +57,23 @@ public class FileEntityDriver extends FileDriver implements EntityDriver {
     private static final String ENTITY_TOO_SMALL = "Your proposed upload is smaller than the minimum allowed " +
             "object size. Each part must be at least 5 MB in size.";
     private static final long MIN_PART_SIZE = 5242880L;
+    private static final int COPY_BUFFER_SIZE = 65536;
+    private static final String DIGEST_POSTFIX = ".md5";
 
+    private final KeyIndexDriver keyIndexDriver;
+    private final ParallelTreeScanner scanner;
+    private final boolean virtualMultipart;
     private final Selector<String> ifMatch;
     private final Selector<String> ifNoneMatch;
     private final Selector<Date> ifModifiedSince;
     private final Selector<Date> ifUnmodifiedSince;
 
-    public FileEntityDriver(String baseFolderPath, String configFolderPath, String usersFolderPath) {
+    public FileEntityDriver(String baseFolderPath, String configFolderPath, String usersFolderPath,
+                            KeyIndexDriver keyIndexDriver, ParallelTreeScanner scanner, boolean virtualMultipart) {
         super(baseFolderPath, configFolderPath, usersFolderPath);
+        this.keyIndexDriver = keyIndexDriver;
+        this.scanner = scanner;
+        this.virtualMultipart = virtualMultipart;
         ifMatch = new IfMatch();
         ifNoneMatch = new IfNoneMatch();
         ifModifiedSince = new IfModifiedSince();
@@ -63,6 +87,8 @@ public class FileEntityDriver extends FileDriver implements EntityDriver {
         if (bucketFile.exists() || !bucketFile.mkdir()) {
             throw S3Exception.INTERNAL_ERROR("Can't create bucket: " + absolutePath);
         }
+        createFolder(s3FileBucketPath.getPathToBucketMetadataFolder());
+        keyIndexDriver.createIndex(s3FileBucketPath);
     }
 
     @Override
@@ -77,9 +103,7 @@ public class FileEntityDriver extends FileDriver implements EntityDriver {
                     .setMessage("The resource you requested does not exist")
                     .build();
         }
-        byte[] bytes;
         try {
-            bytes = Files.readAllBytes(file.toPath());
             if (httpHeaders != null && eTag != null) {
                 if (isCopyRead) {
                     checkSelectorsCopy(httpHeaders, eTag, file);
@@ -92,13 +116,33 @@ public class FileEntityDriver extends FileDriver implements EntityDriver {
                     .setS3Path(s3FileObjectPath)
                     .setETag(eTag)
                     .setFile(file)
-                    .setRawBytes(bytes)
+                    .setBody(getBody(s3FileObjectPath, eTag, file))
                     .setLastModified(DateTimeUtil.parseDateTime(file));
-        } catch (ParseException | IOException exception) {
+        } catch (ParseException exception) {
             throw S3Exception.INTERNAL_ERROR("Can't create object: " + absolutePath);
         }
     }
 
+    /**
+     * Body of a virtual object spans its part files, the object file only has the size of the object
+     */
+    private S3ObjectBody getBody(S3FileObjectPath s3FileObjectPath, String eTag, File file) throws S3Exception {
+        if (eTag != null && isFolderExists(s3FileObjectPath.getPathToObjectPartsFolder())) {
+            PartLayout layout = getPartLayout(s3FileObjectPath, eTag);
+            if (layout != null && layout.isVirtual()) {
+                List<Path> files = new ArrayList<>(layout.getPartsCount());
+                List<Long> lengths = new ArrayList<>(layout.getPartsCount());
+                for (ObjectPart part : layout.getParts()) {
+                    files.add(Path.of(s3FileObjectPath.getPathToObjectPart(layout.getUploadId(),
+                            part.getPartNumber())));
+                    lengths.add(part.getSize());
+                }
+                return S3ObjectBody.ofFiles(files, lengths);
+            }
+        }
+        return new S3ObjectBody(file.toPath(), 0, file.length());
+    }
+
     @Override
     public HasMetaData headObject(S3FileObjectPath s3FileObjectPath, String eTag, HttpHeaders httpHeaders)
             throws S3Exception {
@@ -120,7 +164,7 @@ public class FileEntityDriver extends FileDriver implements EntityDriver {
                     .setS3Path(s3FileObjectPath)
                     .setETag(eTag)
                     .setFile(file)
-                    .setRawBytes(null)
+                    .setBody(new S3ObjectBody(file.toPath(), 0, file.length()))
                     .setLastModified(DateTimeUtil.parseDateTime(file));
         } catch (ParseException exception) {
             throw S3Exception.INTERNAL_ERROR("Can't create object: " + absolutePath);
@@ -128,172 +172,211 @@ public class FileEntityDriver extends FileDriver implements EntityDriver {
     }
 
     @Override
-    public S3Object putObject(S3FileObjectPath s3FileObjectPath, byte[] bytes, Map<String, String> metadata)
-            throws S3Exception {
+    public S3Object putObject(S3FileObjectPath s3FileObjectPath, byte[] bytes, Map<String, String> metadata,
+                              S3BiConsumer<Path, String> beforeCommit) throws S3Exception {
         String absolutePath = s3FileObjectPath.getPathToObject();
         File file = new File(absolutePath);
-        Path objectMetadataFolder = new File(s3FileObjectPath.getPathToObjectMetadataFolder()).toPath();
-        Path source = createPreparedTmpFile(objectMetadataFolder, file.toPath(), bytes);
-        commitFile(source, file.toPath());
+        Path bucketMetadataFolder = new File(s3FileObjectPath.getPathToBucketMetadataFolder()).toPath();
+        Path source = createPreparedTmpFile(bucketMetadataFolder, file.toPath(), bytes);
+        String eTag = calculateETag(bytes);
+        keyIndexDriver.putKey(s3FileObjectPath, () -> commitFile(source, file.toPath(), eTag, beforeCommit));
+        deletePartLayout(s3FileObjectPath);
         return S3Object.build()
                 .setAbsolutePath(absolutePath)
                 .setS3Path(s3FileObjectPath)
-                .setETag(calculateETag(bytes))
+                .setETag(eTag)
                 .setFile(file)
-                .setRawBytes(bytes)
+                .setBody(new S3ObjectBody(file.toPath(), 0, bytes.length))
                 .setLastModified(DateTimeUtil.parseDateTime(file))
                 .setMetaData(metadata);
     }
 
     @Override
-    public void deleteObject(S3FileObjectPath s3FileObjectPath) throws S3Exception {
-        String pathToObject = s3FileObjectPath.getPathToObject();
-        deleteFile(pathToObject);
-        deleteFolder(s3FileObjectPath.getPathToObjectMetadataFolder());
-        deleteEmptyKeys(new File(pathToObject));
+    public S3Object putObject(S3FileObjectPath s3FileObjectPath, StreamedContent content, Map<String, String> metadata,
+                              S3BiConsumer<Path, String> beforeCommit) throws S3Exception {
+        String absolutePath = s3FileObjectPath.getPathToObject();
+        File file = new File(absolutePath);
+        Path source = getStoredContent(content, absolutePath);
+        keyIndexDriver.putKey(s3FileObjectPath, () -> commitFile(source, file.toPath(), content.getMd5(),
+                beforeCommit));
+        deletePartLayout(s3FileObjectPath);
+        return S3Object.build()
+                .setAbsolutePath(absolutePath)
+                .setS3Path(s3FileObjectPath)
+                .setETag(content.getMd5())
+                .setFile(file)
+                .setBody(new S3ObjectBody(file.toPath(), 0, content.getSize()))
+                .setLastModified(DateTimeUtil.parseDateTime(file))
+                .setMetaData(metadata);
     }
 
     @Override
-    public void deleteBucket(S3FileBucketPath s3FileBucketPath) throws S3Exception {
-        String pathToBucket = s3FileBucketPath.getPathToBucket();
-        String pathToBucketMetadataFolder = s3FileBucketPath.getPathToBucketMetadataFolder();
-        deleteFolder(pathToBucket);
-        deleteFolder(pathToBucketMetadataFolder);
-    }
-
-    private String commonPrefix(String key, String prefix, String delimiter) {
-        if (delimiter == null || delimiter.equals("")) {
-            return null;
-        }
-        int index = key.indexOf(delimiter, prefix.length());
-        if (index == -1) {
-            return null;
+    public Path createTmpFile(S3FileObjectPath s3FileObjectPath, String uploadId) throws S3Exception {
+        checkBucket(s3FileObjectPath);
+        Path object = new File(s3FileObjectPath.getPathToObject()).toPath();
+        if (uploadId != null) {
+            String currentUploadFolder = s3FileObjectPath.getPathToObjectUploadFolder(uploadId);
+            if (!isFolderExists(currentUploadFolder)) {
+                throw S3Exception.NO_SUCH_UPLOAD(uploadId);
+            }
+            return createTmpFile(new File(currentUploadFolder).toPath(), object);
         }
-        return key.substring(0, index + delimiter.length());
+        return createTmpFile(new File(s3FileObjectPath.getPathToBucketMetadataFolder()).toPath(), object);
     }
 
     @Override
-    public ListBucketV2ResultRaw getBucketObjectsV2(GetBucketObjectsV2 getBucketObjectsV2) throws S3Exception {
-        Path path = Path.of(BASE_FOLDER_PATH + File.separatorChar + getBucketObjectsV2.getBucket());
-        List<S3FileObjectPath> objects = new ArrayList<>();
-        Set<String> commonPrefixes = new TreeSet<>();
-        int keyCount = 0;
-        boolean truncated = false;
-        boolean start = false;
-        String nextContinuationToken = null;
-        try (Stream<Path> tree = Files.walk(path)) {
-            List<String> allObjects = getObjectsKeys(tree, path.toString().length() + 1);
-            for (int i = 0; (i < allObjects.size()) && !truncated; i++) {
-                String currentPath = allObjects.get(i);
-                String objectMd5 = DigestUtils.md5Hex(currentPath);
-                if (objects.size() == getBucketObjectsV2.getMaxKeys()) {
-                    truncated = true;
-                    nextContinuationToken = objectMd5;
-                } else {
-                    if (getBucketObjectsV2.getContinuationToken() != null) {
-                        if (objectMd5.equals(getBucketObjectsV2.getContinuationToken())) {
-                            start = true;
-                        }
-                    } else {
-                        start = true;
+    public StreamedContent storeBody(S3FileObjectPath s3FileObjectPath, S3ObjectBody body) throws S3Exception {
+        Path tmpFile = createTmpFile(s3FileObjectPath, null);
+        try (FileChannel target = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+            for (S3ObjectBody.Segment segment : body.getSegments()) {
+                FileChannel source = segment.getChannel();
+                long position = segment.getPosition();
+                long end = segment.getPosition() + segment.getLength();
+                while (position < end) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                    int read = source.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of object : " + segment.getFile());
                     }
-                    if (start) {
-                        if (getBucketObjectsV2.getStartAfter() == null || getBucketObjectsV2.getStartAfter()
-                                .compareTo(currentPath) <= 0) {
-                            if (checkPrefix(getBucketObjectsV2.getPrefix(), currentPath)) {
-                                String commonPrefix = commonPrefix(currentPath, getBucketObjectsV2.getPrefix(),
-                                        getBucketObjectsV2.getDelimiter());
-                                if (commonPrefix != null) {
-                                    commonPrefixes.add(commonPrefix);
-                                } else {
-                                    objects.add(S3FileObjectPath.raw(BASE_FOLDER_PATH, getBucketObjectsV2.getBucket(),
-                                            currentPath));
-                                }
-                                keyCount++;
-                            }
-                        }
+                    position += read;
+                    buffer.flip();
+                    md5.update(buffer);
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
                     }
                 }
             }
+            return new StreamedContent(tmpFile, body.getLength(), Hex.encodeHexString(md5.digest()), null);
+        } catch (IOException | NoSuchAlgorithmException exception) {
+            new StreamedContent(tmpFile, 0, null, null).delete();
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
+    private void commitFile(Path source, Path target, String eTag, S3BiConsumer<Path, String> beforeCommit)
+            throws S3Exception {
+        try {
+            beforeCommit.accept(source, eTag);
+        } catch (S3Exception exception) {
+            source.toFile().delete();
+            throw exception;
         } catch (IOException exception) {
+            source.toFile().delete();
             throw S3Exception.INTERNAL_ERROR(exception);
         }
-        return ListBucketV2ResultRaw.builder()
-                .setIsTruncated(truncated)
-                .setNextContinuationToken(nextContinuationToken)
-                .setS3FileObjectsPaths(objects)
-                .setCommonPrefixes(commonPrefixes)
-                .setKeyCount(keyCount)
-                .build();
+        commitFile(source, target);
     }
 
-    private List<String> getObjectsKeys(Stream<Path> tree, int getKeyFrom) {
-        return tree.filter(current -> !isMetadataFolder(current) &&
-                !isMetadataFile(current) && !Files.isDirectory(current))
-                .map(objectPath -> objectPath.toString().substring(getKeyFrom))
-                .sorted(String::compareTo)
-                .collect(Collectors.toList());
+    private void deletePartLayout(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        if (isFolderExists(s3FileObjectPath.getPathToObjectMetadataFolder())) {
+            deleteFile(s3FileObjectPath.getPathToObjectPartsFile());
+            deleteFolder(s3FileObjectPath.getPathToObjectPartsFolder());
+        }
+    }
+
+    private Path getStoredContent(StreamedContent content, String target) throws S3Exception {
+        if (!content.isStored()) {
+            throw S3Exception.INTERNAL_ERROR("Content was not stored : " + target);
+        }
+        return content.getFile();
     }
 
     @Override
-    public ListBucketResultRaw getBucketObjects(GetBucketObjects getBucketObjects) throws S3Exception {
-        Path path = Path.of(BASE_FOLDER_PATH + File.separatorChar + getBucketObjects.getBucket());
-        List<S3FileObjectPath> objects = new ArrayList<>();
-        Set<String> commonPrefixes = new TreeSet<>();
-        boolean truncated = false;
-        String nextMarker = null;
-        try (Stream<Path> tree = Files.walk(path)) {
-            List<String> allObjects = getObjectsKeys(tree, path.toString().length() + 1);
-            for (int i = 0; (i < allObjects.size()) && !truncated; i++) {
-                String currentPath = allObjects.get(i);
-                if (objects.size() == getBucketObjects.getMaxKeys()) {
-                    truncated = true;
-                } else {
-                    if (getBucketObjects.getMarker() == null || getBucketObjects.getMarker()
-                            .compareTo(currentPath) <= 0) {
-                        if (checkPrefix(getBucketObjects.getPrefix(), currentPath)) {
-                            String commonPrefix = commonPrefix(currentPath, getBucketObjects.getPrefix(),
-                                    getBucketObjects.getDelimiter());
-                            if (commonPrefix != null) {
-                                commonPrefixes.add(commonPrefix);
-                                nextMarker = commonPrefix;
-                            } else {
-                                objects.add(S3FileObjectPath.raw(BASE_FOLDER_PATH, getBucketObjects.getBucket(),
-                                        currentPath));
-                                nextMarker = currentPath;
-                            }
-                        }
-                    }
-                }
-            }
+    public void deleteObject(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        String pathToObject = s3FileObjectPath.getPathToObject();
+        keyIndexDriver.deleteKey(s3FileObjectPath, () -> deleteFile(pathToObject));
+        deleteFile(s3FileObjectPath.getPathToObjectRecordFile());
+        deleteFolder(s3FileObjectPath.getPathToObjectMetadataFolder());
+        deleteEmptyKeys(new File(pathToObject));
+    }
+
+    @Override
+    public void deleteBucket(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        String pathToBucket = s3FileBucketPath.getPathToBucket();
+        String pathToBucketMetadataFolder = s3FileBucketPath.getPathToBucketMetadataFolder();
+        keyIndexDriver.deleteIndex(s3FileBucketPath);
+        try {
+            scanner.deleteTree(Path.of(pathToBucket));
         } catch (IOException exception) {
             throw S3Exception.INTERNAL_ERROR(exception);
         }
+        deleteFolder(pathToBucketMetadataFolder);
+    }
+
+    @Override
+    public ListBucketV2ResultRaw getBucketObjectsV2(GetBucketObjectsV2 getBucketObjectsV2) throws S3Exception {
+        S3FileBucketPath s3FileBucketPath = new S3FileBucketPath(BASE_FOLDER_PATH, getBucketObjectsV2.getBucket());
+        KeyPage page = keyIndexDriver.listKeys(s3FileBucketPath, getBucketObjectsV2.getPrefix(),
+                getBucketObjectsV2.getDelimiter(), getBucketObjectsV2.getStartAfter(),
+                decodeContinuationToken(getBucketObjectsV2.getContinuationToken()), getBucketObjectsV2.getMaxKeys());
+        return ListBucketV2ResultRaw.builder()
+                .setIsTruncated(page.isTruncated())
+                .setNextContinuationToken(encodeContinuationToken(page.getNextKey()))
+                .setS3FileObjectsPaths(toObjectPaths(getBucketObjectsV2.getBucket(), page.getKeys()))
+                .setCommonPrefixes(new LinkedHashSet<>(page.getCommonPrefixes()))
+                .setKeyCount(page.getKeys().size() + page.getCommonPrefixes().size())
+                .build();
+    }
+
+    @Override
+    public ListBucketResultRaw getBucketObjects(GetBucketObjects getBucketObjects) throws S3Exception {
+        S3FileBucketPath s3FileBucketPath = new S3FileBucketPath(BASE_FOLDER_PATH, getBucketObjects.getBucket());
+        KeyPage page = keyIndexDriver.listKeys(s3FileBucketPath, getBucketObjects.getPrefix(),
+                getBucketObjects.getDelimiter(), getBucketObjects.getMarker(), null, getBucketObjects.getMaxKeys());
         return ListBucketResultRaw.builder()
-                .setIsTruncated(truncated)
-                .setS3FileObjectsPaths(objects)
-                .setCommonPrefixes(commonPrefixes)
-                .setNextMarker(nextMarker)
+                .setIsTruncated(page.isTruncated())
+                .setS3FileObjectsPaths(toObjectPaths(getBucketObjects.getBucket(), page.getKeys()))
+                .setCommonPrefixes(new LinkedHashSet<>(page.getCommonPrefixes()))
+                .setNextMarker(page.getLast())
                 .build();
     }
 
+    private List<S3FileObjectPath> toObjectPaths(String bucket, List<String> keys) {
+        return keys.stream()
+                .map(key -> S3FileObjectPath.raw(BASE_FOLDER_PATH, bucket, key))
+                .collect(Collectors.toList());
+    }
+
+    private String encodeContinuationToken(String key) {
+        if (key == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodeContinuationToken(String continuationToken) throws S3Exception {
+        if (continuationToken == null) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException exception) {
+            throw S3Exception.builder("Invalid continuation token : " + continuationToken)
+                    .setStatus(HttpResponseStatus.BAD_REQUEST)
+                    .setCode(S3ResponseErrorCodes.INVALID_ARGUMENT)
+                    .setMessage("The continuation token provided is incorrect")
+                    .build();
+        }
+    }
+
     @Override
     public List<Pair<S3FileBucketPath, String>> getBuckets(S3User s3User) throws S3Exception {
         Path path = Path.of(BASE_FOLDER_PATH);
+        if (!isFolderExists(path)) {
+            return List.of();
+        }
         List<Pair<S3FileBucketPath, String>> buckets;
         try {
             try (Stream<Path> tree = Files.walk(path, 1)) {
                 buckets = tree.filter(entity -> isFolderExists(entity) && !isMetadataFolder(entity) &&
                                                 !isConfigFolder(entity) && isBucket(entity) && !entity.equals(path))
                     .map(entity -> {
-                        File bucket = entity.toFile();
-                        try {
-                            BasicFileAttributes attr = Files.readAttributes(entity, BasicFileAttributes.class);
-                            return Pair.of(new S3FileBucketPath(BASE_FOLDER_PATH, bucket.getName()),
-                                    DateTimeUtil.parseDateTimeISO(attr.creationTime().toMillis()));
-                        } catch (IOException e) {
-                            throw S3Exception.INTERNAL_ERROR("Can't get bucket attributes :" + entity.getFileName());
-                        }
+                        S3FileBucketPath s3FileBucketPath = new S3FileBucketPath(BASE_FOLDER_PATH,
+                                entity.getFileName().toString());
+                        return Pair.of(s3FileBucketPath, getBucketCreationDate(s3FileBucketPath));
                     }).collect(Collectors.toList());
             }
         } catch (IOException exception) {
@@ -302,6 +385,17 @@ public class FileEntityDriver extends FileDriver implements EntityDriver {
         return buckets;
     }
 
+    @Override
+    public String getBucketCreationDate(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        try {
+            BasicFileAttributes attr = Files.readAttributes(Path.of(s3FileBucketPath.getPathToBucket()),
+                    BasicFileAttributes.class);
+            return DateTimeUtil.parseDateTimeISO(attr.creationTime().toMillis());
+        } catch (IOException e) {
+            throw S3Exception.INTERNAL_ERROR("Can't get bucket attributes :" + s3FileBucketPath.getBucket());
+        }
+    }
+
     @Override
     public void createMultipartUpload(S3FileObjectPath s3FileObjectPath, String uploadId) throws S3Exception {
         String multipartFolder = s3FileObjectPath.getPathToObjectMultipartFolder();
@@ -335,12 +429,33 @@ public class FileEntityDriver extends FileDriver implements EntityDriver {
         Path partPath = new File(partPathStr).toPath();
         Path source = createPreparedTmpFile(new File(currentUploadFolder).toPath(), partPath, bytes);
         commitFile(source, partPath);
-        return calculateETag(bytes);
+        String eTag = calculateETag(bytes);
+        writePartDigest(partPath, eTag);
+        return eTag;
+    }
+
+    @Override
+    public String putUploadPart(S3FileObjectPath s3FileObjectPath, String uploadId, int partNumber,
+                                StreamedContent content) throws S3Exception {
+        String currentUploadFolder = s3FileObjectPath.getPathToObjectUploadFolder(uploadId);
+        if (!isFolderExists(currentUploadFolder)) {
+            throw S3Exception.NO_SUCH_UPLOAD(uploadId);
+        }
+        String partPathStr = s3FileObjectPath.getPathToObjectUploadPart(uploadId, partNumber);
+        Path partPath = new File(partPathStr).toPath();
+        commitFile(getStoredContent(content, partPathStr), partPath);
+        writePartDigest(partPath, content.getMd5());
+        return content.getMd5();
     }
 
     @Override
     public String completeMultipartUpload(S3FileObjectPath s3FileObjectPath, String uploadId, List<Part> parts)
             throws S3Exception {
+        return keyIndexDriver.putKey(s3FileObjectPath, () -> completeParts(s3FileObjectPath, uploadId, parts));
+    }
+
+    private String completeParts(S3FileObjectPath s3FileObjectPath, String uploadId, List<Part> parts)
+            throws S3Exception {
         String currentUploadFolder = s3FileObjectPath.getPathToObjectUploadFolder(uploadId);
         if (!isFolderExists(currentUploadFolder)) {
             throw S3Exception.NO_SUCH_UPLOAD(uploadId);
@@ -358,50 +473,183 @@ public class FileEntityDriver extends FileDriver implements EntityDriver {
                 throw S3Exception.INVALID_PART_EXCEPTION();
             }
 
-            File file = new File(s3FileObjectPath.getPathToObject());
-            if (!file.exists() || (file.exists() && file.isDirectory())) {
-                if (!file.createNewFile()) {
-                    throw new IOException("Can't create file");
+            List<ObjectPart> layout = new ArrayList<>(parts.size());
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            long offset = 0;
+            for (Part part : parts) {
+                Path partFile = partsFiles.get(part.getPartNumber()).toPath();
+                long partSizeInBytes = Files.size(partFile);
+                if (partSizeInBytes < MIN_PART_SIZE) {
+                    throw S3Exception.builder(ENTITY_TOO_SMALL)
+                            .setStatus(HttpResponseStatus.BAD_REQUEST)
+                            .setCode(S3ResponseErrorCodes.ENTITY_TOO_SMALL)
+                            .setMessage(ENTITY_TOO_SMALL)
+                            .build();
+                }
+                String partETag = readPartDigest(partFile, partSizeInBytes);
+                if (!part.getETag().replaceAll("\"", "").equals(partETag)) {
+                    throw S3Exception.INVALID_PART_EXCEPTION();
                 }
+                md.update(Hex.decodeHex(partETag));
+                layout.add(new ObjectPart(part.getPartNumber(), offset, partSizeInBytes, partETag));
+                offset += partSizeInBytes;
             }
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file, true))) {
-                for (Part part : parts) {
-                    File partFile = partsFiles.get(part.getPartNumber());
-                    long partSizeInBytes = Files.size(partFile.toPath());
-                    if (partSizeInBytes < MIN_PART_SIZE) {
-                        if (file.exists()) {
-                            file.delete();
-                        }
-                        throw S3Exception.builder(ENTITY_TOO_SMALL)
-                                .setStatus(HttpResponseStatus.BAD_REQUEST)
-                                .setCode(S3ResponseErrorCodes.ENTITY_TOO_SMALL)
-                                .setMessage(ENTITY_TOO_SMALL)
-                                .build();
-                    }
-                    try (InputStream input = new BufferedInputStream(new FileInputStream(partFile))) {
-                        byte[] buffer = input.readAllBytes();
-                        String calculatedEtag = DigestUtils.md5Hex(buffer);
-                        if (!part.getETag().replaceAll("\"", "").equals(calculatedEtag)) {
-                            throw S3Exception.INVALID_PART_EXCEPTION();
+            String eTag = Hex.encodeHexString(md.digest()) + "-" + parts.size();
+            if (virtualMultipart) {
+                publishParts(s3FileObjectPath, new PartLayout(eTag, uploadId, layout), offset);
+            } else {
+                Path target = Path.of(s3FileObjectPath.getPathToObject());
+                Path tmpFile = createTmpFile(currentUploadFolderPath, target);
+                try {
+                    concatParts(tmpFile, layout, partsFiles, offset);
+                } catch (IOException exception) {
+                    Files.deleteIfExists(tmpFile);
+                    throw exception;
+                }
+                commitFile(tmpFile, target);
+                writePartLayout(s3FileObjectPath, new PartLayout(eTag, layout));
+                deleteFolder(currentUploadFolder);
+                deleteFolder(s3FileObjectPath.getPathToObjectPartsFolder());
+            }
+            deleteEmptyKeys(new File(currentUploadFolder));
+            return eTag;
+        } catch (IOException | NoSuchAlgorithmException | DecoderException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
+    /**
+     * Copies the parts into a file of their total size, the data is moved by the kernel and not read into the heap
+     */
+    private void concatParts(Path target, List<ObjectPart> layout, Map<Integer, File> partsFiles, long size)
+            throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            file.setLength(size);
+            FileChannel targetChannel = file.getChannel();
+            for (ObjectPart part : layout) {
+                try (FileChannel partChannel = FileChannel.open(partsFiles.get(part.getPartNumber()).toPath(),
+                        StandardOpenOption.READ)) {
+                    long position = 0;
+                    while (position < part.getSize()) {
+                        long transferred = partChannel.transferTo(position, part.getSize() - position,
+                                targetChannel.position(part.getOffset() + position));
+                        if (transferred <= 0) {
+                            throw new IOException("Part is truncated : " + part.getPartNumber());
                         }
-                        outputStream.write(buffer);
-                        md.update(buffer);
+                        position += transferred;
                     }
                 }
             }
-            deleteFolder(currentUploadFolder);
-            return DatatypeConverter.printHexBinary(md.digest()).toLowerCase();
-        } catch (IOException | NoSuchAlgorithmException exception) {
+            targetChannel.force(false);
+        }
+    }
+
+    /**
+     * Moves the upload folder to the parts of the object and publishes the layout referencing it instead of copying the
+     * parts. The object file is a sparse file of the object size, so listings and selectors see the object as usual
+     */
+    private void publishParts(S3FileObjectPath s3FileObjectPath, PartLayout layout, long size) throws IOException,
+            S3Exception {
+        Path partsFolder = Path.of(s3FileObjectPath.getPathToObjectPartsFolder());
+        Files.createDirectories(partsFolder);
+        Files.move(Path.of(s3FileObjectPath.getPathToObjectUploadFolder(layout.getUploadId())),
+                partsFolder.resolve(layout.getUploadId()), StandardCopyOption.ATOMIC_MOVE);
+        writePartLayout(s3FileObjectPath, layout);
+        Path target = Path.of(s3FileObjectPath.getPathToObject());
+        Path tmpFile = createTmpFile(partsFolder, target);
+        try (RandomAccessFile file = new RandomAccessFile(tmpFile.toFile(), "rw")) {
+            file.setLength(size);
+        } catch (IOException exception) {
+            Files.deleteIfExists(tmpFile);
+            throw exception;
+        }
+        commitFile(tmpFile, target);
+        try (Stream<Path> uploads = Files.list(partsFolder)) {
+            for (Path upload : uploads.collect(Collectors.toList())) {
+                if (!upload.getFileName().toString().equals(layout.getUploadId())) {
+                    deleteFolder(upload.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * The digest is written by UploadPart next to the part, a part without a valid digest is hashed
+     */
+    private String readPartDigest(Path partFile, long size) throws IOException {
+        Path digestFile = Path.of(partFile + DIGEST_POSTFIX);
+        try {
+            String[] fields = Files.readString(digestFile, StandardCharsets.US_ASCII).trim().split(" ");
+            if (fields.length == 2 && Long.parseLong(fields[1]) == size) {
+                return fields[0];
+            }
+        } catch (NoSuchFileException | NumberFormatException exception) {
+            // hashed below
+        }
+        log.warn("Digest of part {} is missing, hashing the part", partFile);
+        try (InputStream input = Files.newInputStream(partFile)) {
+            return DigestUtils.md5Hex(input);
+        }
+    }
+
+    private void writePartDigest(Path partFile, String md5) throws S3Exception {
+        Path digestFile = Path.of(partFile + DIGEST_POSTFIX);
+        try {
+            Path tmpFile = createTmpFile(partFile.getParent(), digestFile);
+            Files.writeString(tmpFile, md5 + " " + Files.size(partFile), StandardCharsets.US_ASCII);
+            commitFile(tmpFile, digestFile);
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
+    @Override
+    public PartLayout getPartLayout(S3FileObjectPath s3FileObjectPath, String eTag) throws S3Exception {
+        Path partsFile = Path.of(s3FileObjectPath.getPathToObjectPartsFile());
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(partsFile, StandardCharsets.US_ASCII);
+        } catch (NoSuchFileException exception) {
+            return null;
+        } catch (IOException exception) {
             throw S3Exception.INTERNAL_ERROR(exception);
         }
+        String[] header = lines.isEmpty() ? new String[0] : lines.get(0).split(" ");
+        if (header.length == 0 || !header[0].equals(eTag)) {
+            return null;
+        }
+        List<ObjectPart> parts = new ArrayList<>(lines.size() - 1);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(" ");
+            if (fields.length != 4) {
+                throw S3Exception.INTERNAL_ERROR("Part layout is corrupt : " + partsFile);
+            }
+            parts.add(new ObjectPart(Integer.parseInt(fields[0]), Long.parseLong(fields[1]),
+                    Long.parseLong(fields[2]), fields[3]));
+        }
+        return new PartLayout(eTag, header.length > 1 ? header[1] : null, parts);
     }
 
-    private boolean checkPrefix(String prefix, String path) {
-        if (prefix == null) {
-            return true;
+    /**
+     * One line with the ETag of the object, followed by the upload of a virtual object, and a line
+     * "number offset size ETag" per part
+     */
+    private void writePartLayout(S3FileObjectPath s3FileObjectPath, PartLayout layout) throws IOException {
+        StringBuilder content = new StringBuilder(layout.getETag());
+        if (layout.isVirtual()) {
+            content.append(' ').append(layout.getUploadId());
+        }
+        content.append('\n');
+        for (ObjectPart part : layout.getParts()) {
+            content.append(part.getPartNumber()).append(' ')
+                    .append(part.getOffset()).append(' ')
+                    .append(part.getSize()).append(' ')
+                    .append(part.getETag()).append('\n');
         }
-        return path.startsWith(prefix);
+        Path partsFile = Path.of(s3FileObjectPath.getPathToObjectPartsFile());
+        Path tmpFile = createTmpFile(partsFile.getParent(), partsFile);
+        Files.writeString(tmpFile, content, StandardCharsets.US_ASCII);
+        commitFile(tmpFile, partsFile);
     }
 
     private String calculateETag(byte[] bytes) {
@@ -0,0 +1,385 @@
+package com.thorinhood.drivers.index;
+
+import com.thorinhood.drivers.S3Supplier;
+import com.thorinhood.exceptions.S3Exception;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Sorted keys of one bucket: a {@link SortedKeyFile} with the keys of the last compaction, the keys changed after it
+ * in memory and a journal of the changed keys. The journal is written before the change, so after a crash every key of
+ * the journal is checked against the bucket.
+ * Compaction runs on the compactor: the changed keys are frozen and merged with the key file into a new one while the
+ * bucket keeps changing, the write lock is taken only to freeze the changes and to swap the files.
+ */
+class BucketKeyIndex implements Closeable {
+
+    private static final Logger log = LogManager.getLogger(BucketKeyIndex.class);
+
+    private final Path indexFile;
+    private final Path journalFile;
+    private final Predicate<String> exists;
+    private final int compactionThreshold;
+    private final Executor compactor;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object journalLock = new Object();
+    private final AtomicInteger changes = new AtomicInteger();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    // false for deleted keys
+    private ConcurrentSkipListMap<String, Boolean> changedKeys = new ConcurrentSkipListMap<>();
+    // changed keys being merged into the key file by the compactor
+    private NavigableMap<String, Boolean> compactingKeys = Collections.emptyNavigableMap();
+    private FileChannel journal;
+    private SortedKeyFile sortedKeys;
+    private boolean closed;
+
+    private BucketKeyIndex(Path indexFile, Path journalFile, Predicate<String> exists, int compactionThreshold,
+                           Executor compactor, SortedKeyFile sortedKeys, FileChannel journal) {
+        this.indexFile = indexFile;
+        this.journalFile = journalFile;
+        this.exists = exists;
+        this.compactionThreshold = compactionThreshold;
+        this.compactor = compactor;
+        this.sortedKeys = sortedKeys;
+        this.journal = journal;
+    }
+
+    static BucketKeyIndex create(Path indexFile, Path journalFile, Predicate<String> exists, int compactionThreshold,
+                                 Executor compactor, Iterator<String> keys) throws IOException {
+        writeSortedKeys(indexFile, keys);
+        FileChannel journal = openJournal(journalFile);
+        journal.truncate(0);
+        return new BucketKeyIndex(indexFile, journalFile, exists, compactionThreshold, compactor,
+                SortedKeyFile.open(indexFile), journal);
+    }
+
+    static BucketKeyIndex open(Path indexFile, Path journalFile, Predicate<String> exists, int compactionThreshold,
+                               Executor compactor) throws IOException {
+        SortedKeyFile sortedKeys = SortedKeyFile.open(indexFile);
+        BucketKeyIndex index = new BucketKeyIndex(indexFile, journalFile, exists, compactionThreshold, compactor,
+                sortedKeys, openJournal(journalFile));
+        index.replayJournal();
+        return index;
+    }
+
+    <T> T change(String key, boolean present, S3Supplier<T> write) throws S3Exception {
+        T result;
+        lock.readLock().lock();
+        try {
+            appendJournal(key);
+            result = write.get();
+            changedKeys.put(key, present);
+        } catch (IOException exception) {
+            changedKeys.put(key, exists.test(key));
+            throw S3Exception.INTERNAL_ERROR(exception);
+        } catch (S3Exception exception) {
+            changedKeys.put(key, exists.test(key));
+            throw exception;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (changes.incrementAndGet() >= compactionThreshold && compacting.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    try {
+                        compact();
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException exception) {
+                compacting.set(false);
+                log.error("Compactor rejected key index {}", indexFile);
+            }
+        }
+        return result;
+    }
+
+    KeyPage list(String prefix, String delimiter, String startAfter, String from, int maxKeys) throws S3Exception {
+        lock.readLock().lock();
+        try {
+            return KeyPager.list(new IndexKeyIterator(), prefix, delimiter, startAfter, from, maxKeys);
+        } catch (UncheckedIOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception.getCause());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            journal.close();
+            sortedKeys.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compact() {
+        NavigableMap<String, Boolean> frozenKeys = freezeChanges();
+        if (frozenKeys == null) {
+            return;
+        }
+        Path tmpFile = null;
+        try {
+            lock.readLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                tmpFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), null);
+                SortedKeyFile.write(tmpFile, new MergingIterator(frozenKeys.entrySet().iterator(),
+                        sortedKeys.iterator("")));
+            } finally {
+                lock.readLock().unlock();
+            }
+            swap(tmpFile);
+        } catch (IOException | UncheckedIOException exception) {
+            log.error("Can't compact key index " + indexFile, exception);
+            thaw(frozenKeys);
+        } finally {
+            deleteTmpFile(tmpFile);
+        }
+    }
+
+    /**
+     * Changes made from now on go to a new map, the frozen ones are still listed and kept in the journal until the new
+     * key file replaces the old one
+     */
+    private NavigableMap<String, Boolean> freezeChanges() {
+        lock.writeLock().lock();
+        try {
+            if (closed || changes.get() < compactionThreshold) {
+                return null;
+            }
+            compactingKeys = changedKeys;
+            changedKeys = new ConcurrentSkipListMap<>();
+            changes.set(0);
+            return compactingKeys;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The journal is rewritten with the keys changed during the compaction before it replaces the old one, so a crash
+     * at any moment leaves every changed key in the journal
+     */
+    private void swap(Path tmpFile) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            SortedKeyFile previous = sortedKeys;
+            sortedKeys = SortedKeyFile.open(indexFile);
+            previous.close();
+            compactingKeys = Collections.emptyNavigableMap();
+            Path tmpJournal = Files.createTempFile(journalFile.getParent(), journalFile.getFileName().toString(),
+                    null);
+            try {
+                try (FileChannel channel = FileChannel.open(tmpJournal, StandardOpenOption.WRITE)) {
+                    for (String key : changedKeys.keySet()) {
+                        writeJournal(channel, key);
+                    }
+                }
+                Files.move(tmpJournal, journalFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                deleteTmpFile(tmpJournal);
+            }
+            FileChannel previousJournal = journal;
+            journal = openJournal(journalFile);
+            previousJournal.close();
+            log.debug("Key index {} is compacted, {} keys", indexFile, sortedKeys.getCount());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The compaction failed, the frozen changes go back to the changed keys unless the keys were changed again
+     */
+    private void thaw(NavigableMap<String, Boolean> frozenKeys) {
+        lock.writeLock().lock();
+        try {
+            if (compactingKeys != frozenKeys) {
+                return;
+            }
+            for (Map.Entry<String, Boolean> entry : frozenKeys.entrySet()) {
+                changedKeys.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            compactingKeys = Collections.emptyNavigableMap();
+            changes.addAndGet(frozenKeys.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Iterator<String> iterator(String from) throws IOException {
+        return new MergingIterator(changedKeys.tailMap(from, true).entrySet().iterator(),
+                new MergingIterator(compactingKeys.tailMap(from, true).entrySet().iterator(),
+                        sortedKeys.iterator(from)));
+    }
+
+    private void appendJournal(String key) throws IOException {
+        synchronized (journalLock) {
+            writeJournal(journal, key);
+        }
+    }
+
+    private static void writeJournal(FileChannel channel, String key) throws IOException {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length)
+                .putInt(bytes.length)
+                .put(bytes)
+                .flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void replayJournal() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journalFile));
+        Set<String> keys = new HashSet<>();
+        while (buffer.remaining() >= Integer.BYTES) {
+            int length = buffer.getInt();
+            // the last record is torn if the server stopped while writing it
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            keys.add(new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8));
+            buffer.position(buffer.position() + length);
+        }
+        for (String key : keys) {
+            changedKeys.put(key, exists.test(key));
+        }
+        changes.set(keys.size());
+    }
+
+    private static void writeSortedKeys(Path indexFile, Iterator<String> keys) throws IOException {
+        Path tmpFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), null);
+        try {
+            SortedKeyFile.write(tmpFile, keys);
+            Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private static void deleteTmpFile(Path tmpFile) {
+        if (tmpFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tmpFile);
+        } catch (IOException exception) {
+            log.error("Can't delete tmp file " + tmpFile, exception);
+        }
+    }
+
+    private static FileChannel openJournal(Path journalFile) throws IOException {
+        return FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private class IndexKeyIterator implements KeyIterator {
+
+        private Iterator<String> iterator = Collections.emptyIterator();
+
+        @Override
+        public void seek(String from) {
+            try {
+                iterator = iterator(from);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public String next() {
+            return iterator.next();
+        }
+    }
+
+    private static class MergingIterator implements Iterator<String> {
+
+        private final Iterator<Map.Entry<String, Boolean>> changed;
+        private final Iterator<String> sorted;
+        private Map.Entry<String, Boolean> changedHead;
+        private String sortedHead;
+        private String next;
+
+        private MergingIterator(Iterator<Map.Entry<String, Boolean>> changed, Iterator<String> sorted) {
+            this.changed = changed;
+            this.sorted = sorted;
+            changedHead = changed.hasNext() ? changed.next() : null;
+            sortedHead = sorted.hasNext() ? sorted.next() : null;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && (changedHead != null || sortedHead != null)) {
+                int compare = changedHead == null ? 1 : sortedHead == null ? -1 :
+                        changedHead.getKey().compareTo(sortedHead);
+                if (compare <= 0) {
+                    if (changedHead.getValue()) {
+                        next = changedHead.getKey();
+                    }
+                    changedHead = changed.hasNext() ? changed.next() : null;
+                    if (compare == 0) {
+                        sortedHead = sorted.hasNext() ? sorted.next() : null;
+                    }
+                } else {
+                    next = sortedHead;
+                    sortedHead = sorted.hasNext() ? sorted.next() : null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.thorinhood.drivers.index;
+
+import com.thorinhood.data.S3FileStatic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily walks the folder of a bucket in the order of keys. Only the folders on the path to the current key are read,
+ * entries of a folder are sorted as keys: a folder "a" goes as "a/", so "a.txt" goes before "a/b". A seek reads only the
+ * folders on the path to the sought key, so a skipped common prefix is never descended.
+ */
+class BucketTreeWalker implements KeyIterator {
+
+    private final Path bucket;
+    private final Deque<Folder> folders = new ArrayDeque<>();
+    private boolean started;
+    private String next;
+
+    BucketTreeWalker(Path bucket) {
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void seek(String from) {
+        next = null;
+        start();
+        if (folders.isEmpty()) {
+            return;
+        }
+        while (folders.size() > 1 && !from.startsWith(folders.peek().prefix)) {
+            folders.pop();
+        }
+        while (true) {
+            Folder folder = folders.peek();
+            String rest = from.substring(folder.prefix.length());
+            int position = Math.max(folder.position, lowerBound(folder.names, rest));
+            if (position > folder.position && isFolder(folder.names[position - 1]) &&
+                    rest.startsWith(folder.names[position - 1])) {
+                String name = folder.names[position - 1];
+                folder.position = position;
+                folders.push(readFolder(folder.path.resolve(name.substring(0, name.length() - 1)),
+                        folder.prefix + name));
+                continue;
+            }
+            folder.position = position;
+            return;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String current = next;
+        next = null;
+        return current;
+    }
+
+    private void start() {
+        if (!started) {
+            folders.push(readFolder(bucket, ""));
+            started = true;
+        }
+    }
+
+    private String advance() {
+        start();
+        while (!folders.isEmpty()) {
+            Folder folder = folders.peek();
+            if (folder.position >= folder.names.length) {
+                folders.pop();
+                continue;
+            }
+            String name = folder.names[folder.position++];
+            if (!isFolder(name)) {
+                return folder.prefix + name;
+            }
+            folders.push(readFolder(folder.path.resolve(name.substring(0, name.length() - 1)), folder.prefix + name));
+        }
+        return null;
+    }
+
+    private static Folder readFolder(Path path, String prefix) {
+        return new Folder(path, prefix, readNames(path));
+    }
+
+    /**
+     * @return sorted names of the entries of the folder, names of folders end with "/"
+     */
+    static String[] readNames(Path path) {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException exception) {
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    if (!name.startsWith(S3FileStatic.METADATA_FOLDER_PREFIX)) {
+                        names.add(name + "/");
+                    }
+                } else if (attributes.isRegularFile() && !name.startsWith(S3FileStatic.METADATA_RECORD_PREFIX)) {
+                    names.add(name);
+                }
+            }
+        } catch (NoSuchFileException exception) {
+            // the folder is deleted while walking
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        String[] sorted = names.toArray(new String[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int lowerBound(String[] names, String key) {
+        int index = Arrays.binarySearch(names, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    static boolean isFolder(String name) {
+        return name.endsWith("/");
+    }
+
+    private static class Folder {
+
+        private final Path path;
+        // key prefix of the entries, empty for the bucket
+        private final String prefix;
+        private final String[] names;
+        private int position;
+
+        private Folder(Path path, String prefix, String[] names) {
+            this.path = path;
+            this.prefix = prefix;
+            this.names = names;
+        }
+    }
+}
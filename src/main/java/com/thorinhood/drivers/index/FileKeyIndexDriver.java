@@ -0,0 +1,173 @@
+package com.thorinhood.drivers.index;
+
+import com.thorinhood.data.S3FileBucketPath;
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.drivers.FileDriver;
+import com.thorinhood.drivers.S3Runnable;
+import com.thorinhood.drivers.S3Supplier;
+import com.thorinhood.exceptions.S3Exception;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a {@link BucketKeyIndex} per bucket in the metadata folder of the bucket. The index of a bucket without one is
+ * built from its folder by {@link BucketTreeWalker} or {@link ParallelTreeScanner} on first use. The indexes are
+ * compacted one at a time by a single background thread.
+ */
+public class FileKeyIndexDriver extends FileDriver implements KeyIndexDriver {
+
+    private static final Logger log = LogManager.getLogger(FileKeyIndexDriver.class);
+
+    private static final int COMPACTION_THRESHOLD = 65536;
+
+    private final Map<String, BucketKeyIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<String, Object> bucketLocks = new ConcurrentHashMap<>();
+    private final ParallelTreeScanner scanner;
+    private final ExecutorService compactor;
+
+    public FileKeyIndexDriver(String baseFolderPath, String configFolderPath, String usersFolderPath,
+                              ParallelTreeScanner scanner) {
+        super(baseFolderPath, configFolderPath, usersFolderPath);
+        this.scanner = scanner;
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "key-index-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void createIndex(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        synchronized (getBucketLock(s3FileBucketPath)) {
+            close(indexes.remove(s3FileBucketPath.getBucket()));
+            indexes.put(s3FileBucketPath.getBucket(), createIndex(s3FileBucketPath, Collections.emptyIterator()));
+        }
+    }
+
+    @Override
+    public void deleteIndex(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        synchronized (getBucketLock(s3FileBucketPath)) {
+            close(indexes.remove(s3FileBucketPath.getBucket()));
+        }
+    }
+
+    @Override
+    public void putKey(S3FileObjectPath s3FileObjectPath, S3Runnable write) throws S3Exception {
+        putKey(s3FileObjectPath, () -> {
+            write.run();
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T putKey(S3FileObjectPath s3FileObjectPath, S3Supplier<T> write) throws S3Exception {
+        return getIndex(s3FileObjectPath).change(s3FileObjectPath.getKey(), true, write);
+    }
+
+    @Override
+    public void deleteKey(S3FileObjectPath s3FileObjectPath, S3Runnable delete) throws S3Exception {
+        getIndex(s3FileObjectPath).change(s3FileObjectPath.getKey(), false, () -> {
+            delete.run();
+            return null;
+        });
+    }
+
+    @Override
+    public KeyPage listKeys(S3FileBucketPath s3FileBucketPath, String prefix, String delimiter, String startAfter,
+                            String from, int maxKeys) throws S3Exception {
+        return getIndex(s3FileBucketPath).list(prefix, delimiter, startAfter, from, maxKeys);
+    }
+
+    /**
+     * Building an index can take minutes, it is built under the lock of its bucket only and published when it is done
+     */
+    private BucketKeyIndex getIndex(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        BucketKeyIndex index = indexes.get(s3FileBucketPath.getBucket());
+        if (index != null) {
+            return index;
+        }
+        synchronized (getBucketLock(s3FileBucketPath)) {
+            index = indexes.get(s3FileBucketPath.getBucket());
+            if (index == null) {
+                index = openIndex(s3FileBucketPath);
+                indexes.put(s3FileBucketPath.getBucket(), index);
+            }
+            return index;
+        }
+    }
+
+    private Object getBucketLock(S3FileBucketPath s3FileBucketPath) {
+        return bucketLocks.computeIfAbsent(s3FileBucketPath.getBucket(), bucket -> new Object());
+    }
+
+    private BucketKeyIndex openIndex(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        Path indexFile = Path.of(s3FileBucketPath.getPathToBucketKeyIndexFile());
+        if (isFileExists(indexFile)) {
+            try {
+                return BucketKeyIndex.open(indexFile, Path.of(s3FileBucketPath.getPathToBucketKeyJournalFile()),
+                        keyExists(s3FileBucketPath), COMPACTION_THRESHOLD, compactor);
+            } catch (IOException | RuntimeException exception) {
+                log.error("Key index of bucket " + s3FileBucketPath.getBucket() + " is corrupt, rebuilding",
+                        exception);
+            }
+        }
+        BucketKeyIndex index = createIndex(s3FileBucketPath, scanKeys(Path.of(s3FileBucketPath.getPathToBucket())));
+        log.info("Key index of bucket {} is built", s3FileBucketPath.getBucket());
+        return index;
+    }
+
+    private BucketKeyIndex createIndex(S3FileBucketPath s3FileBucketPath, Iterator<String> keys) throws S3Exception {
+        try {
+            return BucketKeyIndex.create(Path.of(s3FileBucketPath.getPathToBucketKeyIndexFile()),
+                    Path.of(s3FileBucketPath.getPathToBucketKeyJournalFile()), keyExists(s3FileBucketPath),
+                    COMPACTION_THRESHOLD, compactor, keys);
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        } catch (UncheckedIOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception.getCause());
+        }
+    }
+
+    /**
+     * With one scanner thread the bucket is walked lazily and the keys are not held in memory. With more threads
+     * {@link ParallelTreeScanner} reads the folders in parallel and returns every key of the bucket in one list, so the
+     * build needs heap for all the keys of the bucket at once, which grows with the size of the bucket
+     */
+    private Iterator<String> scanKeys(Path bucket) throws S3Exception {
+        if (scanner.getParallelism() == 1) {
+            return new BucketTreeWalker(bucket);
+        }
+        try {
+            return scanner.scanKeys(bucket).iterator();
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
+    private Predicate<String> keyExists(S3FileBucketPath s3FileBucketPath) {
+        return key -> isFileExists(S3FileObjectPath.raw(BASE_FOLDER_PATH, s3FileBucketPath.getBucket(), key)
+                .getPathToObject());
+    }
+
+    private void close(BucketKeyIndex index) {
+        if (index == null) {
+            return;
+        }
+        try {
+            index.close();
+        } catch (IOException exception) {
+            log.error("Can't close key index", exception);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.thorinhood.drivers.index;
+
+import com.thorinhood.data.S3FileBucketPath;
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.drivers.S3Runnable;
+import com.thorinhood.drivers.S3Supplier;
+import com.thorinhood.exceptions.S3Exception;
+
+public interface KeyIndexDriver {
+    void createIndex(S3FileBucketPath s3FileBucketPath) throws S3Exception;
+    void deleteIndex(S3FileBucketPath s3FileBucketPath) throws S3Exception;
+
+    /**
+     * Adds the key of the object to the index of its bucket once the write is done
+     */
+    void putKey(S3FileObjectPath s3FileObjectPath, S3Runnable write) throws S3Exception;
+    <T> T putKey(S3FileObjectPath s3FileObjectPath, S3Supplier<T> write) throws S3Exception;
+    void deleteKey(S3FileObjectPath s3FileObjectPath, S3Runnable delete) throws S3Exception;
+
+    /**
+     * @param startAfter keys and common prefixes up to it are skipped
+     * @param from the page starts from it, {@link KeyPage#getNextKey()} of the previous page
+     */
+    KeyPage listKeys(S3FileBucketPath s3FileBucketPath, String prefix, String delimiter, String startAfter,
+                     String from, int maxKeys) throws S3Exception;
+}
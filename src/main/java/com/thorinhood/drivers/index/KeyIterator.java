@@ -0,0 +1,13 @@
+package com.thorinhood.drivers.index;
+
+import java.util.Iterator;
+
+/**
+ * Iterator over sorted keys which can skip forward
+ */
+interface KeyIterator extends Iterator<String> {
+    /**
+     * Skips to the first key which is not less than from. From must not be less than the last returned key
+     */
+    void seek(String from);
+}
@@ -0,0 +1,81 @@
+package com.thorinhood.drivers.index;
+
+import java.util.List;
+
+public class KeyPage {
+
+    private List<String> keys;
+    private List<String> commonPrefixes;
+    private boolean truncated;
+    private String nextKey;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private KeyPage() {
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public List<String> getCommonPrefixes() {
+        return commonPrefixes;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * First key of the next page, null if the page is not truncated
+     */
+    public String getNextKey() {
+        return nextKey;
+    }
+
+    /**
+     * Last key or common prefix of the page
+     */
+    public String getLast() {
+        String lastKey = keys.isEmpty() ? null : keys.get(keys.size() - 1);
+        String lastPrefix = commonPrefixes.isEmpty() ? null : commonPrefixes.get(commonPrefixes.size() - 1);
+        if (lastKey == null || lastPrefix == null) {
+            return lastKey != null ? lastKey : lastPrefix;
+        }
+        return lastKey.compareTo(lastPrefix) > 0 ? lastKey : lastPrefix;
+    }
+
+    public static class Builder {
+        private final KeyPage keyPage;
+
+        public Builder() {
+            keyPage = new KeyPage();
+        }
+
+        public Builder setKeys(List<String> keys) {
+            keyPage.keys = keys;
+            return this;
+        }
+
+        public Builder setCommonPrefixes(List<String> commonPrefixes) {
+            keyPage.commonPrefixes = commonPrefixes;
+            return this;
+        }
+
+        public Builder setTruncated(boolean truncated) {
+            keyPage.truncated = truncated;
+            return this;
+        }
+
+        public Builder setNextKey(String nextKey) {
+            keyPage.nextKey = nextKey;
+            return this;
+        }
+
+        public KeyPage build() {
+            return keyPage;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.thorinhood.drivers.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists a page of keys and common prefixes, a common prefix is skipped with one seek
+ */
+final class KeyPager {
+
+    private KeyPager() {
+    }
+
+    static KeyPage list(KeyIterator iterator, String prefix, String delimiter, String startAfter, String from,
+                        int maxKeys) {
+        prefix = prefix != null ? prefix : "";
+        List<String> keys = new ArrayList<>();
+        List<String> commonPrefixes = new ArrayList<>();
+        String nextKey = null;
+        iterator.seek(max(prefix, max(startAfter, from)));
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            if (startAfter != null && key.compareTo(startAfter) <= 0) {
+                continue;
+            }
+            String commonPrefix = commonPrefix(key, prefix, delimiter);
+            if (commonPrefix != null && startAfter != null && commonPrefix.compareTo(startAfter) <= 0) {
+                if (!seekAfter(iterator, commonPrefix)) {
+                    break;
+                }
+                continue;
+            }
+            if (keys.size() + commonPrefixes.size() >= maxKeys) {
+                nextKey = key;
+                break;
+            }
+            if (commonPrefix != null) {
+                commonPrefixes.add(commonPrefix);
+                if (!seekAfter(iterator, commonPrefix)) {
+                    break;
+                }
+            } else {
+                keys.add(key);
+            }
+        }
+        return KeyPage.builder()
+                .setKeys(keys)
+                .setCommonPrefixes(commonPrefixes)
+                .setTruncated(nextKey != null)
+                .setNextKey(nextKey)
+                .build();
+    }
+
+    private static boolean seekAfter(KeyIterator iterator, String commonPrefix) {
+        String successor = successor(commonPrefix);
+        if (successor == null) {
+            return false;
+        }
+        iterator.seek(successor);
+        return true;
+    }
+
+    private static String commonPrefix(String key, String prefix, String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            return null;
+        }
+        int index = key.indexOf(delimiter, prefix.length());
+        if (index == -1) {
+            return null;
+        }
+        return key.substring(0, index + delimiter.length());
+    }
+
+    /**
+     * @return the least string greater than every string starting with the prefix
+     */
+    private static String successor(String prefix) {
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+        return prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+    }
+
+    private static String max(String first, String second) {
+        if (first == null || second == null) {
+            return first != null ? first : second;
+        }
+        return first.compareTo(second) >= 0 ? first : second;
+    }
+}
@@ -0,0 +1,139 @@
+package com.thorinhood.drivers.index;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scans folder trees on a {@link ForkJoinPool}, every folder is read by its own task. Used where a whole bucket is read
+ * without an index, where the latency of reading folders on network or RAID storage dominates.
+ */
+public class ParallelTreeScanner {
+
+    private static final Logger log = LogManager.getLogger(ParallelTreeScanner.class);
+
+    private final ForkJoinPool pool;
+
+    public ParallelTreeScanner(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Keys of the bucket in sorted order. Entries of every folder are sorted as keys by {@link BucketTreeWalker}, so
+     * the keys of the subfolders are joined in the order of the folders without merging.
+     */
+    public List<String> scanKeys(Path bucket) throws IOException {
+        try {
+            long start = System.nanoTime();
+            List<String> keys = pool.invoke(new ScanTask(bucket, ""));
+            log.debug("Scanned {} keys of {} in {} ms", keys.size(), bucket, (System.nanoTime() - start) / 1_000_000);
+            return keys;
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Deletes the folder with all its content, subfolders are deleted in parallel
+     */
+    public void deleteTree(Path folder) throws IOException {
+        try {
+            pool.invoke(new DeleteTask(folder));
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    private static class ScanTask extends RecursiveTask<List<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path folder;
+        private final String prefix;
+
+        private ScanTask(Path folder, String prefix) {
+            this.folder = folder;
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected List<String> compute() {
+            String[] names = BucketTreeWalker.readNames(folder);
+            List<ScanTask> subfolders = new ArrayList<>();
+            for (String name : names) {
+                if (BucketTreeWalker.isFolder(name)) {
+                    subfolders.add(new ScanTask(folder.resolve(name.substring(0, name.length() - 1)),
+                            prefix + name));
+                }
+            }
+            if (subfolders.isEmpty()) {
+                List<String> keys = new ArrayList<>(names.length);
+                for (String name : names) {
+                    keys.add(prefix + name);
+                }
+                return keys;
+            }
+            ForkJoinTask.invokeAll(subfolders);
+            List<String> keys = new ArrayList<>();
+            int subfolder = 0;
+            for (String name : names) {
+                if (BucketTreeWalker.isFolder(name)) {
+                    keys.addAll(subfolders.get(subfolder++).join());
+                } else {
+                    keys.add(prefix + name);
+                }
+            }
+            return keys;
+        }
+    }
+
+    private static class DeleteTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path folder;
+
+        private DeleteTask(Path folder) {
+            this.folder = folder;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                List<DeleteTask> subfolders = new ArrayList<>();
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder)) {
+                    for (Path entry : entries) {
+                        if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                            subfolders.add(new DeleteTask(entry));
+                        } else {
+                            Files.deleteIfExists(entry);
+                        }
+                    }
+                } catch (NoSuchFileException exception) {
+                    return;
+                }
+                ForkJoinTask.invokeAll(subfolders);
+                Files.deleteIfExists(folder);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.thorinhood.drivers.index;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable file of sorted keys. Keys are grouped in blocks of {@link #BLOCK_SIZE}, every key keeps only the bytes it
+ * doesn't share with the previous key of its block. First keys and offsets of the blocks are kept in memory, so a seek
+ * is a binary search and one block read.
+ */
+class SortedKeyFile implements Closeable {
+
+    private static final int MAGIC = 0x53334B49;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final int TRAILER_SIZE = 20;
+    private static final int BLOCK_SIZE = 64;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final FileChannel channel;
+    private final String[] firstKeys;
+    // offsets[i + 1] is the end of the block i
+    private final long[] offsets;
+    private final long count;
+
+    private SortedKeyFile(FileChannel channel, String[] firstKeys, long[] offsets, long count) {
+        this.channel = channel;
+        this.firstKeys = firstKeys;
+        this.offsets = offsets;
+        this.count = count;
+    }
+
+    static void write(Path file, Iterator<String> keys) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            List<byte[]> firstKeys = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            long offset = HEADER_SIZE;
+            long count = 0;
+            byte[] previous = EMPTY;
+            while (keys.hasNext()) {
+                byte[] key = keys.next().getBytes(StandardCharsets.UTF_8);
+                int shared = 0;
+                if (count % BLOCK_SIZE == 0) {
+                    firstKeys.add(key);
+                    offsets.add(offset);
+                } else {
+                    shared = Arrays.mismatch(previous, key);
+                }
+                offset += writeVarInt(out, shared);
+                offset += writeVarInt(out, key.length - shared);
+                out.write(key, shared, key.length - shared);
+                offset += key.length - shared;
+                previous = key;
+                count++;
+            }
+            long footerOffset = offset;
+            writeVarInt(out, firstKeys.size());
+            for (int i = 0; i < firstKeys.size(); i++) {
+                writeVarInt(out, firstKeys.get(i).length);
+                out.write(firstKeys.get(i));
+                out.writeLong(offsets.get(i));
+            }
+            out.writeLong(footerOffset);
+            out.writeLong(count);
+            out.writeInt(MAGIC);
+        }
+    }
+
+    static SortedKeyFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Key index is corrupt : " + file);
+            }
+            ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            long count = trailer.getLong();
+            if (trailer.getInt() != MAGIC || footerOffset < HEADER_SIZE || footerOffset > size - TRAILER_SIZE) {
+                throw new IOException("Key index is corrupt : " + file);
+            }
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.get() != VERSION) {
+                throw new IOException("Unknown key index version : " + file);
+            }
+            ByteBuffer footer = read(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset));
+            int blocks = readVarInt(footer);
+            String[] firstKeys = new String[blocks];
+            long[] offsets = new long[blocks + 1];
+            for (int i = 0; i < blocks; i++) {
+                byte[] key = new byte[readVarInt(footer)];
+                footer.get(key);
+                firstKeys[i] = new String(key, StandardCharsets.UTF_8);
+                offsets[i] = footer.getLong();
+            }
+            offsets[blocks] = footerOffset;
+            return new SortedKeyFile(channel, firstKeys, offsets, count);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Keys which are not less than from
+     */
+    Iterator<String> iterator(String from) throws IOException {
+        int block = Arrays.binarySearch(firstKeys, from);
+        if (block < 0) {
+            block = Math.max(-block - 2, 0);
+        }
+        return new BlockIterator(block, from);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<String> readBlock(int block) throws IOException {
+        ByteBuffer buffer = read(channel, offsets[block], (int) (offsets[block + 1] - offsets[block]));
+        List<String> keys = new ArrayList<>(BLOCK_SIZE);
+        byte[] previous = EMPTY;
+        while (buffer.hasRemaining()) {
+            int shared = readVarInt(buffer);
+            byte[] key = new byte[shared + readVarInt(buffer)];
+            System.arraycopy(previous, 0, key, 0, shared);
+            buffer.get(key, shared, key.length - shared);
+            keys.add(new String(key, StandardCharsets.UTF_8));
+            previous = key;
+        }
+        return keys;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of key index");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int writeVarInt(DataOutputStream out, int value) throws IOException {
+        int written = 1;
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+            written++;
+        }
+        out.writeByte(value);
+        return written;
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte current = buffer.get();
+            value |= (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Key index is corrupt");
+    }
+
+    private class BlockIterator implements Iterator<String> {
+
+        private int block;
+        private Iterator<String> keys;
+        private String next;
+
+        private BlockIterator(int block, String from) throws IOException {
+            this.block = block;
+            keys = block < firstKeys.length ? readBlock(block).iterator() : null;
+            advance();
+            while (next != null && next.compareTo(from) < 0) {
+                advance();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (keys != null) {
+                if (keys.hasNext()) {
+                    next = keys.next();
+                    return;
+                }
+                block++;
+                try {
+                    keys = block < firstKeys.length ? readBlock(block).iterator() : null;
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+        }
+    }
+}
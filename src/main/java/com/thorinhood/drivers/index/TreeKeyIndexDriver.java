@@ -0,0 +1,84 @@
+package com.thorinhood.drivers.index;
+
+import com.thorinhood.data.S3FileBucketPath;
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.drivers.FileDriver;
+import com.thorinhood.drivers.S3Runnable;
+import com.thorinhood.drivers.S3Supplier;
+import com.thorinhood.exceptions.S3Exception;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps no index, lists keys by walking the folder of the bucket with {@link BucketTreeWalker}. The index files left
+ * by {@link FileKeyIndexDriver} miss the keys written without it, so they are deleted on the first write to the bucket
+ */
+public class TreeKeyIndexDriver extends FileDriver implements KeyIndexDriver {
+
+    private final Map<String, Boolean> staleIndexDeleted = new ConcurrentHashMap<>();
+
+    public TreeKeyIndexDriver(String baseFolderPath, String configFolderPath, String usersFolderPath) {
+        super(baseFolderPath, configFolderPath, usersFolderPath);
+    }
+
+    @Override
+    public void createIndex(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        deleteStaleIndex(s3FileBucketPath);
+    }
+
+    @Override
+    public void deleteIndex(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        staleIndexDeleted.remove(s3FileBucketPath.getBucket());
+    }
+
+    @Override
+    public void putKey(S3FileObjectPath s3FileObjectPath, S3Runnable write) throws S3Exception {
+        deleteStaleIndex(s3FileObjectPath);
+        try {
+            write.run();
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
+    @Override
+    public <T> T putKey(S3FileObjectPath s3FileObjectPath, S3Supplier<T> write) throws S3Exception {
+        deleteStaleIndex(s3FileObjectPath);
+        try {
+            return write.get();
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
+    @Override
+    public void deleteKey(S3FileObjectPath s3FileObjectPath, S3Runnable delete) throws S3Exception {
+        putKey(s3FileObjectPath, delete);
+    }
+
+    @Override
+    public KeyPage listKeys(S3FileBucketPath s3FileBucketPath, String prefix, String delimiter, String startAfter,
+                            String from, int maxKeys) throws S3Exception {
+        try {
+            return KeyPager.list(new BucketTreeWalker(Path.of(s3FileBucketPath.getPathToBucket())), prefix,
+                    delimiter, startAfter, from, maxKeys);
+        } catch (UncheckedIOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception.getCause());
+        }
+    }
+
+    /**
+     * Other writes to the bucket wait until the files are deleted, so none of them finishes while a stale index is left
+     */
+    private void deleteStaleIndex(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        staleIndexDeleted.computeIfAbsent(s3FileBucketPath.getBucket(), bucket -> {
+            deleteFile(s3FileBucketPath.getPathToBucketKeyIndexFile());
+            deleteFile(s3FileBucketPath.getPathToBucketKeyJournalFile());
+            return true;
+        });
+    }
+}
@@ -0,0 +1,168 @@
+package com.thorinhood.drivers.main;
+
+import com.thorinhood.data.S3FileBucketPath;
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.S3User;
+import com.thorinhood.data.acl.S3Action;
+import com.thorinhood.drivers.acl.CompiledAcl;
+import com.thorinhood.drivers.principal.CompiledBucketPolicy;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Parsed ACLs, bucket policies and permission decisions of {@link S3FileDriverImpl}.
+ * Every entry is stamped with the generations of its bucket and object taken before it was computed. A change of an
+ * entity bumps its generation after the change is written, so an entry computed from the old state is never returned.
+ * Generations are striped by hash, a change of one object can only cause extra misses for its neighbours.
+ */
+public class AuthorizationCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+    private static final int MAX_ACLS = 16384;
+    private static final int MAX_POLICIES = 4096;
+    private static final int MAX_DECISIONS = 65536;
+
+    private final AtomicLongArray bucketGenerations;
+    private final AtomicLongArray objectGenerations;
+    private final Map<String, Entry<CompiledAcl>> bucketAcls;
+    private final Map<String, Entry<CompiledAcl>> objectAcls;
+    private final Map<String, Entry<Optional<CompiledBucketPolicy>>> policies;
+    private final Map<DecisionKey, Entry<Boolean>> decisions;
+
+    public AuthorizationCache() {
+        bucketGenerations = new AtomicLongArray(GENERATION_STRIPES);
+        objectGenerations = new AtomicLongArray(GENERATION_STRIPES);
+        bucketAcls = new ConcurrentHashMap<>();
+        objectAcls = new ConcurrentHashMap<>();
+        policies = new ConcurrentHashMap<>();
+        decisions = new ConcurrentHashMap<>();
+    }
+
+    public CompiledAcl getBucketAcl(S3FileBucketPath s3FileBucketPath, Supplier<CompiledAcl> loader) {
+        return get(bucketAcls, MAX_ACLS, s3FileBucketPath.getPathToBucket(), bucketStripe(s3FileBucketPath), -1,
+                loader);
+    }
+
+    public CompiledAcl getObjectAcl(S3FileObjectPath s3FileObjectPath, Supplier<CompiledAcl> loader) {
+        return get(objectAcls, MAX_ACLS, s3FileObjectPath.getPathToObject(), bucketStripe(s3FileObjectPath),
+                objectStripe(s3FileObjectPath), loader);
+    }
+
+    public Optional<CompiledBucketPolicy> getBucketPolicy(S3FileBucketPath s3FileBucketPath,
+                                                          Supplier<Optional<CompiledBucketPolicy>> loader) {
+        return get(policies, MAX_POLICIES, s3FileBucketPath.getPathToBucket(), bucketStripe(s3FileBucketPath), -1,
+                loader);
+    }
+
+    /**
+     * Decision of ACL and bucket policy for the user, the method and the resource. Decisions with the object ACL
+     * depend on the object, the rest only on the bucket
+     */
+    public boolean getDecision(boolean isBucketAcl, S3FileObjectPath s3FileObjectPath, S3Action action,
+                               S3User s3User, Supplier<Boolean> loader) {
+        DecisionKey key = new DecisionKey(isBucketAcl, s3FileObjectPath.getPathToBucket(),
+                s3FileObjectPath.getKeyUnsafe(), action, s3User);
+        return get(decisions, MAX_DECISIONS, key, bucketStripe(s3FileObjectPath),
+                isBucketAcl ? -1 : objectStripe(s3FileObjectPath), loader);
+    }
+
+    public void invalidateBucket(S3FileBucketPath s3FileBucketPath) {
+        bucketGenerations.incrementAndGet(bucketStripe(s3FileBucketPath));
+    }
+
+    public void invalidateObject(S3FileObjectPath s3FileObjectPath) {
+        objectGenerations.incrementAndGet(objectStripe(s3FileObjectPath));
+    }
+
+    private <K, V> V get(Map<K, Entry<V>> cache, int maxSize, K key, int bucketStripe, int objectStripe,
+                         Supplier<V> loader) {
+        long bucketGeneration = bucketGenerations.get(bucketStripe);
+        long objectGeneration = objectStripe != -1 ? objectGenerations.get(objectStripe) : -1;
+        Entry<V> entry = cache.get(key);
+        if (entry != null && entry.bucketGeneration == bucketGeneration &&
+            entry.objectGeneration == objectGeneration) {
+            return entry.value;
+        }
+        V value = loader.get();
+        if (cache.size() >= maxSize) {
+            cache.clear();
+        }
+        cache.put(key, new Entry<>(value, bucketGeneration, objectGeneration));
+        return value;
+    }
+
+    private int bucketStripe(S3FileBucketPath s3FileBucketPath) {
+        return stripe(s3FileBucketPath.getPathToBucket().hashCode());
+    }
+
+    private int objectStripe(S3FileObjectPath s3FileObjectPath) {
+        return stripe(s3FileObjectPath.getPathToBucket().hashCode() * 31 +
+                Objects.hashCode(s3FileObjectPath.getKeyUnsafe()));
+    }
+
+    private int stripe(int hash) {
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long bucketGeneration;
+        private final long objectGeneration;
+
+        private Entry(V value, long bucketGeneration, long objectGeneration) {
+            this.value = value;
+            this.bucketGeneration = bucketGeneration;
+            this.objectGeneration = objectGeneration;
+        }
+    }
+
+    private static class DecisionKey {
+        private final boolean isBucketAcl;
+        private final String bucket;
+        private final String key;
+        private final S3Action action;
+        private final String arn;
+        private final String canonicalUserId;
+        private final String accountName;
+        private final int hash;
+
+        private DecisionKey(boolean isBucketAcl, String bucket, String key, S3Action action, S3User s3User) {
+            this.isBucketAcl = isBucketAcl;
+            this.bucket = bucket;
+            this.key = key;
+            this.action = action;
+            this.arn = s3User.getArn();
+            this.canonicalUserId = s3User.getCanonicalUserId();
+            this.accountName = s3User.getAccountName();
+            this.hash = Objects.hash(isBucketAcl, bucket, key, action, arn, canonicalUserId, accountName);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DecisionKey)) {
+                return false;
+            }
+            DecisionKey that = (DecisionKey) o;
+            return isBucketAcl == that.isBucketAcl &&
+                    bucket.equals(that.bucket) &&
+                    Objects.equals(key, that.key) &&
+                    action == that.action &&
+                    Objects.equals(arn, that.arn) &&
+                    Objects.equals(canonicalUserId, that.canonicalUserId) &&
+                    Objects.equals(accountName, that.accountName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.thorinhood.drivers.main;
+
+import com.thorinhood.exceptions.S3Exception;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Maps the items in batches on an executor and returns the results in order as they are consumed. At most window
+ * batches run ahead of the consumer, so the first results are ready before the last batch is mapped.
+ */
+class BatchedIterator<T, R> implements Iterator<R> {
+
+    private final List<T> items;
+    private final Function<List<T>, List<R>> batch;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int window;
+    private final Deque<Future<List<R>>> pending = new ArrayDeque<>();
+    private int submitted;
+    private Iterator<R> current = Collections.emptyIterator();
+
+    BatchedIterator(List<T> items, Function<List<T>, List<R>> batch, ExecutorService executor, int batchSize,
+                    int window) {
+        this.items = items;
+        this.batch = batch;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.window = window;
+    }
+
+    @Override
+    public boolean hasNext() throws S3Exception {
+        while (!current.hasNext()) {
+            submit();
+            if (pending.isEmpty()) {
+                return false;
+            }
+            current = get(pending.poll()).iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public R next() throws S3Exception {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    private void submit() {
+        while (pending.size() < window && submitted < items.size()) {
+            List<T> part = items.subList(submitted, Math.min(items.size(), submitted + batchSize));
+            submitted += part.size();
+            pending.add(executor.submit(() -> batch.apply(part)));
+        }
+    }
+
+    private List<R> get(Future<List<R>> future) throws S3Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw S3Exception.INTERNAL_ERROR(exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof S3Exception) {
+                throw (S3Exception) exception.getCause();
+            }
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.thorinhood.drivers.main;
+
+import com.thorinhood.data.Owner;
+import com.thorinhood.utils.Pair;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Buckets of every owner with their creation dates, so ListBuckets reads only the buckets of the caller. Kept by
+ * createBucket, deleteBucket and putBucketAcl, buckets whose folders are gone are dropped when they are listed
+ */
+class BucketOwnerIndex {
+
+    // owner -> bucket -> creation date
+    private final Map<String, TreeMap<String, String>> bucketsByOwner = new HashMap<>();
+    private final Map<String, String> ownerByBucket = new HashMap<>();
+
+    synchronized void put(String bucket, Owner owner, String creationDate) {
+        remove(bucket);
+        String ownerKey = ownerKey(owner.getId(), owner.getDisplayName());
+        bucketsByOwner.computeIfAbsent(ownerKey, key -> new TreeMap<>()).put(bucket, creationDate);
+        ownerByBucket.put(bucket, ownerKey);
+    }
+
+    /**
+     * @return false if the bucket is not indexed
+     */
+    synchronized boolean changeOwner(String bucket, Owner owner) {
+        String ownerKey = ownerByBucket.get(bucket);
+        if (ownerKey == null) {
+            return false;
+        }
+        put(bucket, owner, bucketsByOwner.get(ownerKey).get(bucket));
+        return true;
+    }
+
+    synchronized void remove(String bucket) {
+        String ownerKey = ownerByBucket.remove(bucket);
+        if (ownerKey == null) {
+            return;
+        }
+        TreeMap<String, String> buckets = bucketsByOwner.get(ownerKey);
+        buckets.remove(bucket);
+        if (buckets.isEmpty()) {
+            bucketsByOwner.remove(ownerKey);
+        }
+    }
+
+    /**
+     * @return names and creation dates of the buckets of the owner sorted by name
+     */
+    synchronized List<Pair<String, String>> getBuckets(String ownerId, String ownerDisplayName,
+                                                       Predicate<String> exists) {
+        TreeMap<String, String> buckets = bucketsByOwner.get(ownerKey(ownerId, ownerDisplayName));
+        if (buckets == null) {
+            return List.of();
+        }
+        List<Pair<String, String>> result = new ArrayList<>(buckets.size());
+        List<String> deleted = new ArrayList<>();
+        buckets.forEach((bucket, creationDate) -> {
+            if (exists.test(bucket)) {
+                result.add(Pair.of(bucket, creationDate));
+            } else {
+                deleted.add(bucket);
+            }
+        });
+        deleted.forEach(this::remove);
+        return result;
+    }
+
+    private static String ownerKey(String ownerId, String ownerDisplayName) {
+        return ownerId + "\n" + ownerDisplayName;
+    }
+}
@@ -2,6 +2,7 @@ package com.thorinhood.drivers.main;
 
 import com.thorinhood.data.*;
 import com.thorinhood.data.acl.AccessControlPolicy;
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.list.eventual.ListBucketResult;
 import com.thorinhood.data.list.request.GetBucketObjects;
 import com.thorinhood.data.list.request.GetBucketObjectsV2;
@@ -14,6 +15,7 @@ import com.thorinhood.data.s3object.S3Object;
 import com.thorinhood.exceptions.S3Exception;
 import io.netty.handler.codec.http.HttpHeaders;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,12 +23,14 @@ import java.util.Optional;
 public interface S3Driver extends AclPermissionChecker {
 
     // Permissions
+    boolean checkPermission(boolean isBucketAcl, S3FileObjectPath s3FileObjectPath, S3Action action, S3User s3User)
+            throws S3Exception;
     AccessControlPolicy getBucketAcl(S3FileBucketPath s3FileBucketPath) throws S3Exception;
     AccessControlPolicy getObjectAcl(S3FileObjectPath s3FileObjectPath) throws S3Exception;
     void putBucketAcl(S3FileBucketPath s3FileBucketPath, byte[] bytes) throws S3Exception;
     String putObjectAcl(S3FileObjectPath s3FileObjectPath, byte[] bytes) throws S3Exception;
 
-    Optional<Boolean> checkBucketPolicy(S3FileBucketPath s3FileBucketPath, String key, String methodName, S3User s3User)
+    Optional<Boolean> checkBucketPolicy(S3FileBucketPath s3FileBucketPath, String key, S3Action action, S3User s3User)
             throws S3Exception;
     Optional<BucketPolicy> getBucketPolicy(S3FileBucketPath s3FileBucketPath) throws S3Exception;
     Optional<byte[]> getBucketPolicyBytes(S3FileBucketPath s3FileBucketPath) throws S3Exception;
@@ -35,14 +39,23 @@ public interface S3Driver extends AclPermissionChecker {
 
     // Actions
     void createBucket(S3FileBucketPath s3FileBucketPath, S3User s3User) throws S3Exception;
-    S3Object getObject(S3FileObjectPath s3FileObjectPath, HttpHeaders httpHeaders) throws S3Exception;
+    /**
+     * @param partNumber the body is narrowed to this part of the multipart upload of the object, null for the whole
+     *                   object
+     */
+    S3Object getObject(S3FileObjectPath s3FileObjectPath, HttpHeaders httpHeaders, Integer partNumber)
+            throws S3Exception;
     S3Object putObject(S3FileObjectPath s3FileObjectPath, byte[] bytes, Map<String, String> metadata, S3User s3User)
             throws S3Exception;
+    S3Object putObject(S3FileObjectPath s3FileObjectPath, StreamedContent content, Map<String, String> metadata,
+                       S3User s3User) throws S3Exception;
+    Path createTmpFile(S3FileObjectPath s3FileObjectPath, String uploadId) throws S3Exception;
     void deleteObject(S3FileObjectPath s3FileObjectPath) throws S3Exception;
     void deleteBucket(S3FileBucketPath s3FileBucketPath) throws S3Exception;
     CopyObjectResult copyObject(S3FileObjectPath source, S3FileObjectPath target, HttpHeaders httpHeaders,
                                 S3User s3User) throws S3Exception;
-    S3Object headObject(S3FileObjectPath s3FileObjectPath, HttpHeaders httpHeaders) throws S3Exception;
+    S3Object headObject(S3FileObjectPath s3FileObjectPath, HttpHeaders httpHeaders, Integer partNumber)
+            throws S3Exception;
 
     // Lists
     ListBucketV2Result getBucketObjectsV2(S3FileBucketPath s3FileBucketPath, GetBucketObjectsV2 getBucketObjectsV2)
@@ -54,6 +67,8 @@ public interface S3Driver extends AclPermissionChecker {
     String createMultipartUpload(S3FileObjectPath s3FileObjectPath, S3User s3User) throws S3Exception;
     void abortMultipartUpload(S3FileObjectPath s3FileObjectPath, String uploadId) throws S3Exception;
     String putUploadPart(S3FileObjectPath s3FileObjectPath, String uploadId, int partNumber, byte[] bytes) throws S3Exception;
+    String putUploadPart(S3FileObjectPath s3FileObjectPath, String uploadId, int partNumber, StreamedContent content)
+            throws S3Exception;
     String completeMultipartUpload(S3FileObjectPath s3FileObjectPath, String uploadId, List<Part> parts, S3User s3User)
             throws S3Exception;
 
@@ -6,40 +6,45 @@ import com.thorinhood.data.list.eventual.ListBucketResult;
 import com.thorinhood.data.list.raw.ListBucketResultRaw;
 import com.thorinhood.data.list.request.GetBucketObjects;
 import com.thorinhood.data.list.request.GetBucketObjectsV2;
+import com.thorinhood.data.multipart.ObjectPart;
 import com.thorinhood.data.multipart.Part;
+import com.thorinhood.data.multipart.PartLayout;
 import com.thorinhood.data.policy.BucketPolicy;
-import com.thorinhood.data.policy.Statement;
 import com.thorinhood.data.results.CopyObjectResult;
 import com.thorinhood.data.results.GetBucketsResult;
 import com.thorinhood.data.list.eventual.ListBucketV2Result;
 import com.thorinhood.data.list.raw.ListBucketV2ResultRaw;
 import com.thorinhood.data.s3object.HasMetaData;
 import com.thorinhood.data.s3object.S3Object;
+import com.thorinhood.data.s3object.S3ObjectBody;
+import com.thorinhood.data.s3object.S3ObjectSummary;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
-import com.thorinhood.data.s3object.S3ObjectETag;
 import com.thorinhood.drivers.FileDriver;
 import com.thorinhood.drivers.lock.EntityLockDriver;
 import com.thorinhood.drivers.acl.AclDriver;
+import com.thorinhood.drivers.acl.CompiledAcl;
 import com.thorinhood.drivers.entity.EntityDriver;
+import com.thorinhood.drivers.metadata.AttachedMetadataDriver;
 import com.thorinhood.drivers.metadata.FileMetadataDriver;
 import com.thorinhood.drivers.metadata.MetadataDriver;
+import com.thorinhood.drivers.principal.CompiledBucketPolicy;
 import com.thorinhood.drivers.principal.PolicyDriver;
 import com.thorinhood.exceptions.S3Exception;
 import com.thorinhood.utils.DateTimeUtil;
 import com.thorinhood.utils.Pair;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -51,8 +56,13 @@ public class S3FileDriverImpl implements S3Driver {
     private final EntityDriver entityDriver;
     private final EntityLockDriver entityLockDriver;
     private final FileDriver fileDriver;
+    private final AuthorizationCache authorizationCache;
+    private final ExecutorService listingExecutor;
+    private final BucketOwnerIndex bucketOwnerIndex;
 
     private static final Logger log = LogManager.getLogger(S3FileDriverImpl.class);
+    private static final int LIST_BATCH_SIZE = 64;
+    private static final int LIST_WINDOW = Runtime.getRuntime().availableProcessors();
 
     public S3FileDriverImpl(MetadataDriver metadataDriver, AclDriver aclDriver, PolicyDriver policyDriver,
                             EntityDriver entityDriver, FileDriver fileDriver, EntityLockDriver entityLockDriver) {
@@ -62,78 +72,39 @@ public class S3FileDriverImpl implements S3Driver {
         this.entityDriver = entityDriver;
         this.entityLockDriver = entityLockDriver;
         this.fileDriver = fileDriver;
+        this.authorizationCache = new AuthorizationCache();
+        this.listingExecutor = Executors.newFixedThreadPool(LIST_WINDOW,
+                new DefaultThreadFactory("s3-listing", true));
+        this.bucketOwnerIndex = new BucketOwnerIndex();
+        indexBucketOwners();
     }
 
     @Override
-    public Optional<Boolean> checkBucketPolicy(S3FileBucketPath s3FileBucketPath, String key, String methodName,
+    public boolean checkPermission(boolean isBucketAcl, S3FileObjectPath s3FileObjectPath, S3Action action,
+                                   S3User s3User) throws S3Exception {
+        return authorizationCache.getDecision(isBucketAcl, s3FileObjectPath, action, s3User, () -> {
+            fileDriver.checkBucket(s3FileObjectPath);
+            boolean aclCheckResult = checkAclPermission(isBucketAcl, s3FileObjectPath, action, s3User);
+            Optional<Boolean> policyCheckResult = checkBucketPolicy(s3FileObjectPath,
+                    s3FileObjectPath.getKeyUnsafe(), action, s3User);
+            return policyCheckResult.orElse(aclCheckResult);
+        });
+    }
+
+    @Override
+    public Optional<Boolean> checkBucketPolicy(S3FileBucketPath s3FileBucketPath, String key, S3Action action,
                                                S3User s3User) throws S3Exception {
         fileDriver.checkBucket(s3FileBucketPath);
-        String policyFilePath = s3FileBucketPath.getPathToBucketPolicyFile();
-        if (!fileDriver.isFileExists(policyFilePath)) {
-            return Optional.empty();
-        }
-        Optional<BucketPolicy> bucketPolicy = entityLockDriver.readMeta(
-                s3FileBucketPath.getPathToBucket(),
-                s3FileBucketPath.getPathToBucketMetadataFolder(),
-                policyFilePath,
-                () -> getBucketPolicy(s3FileBucketPath)
-        );
+        Optional<CompiledBucketPolicy> bucketPolicy = getCompiledBucketPolicy(s3FileBucketPath);
         if (bucketPolicy.isEmpty()) {
             return Optional.empty();
         }
-        for (Statement statement : bucketPolicy.get().getStatements()) {
-            Optional<Boolean> checkResult = checkStatement(statement, s3FileBucketPath.getBucket(), key,
-                    methodName, s3User);
-            if (checkResult.isPresent()) {
-                return checkResult;
-            }
-        }
-        return Optional.empty();
-    }
-
-    private Optional<Boolean> checkStatement(Statement statement, String bucket, String key, String methodName,
-                                             S3User s3User) {
-        boolean isThisPrincipal = checkPrincipal(statement.getPrinciple().getAWS(), s3User.getArn());
-        if (!isThisPrincipal) {
-            return Optional.empty();
-        }
-        boolean hasAction = statement.getAction().stream().anyMatch(action -> checkAction(action, methodName));
-        if (!hasAction) {
-            return Optional.empty();
-        }
-        boolean isThisResource = statement.getResource().stream().anyMatch(resource ->
-                checkResource(resource, bucket, key));
-        if (!isThisResource) {
-            return Optional.empty();
-        }
-        return Optional.of(checkEffect(statement.getEffect()));
-    }
-
-    private boolean checkEffect(Statement.EffectType effect) {
-        return Statement.EffectType.Allow.equals(effect);
-    }
-
-    private boolean checkPrincipal(List<String> patterns, String arn) {
-        return patterns.stream().anyMatch(pattern -> match(pattern, arn));
-    }
-
-    private boolean checkResource(String pattern, String bucket, String key) {
-        String resource = "arn:aws:s3:::" + bucket + (key != null && !key.isEmpty() ? "/" + key : "");
-        return match(pattern, resource);
-    }
-
-    private boolean checkAction(String pattern, String toCheck) {
-        return match(pattern, toCheck);
+        return bucketPolicy.get().evaluate(s3FileBucketPath.getBucket(), key, action.getName(), s3User.getArn());
     }
 
     @Override
     public Optional<byte[]> getBucketPolicyBytes(S3FileBucketPath s3FileBucketPath) throws S3Exception {
-        Optional<BucketPolicy> bucketPolicy = entityLockDriver.readMeta(
-                s3FileBucketPath.getPathToBucket(),
-                s3FileBucketPath.getPathToBucketMetadataFolder(),
-                s3FileBucketPath.getPathToBucketPolicyFile(),
-                () -> getBucketPolicy(s3FileBucketPath)
-        );
+        Optional<BucketPolicy> bucketPolicy = getBucketPolicy(s3FileBucketPath);
         if (bucketPolicy.isEmpty()) {
             return Optional.empty();
         }
@@ -142,22 +113,31 @@ public class S3FileDriverImpl implements S3Driver {
 
     @Override
     public Optional<BucketPolicy> getBucketPolicy(S3FileBucketPath s3FileBucketPath) throws S3Exception {
-        return entityLockDriver.readMeta(
+        return getCompiledBucketPolicy(s3FileBucketPath).map(CompiledBucketPolicy::getBucketPolicy);
+    }
+
+    private Optional<CompiledBucketPolicy> getCompiledBucketPolicy(S3FileBucketPath s3FileBucketPath)
+            throws S3Exception {
+        return authorizationCache.getBucketPolicy(s3FileBucketPath, () -> entityLockDriver.readMeta(
                 s3FileBucketPath.getPathToBucket(),
                 s3FileBucketPath.getPathToBucketMetadataFolder(),
                 s3FileBucketPath.getPathToBucketPolicyFile(),
                 () -> policyDriver.getBucketPolicy(s3FileBucketPath)
-        );
+        ).map(CompiledBucketPolicy::compile));
     }
 
     @Override
     public void putBucketPolicy(S3FileBucketPath s3FileBucketPath, byte[] bytes) throws S3Exception {
-        entityLockDriver.writeMeta(
-                s3FileBucketPath.getPathToBucket(),
-                s3FileBucketPath.getPathToBucketMetadataFolder(),
-                s3FileBucketPath.getPathToBucketPolicyFile(),
-                () -> policyDriver.putBucketPolicy(s3FileBucketPath, bytes)
-        );
+        try {
+            entityLockDriver.writeMeta(
+                    s3FileBucketPath.getPathToBucket(),
+                    s3FileBucketPath.getPathToBucketMetadataFolder(),
+                    s3FileBucketPath.getPathToBucketPolicyFile(),
+                    () -> policyDriver.putBucketPolicy(s3FileBucketPath, bytes)
+            );
+        } finally {
+            authorizationCache.invalidateBucket(s3FileBucketPath);
+        }
     }
 
     @Override
@@ -166,30 +146,15 @@ public class S3FileDriverImpl implements S3Driver {
     }
 
     @Override
-    public boolean checkAclPermission(boolean isBucketAcl, S3FileObjectPath s3FileObjectPath, String methodName,
+    public boolean checkAclPermission(boolean isBucketAcl, S3FileObjectPath s3FileObjectPath, S3Action action,
                                       S3User s3User) throws S3Exception {
         if (isBucketAcl) {
-            AccessControlPolicy acl = getBucketAcl(s3FileObjectPath);
-            return checkPermission(Permission::getMethodsBucket, acl, methodName, s3User);
+            return getCompiledBucketAcl(s3FileObjectPath).isAllowed(s3User, action);
         } else {
-            fileDriver.checkObject(s3FileObjectPath);
-            AccessControlPolicy acl = getObjectAcl(s3FileObjectPath);
-            return checkPermission(Permission::getMethodsObject, acl, methodName, s3User);
+            return getCompiledObjectAcl(s3FileObjectPath).isAllowed(s3User, action);
         }
     }
 
-    private boolean checkPermission(Function<Permission, Set<String>> methodsGetter, AccessControlPolicy acl,
-                                    String methodName, S3User s3User) {
-        return acl.getAccessControlList().stream()
-                .filter(grant -> (grant.getGrantee().getDisplayName().equals(s3User.getAccountName()) &&
-                        grant.getGrantee().getId().equals(s3User.getCanonicalUserId())))
-                .map(Grant::getPermission)
-                .map(methodsGetter)
-                .flatMap(Collection::stream)
-                .distinct()
-                .anyMatch(name -> name.equals(methodName));
-    }
-
     @Override
     public boolean isOwner(boolean isBucket, S3FileObjectPath s3FileObjectPath, S3User s3User) throws S3Exception {
         return (isBucket ?
@@ -204,46 +169,66 @@ public class S3FileDriverImpl implements S3Driver {
 
     @Override
     public AccessControlPolicy getBucketAcl(S3FileBucketPath s3FileBucketPath) throws S3Exception {
-        return entityLockDriver.readMeta(
+        return getCompiledBucketAcl(s3FileBucketPath).getAcl();
+    }
+
+    @Override
+    public AccessControlPolicy getObjectAcl(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        return getCompiledObjectAcl(s3FileObjectPath).getAcl();
+    }
+
+    private CompiledAcl getCompiledBucketAcl(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        return authorizationCache.getBucketAcl(s3FileBucketPath, () -> CompiledAcl.compile(entityLockDriver.readMeta(
                 s3FileBucketPath.getPathToBucket(),
                 s3FileBucketPath.getPathToBucketMetadataFolder(),
                 s3FileBucketPath.getPathToBucketAclFile(),
                 () -> aclDriver.getBucketAcl(s3FileBucketPath)
-        );
+        ), true));
     }
 
-    @Override
-    public AccessControlPolicy getObjectAcl(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+    private CompiledAcl getCompiledObjectAcl(S3FileObjectPath s3FileObjectPath) throws S3Exception {
         fileDriver.checkObject(s3FileObjectPath);
-        return entityLockDriver.readMeta(
+        return authorizationCache.getObjectAcl(s3FileObjectPath, () -> CompiledAcl.compile(entityLockDriver.readMeta(
                 s3FileObjectPath.getPathToBucket(),
                 s3FileObjectPath.getPathToObjectMetadataFolder(),
                 s3FileObjectPath.getPathToObjectAclFile(),
                 () -> aclDriver.getObjectAcl(s3FileObjectPath)
-        );
+        ), false));
     }
 
     @Override
     public void putBucketAcl(S3FileBucketPath s3FileBucketPath, byte[] bytes) throws S3Exception {
         AccessControlPolicy acl = aclDriver.parseFromBytes(bytes);
-        entityLockDriver.writeMeta(
-            s3FileBucketPath.getPathToBucket(),
-            s3FileBucketPath.getPathToBucketMetadataFolder(),
-            s3FileBucketPath.getPathToBucketAclFile(),
-            () -> aclDriver.putBucketAcl(s3FileBucketPath, acl)
-        );
+        try {
+            entityLockDriver.writeMeta(
+                s3FileBucketPath.getPathToBucket(),
+                s3FileBucketPath.getPathToBucketMetadataFolder(),
+                s3FileBucketPath.getPathToBucketAclFile(),
+                () -> aclDriver.putBucketAcl(s3FileBucketPath, acl)
+            );
+            if (!bucketOwnerIndex.changeOwner(s3FileBucketPath.getBucket(), acl.getOwner())) {
+                bucketOwnerIndex.put(s3FileBucketPath.getBucket(), acl.getOwner(),
+                        entityDriver.getBucketCreationDate(s3FileBucketPath));
+            }
+        } finally {
+            authorizationCache.invalidateBucket(s3FileBucketPath);
+        }
     }
 
     @Override
     public String putObjectAcl(S3FileObjectPath s3FileObjectPath, byte[] bytes) throws S3Exception {
         fileDriver.checkObject(s3FileObjectPath);
         AccessControlPolicy acl = aclDriver.parseFromBytes(bytes);
-        return entityLockDriver.writeMeta(
-                s3FileObjectPath.getPathToBucket(),
-                s3FileObjectPath.getPathToObjectMetadataFolder(),
-                s3FileObjectPath.getPathToObjectAclFile(),
-                () -> aclDriver.putObjectAcl(s3FileObjectPath, acl)
-        );
+        try {
+            return entityLockDriver.writeMeta(
+                    s3FileObjectPath.getPathToBucket(),
+                    s3FileObjectPath.getPathToObjectMetadataFolder(),
+                    s3FileObjectPath.getPathToObjectAclFile(),
+                    () -> aclDriver.putObjectAcl(s3FileObjectPath, acl)
+            );
+        } finally {
+            authorizationCache.invalidateObject(s3FileObjectPath);
+        }
     }
 
     @Override
@@ -257,18 +242,26 @@ public class S3FileDriverImpl implements S3Driver {
                 throw S3Exception.BUCKET_ALREADY_OWNED_BY_YOU(bucketFile.getAbsolutePath());
             }
         }
-        entityLockDriver.writeBucket(
-            s3FileBucketPath,
-            () -> {
-                entityDriver.createBucket(s3FileBucketPath, s3User);
-                fileDriver.createFolder(s3FileBucketPath.getPathToBucketMetadataFolder());
-                aclDriver.putBucketAcl(s3FileBucketPath, createDefaultAccessControlPolicy(s3User));
-            }
-        );
+        try {
+            entityLockDriver.writeBucket(
+                s3FileBucketPath,
+                () -> {
+                    entityDriver.createBucket(s3FileBucketPath, s3User);
+                    fileDriver.createFolder(s3FileBucketPath.getPathToBucketMetadataFolder());
+                    AccessControlPolicy acl = createDefaultAccessControlPolicy(s3User);
+                    aclDriver.putBucketAcl(s3FileBucketPath, acl);
+                    bucketOwnerIndex.put(s3FileBucketPath.getBucket(), acl.getOwner(),
+                            entityDriver.getBucketCreationDate(s3FileBucketPath));
+                }
+            );
+        } finally {
+            authorizationCache.invalidateBucket(s3FileBucketPath);
+        }
     }
 
     @Override
-    public S3Object getObject(S3FileObjectPath s3FileObjectPath, HttpHeaders httpHeaders) throws S3Exception {
+    public S3Object getObject(S3FileObjectPath s3FileObjectPath, HttpHeaders httpHeaders, Integer partNumber)
+            throws S3Exception {
         fileDriver.checkObject(s3FileObjectPath);
         return entityLockDriver.readObject(
             s3FileObjectPath,
@@ -277,7 +270,9 @@ public class S3FileDriverImpl implements S3Driver {
                 HasMetaData rawS3Object = entityDriver.getObject(s3FileObjectPath,
                         objectMetadata.get(FileMetadataDriver.ETAG), httpHeaders, false);
                 objectMetadata.remove(FileMetadataDriver.ETAG);
-                return rawS3Object.setMetaData(objectMetadata);
+                S3Object s3Object = selectPart(rawS3Object.setMetaData(objectMetadata), partNumber);
+                openBody(s3Object);
+                return s3Object;
             }
         );
     }
@@ -291,11 +286,24 @@ public class S3FileDriverImpl implements S3Driver {
                 Map<String, String> metadata = metadataDriver.getObjectMetadata(source);
                 String sourceETag = metadata.get(FileMetadataDriver.ETAG);
                 metadata.remove(FileMetadataDriver.ETAG);
-                return entityDriver.getObject(source, sourceETag, httpHeaders, true)
+                S3Object s3Object = entityDriver.getObject(source, sourceETag, httpHeaders, true)
                         .setMetaData(metadata);
+                openBody(s3Object);
+                return s3Object;
             }
         );
-        S3Object targetObject = putObject(target, sourceObject.getRawBytes(), sourceObject.getMetaData(), s3User);
+        StreamedContent content;
+        try (S3ObjectBody body = sourceObject.getBody()) {
+            content = entityDriver.storeBody(target, body);
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+        S3Object targetObject;
+        try {
+            targetObject = putObject(target, content, sourceObject.getMetaData(), s3User);
+        } finally {
+            content.delete();
+        }
         return CopyObjectResult.builder()
                 .setETag("\"" + targetObject.getETag() + "\"")
                 .setLastModified(DateTimeUtil.parseDateTimeISO(targetObject.getFile()))
@@ -303,7 +311,8 @@ public class S3FileDriverImpl implements S3Driver {
     }
 
     @Override
-    public S3Object headObject(S3FileObjectPath s3FileObjectPath, HttpHeaders httpHeaders) throws S3Exception {
+    public S3Object headObject(S3FileObjectPath s3FileObjectPath, HttpHeaders httpHeaders, Integer partNumber)
+            throws S3Exception {
         fileDriver.checkObject(s3FileObjectPath);
         return entityLockDriver.readObject(
                 s3FileObjectPath,
@@ -312,7 +321,7 @@ public class S3FileDriverImpl implements S3Driver {
                     HasMetaData rawS3Object = entityDriver.headObject(s3FileObjectPath,
                             objectMetadata.get(FileMetadataDriver.ETAG), httpHeaders);
                     objectMetadata.remove(FileMetadataDriver.ETAG);
-                    return rawS3Object.setMetaData(objectMetadata);
+                    return selectPart(rawS3Object.setMetaData(objectMetadata), partNumber);
                 }
         );
     }
@@ -320,34 +329,84 @@ public class S3FileDriverImpl implements S3Driver {
     @Override
     public S3Object putObject(S3FileObjectPath s3FileObjectPath, byte[] bytes, Map<String, String> metadata,
                               S3User s3User) throws S3Exception {
-        return entityLockDriver.writeObject(
-            s3FileObjectPath,
-            () -> {
-                fileDriver.createFolder(s3FileObjectPath.getPathToObjectMetadataFolder());
-                S3Object s3Object = entityDriver.putObject(s3FileObjectPath, bytes, metadata);
-                metadataDriver.putObjectMetadata(s3FileObjectPath, metadata, s3Object.getETag());
-                aclDriver.putObjectAcl(s3FileObjectPath, createDefaultAccessControlPolicy(s3User));
-                return s3Object;
-            }
-        );
+        try {
+            return entityLockDriver.writeObject(
+                s3FileObjectPath,
+                () -> {
+                    fileDriver.createFolder(s3FileObjectPath.getPathToObjectFolder());
+                    AccessControlPolicy acl = createDefaultAccessControlPolicy(s3User);
+                    if (metadataDriver instanceof AttachedMetadataDriver) {
+                        AttachedMetadataDriver attachedMetadataDriver = (AttachedMetadataDriver) metadataDriver;
+                        return entityDriver.putObject(s3FileObjectPath, bytes, metadata, (file, eTag) ->
+                                attachedMetadataDriver.attachObjectMetadata(file, metadata, eTag, acl));
+                    }
+                    S3Object s3Object = entityDriver.putObject(s3FileObjectPath, bytes, metadata, (file, eTag) -> {});
+                    metadataDriver.putObjectMetadata(s3FileObjectPath, metadata, s3Object.getETag(), acl);
+                    return s3Object;
+                }
+            );
+        } finally {
+            authorizationCache.invalidateObject(s3FileObjectPath);
+        }
+    }
+
+    @Override
+    public S3Object putObject(S3FileObjectPath s3FileObjectPath, StreamedContent content, Map<String, String> metadata,
+                              S3User s3User) throws S3Exception {
+        try {
+            return entityLockDriver.writeObject(
+                s3FileObjectPath,
+                () -> {
+                    fileDriver.createFolder(s3FileObjectPath.getPathToObjectFolder());
+                    AccessControlPolicy acl = createDefaultAccessControlPolicy(s3User);
+                    if (metadataDriver instanceof AttachedMetadataDriver) {
+                        AttachedMetadataDriver attachedMetadataDriver = (AttachedMetadataDriver) metadataDriver;
+                        return entityDriver.putObject(s3FileObjectPath, content, metadata, (file, eTag) ->
+                                attachedMetadataDriver.attachObjectMetadata(file, metadata, eTag, acl));
+                    }
+                    S3Object s3Object = entityDriver.putObject(s3FileObjectPath, content, metadata, (file, eTag) -> {});
+                    metadataDriver.putObjectMetadata(s3FileObjectPath, metadata, s3Object.getETag(), acl);
+                    return s3Object;
+                }
+            );
+        } finally {
+            authorizationCache.invalidateObject(s3FileObjectPath);
+        }
+    }
+
+    @Override
+    public Path createTmpFile(S3FileObjectPath s3FileObjectPath, String uploadId) throws S3Exception {
+        return entityDriver.createTmpFile(s3FileObjectPath, uploadId);
     }
 
     @Override
     public void deleteObject(S3FileObjectPath s3FileObjectPath) throws S3Exception {
         fileDriver.checkObject(s3FileObjectPath);
-        entityLockDriver.deleteObject(s3FileObjectPath, () -> entityDriver.deleteObject(s3FileObjectPath));
+        try {
+            entityLockDriver.deleteObject(s3FileObjectPath, () -> entityDriver.deleteObject(s3FileObjectPath));
+        } finally {
+            authorizationCache.invalidateObject(s3FileObjectPath);
+        }
     }
 
     @Override
     public void deleteBucket(S3FileBucketPath s3FileBucketPath) throws S3Exception {
-        entityLockDriver.writeBucket(s3FileBucketPath, () -> entityDriver.deleteBucket(s3FileBucketPath));
+        try {
+            entityLockDriver.writeBucket(s3FileBucketPath, () -> {
+                entityDriver.deleteBucket(s3FileBucketPath);
+                bucketOwnerIndex.remove(s3FileBucketPath.getBucket());
+            });
+        } finally {
+            authorizationCache.invalidateBucket(s3FileBucketPath);
+        }
     }
 
     @Override
     public ListBucketV2Result getBucketObjectsV2(S3FileBucketPath s3FileBucketPath,
                                                  GetBucketObjectsV2 getBucketObjectsV2) throws S3Exception {
         ListBucketV2ResultRaw rawResult = entityDriver.getBucketObjectsV2(getBucketObjectsV2);
-        List<S3Content> s3Contents = makeContents(rawResult.getS3FileObjectsPaths());
+        Iterator<S3Content> s3Contents = makeContents(rawResult.getS3FileObjectsPaths(),
+                getBucketObjectsV2.isFetchOwner());
         return ListBucketV2Result.builder()
                 .setMaxKeys(getBucketObjectsV2.getMaxKeys())
                 .setName(getBucketObjectsV2.getBucket())
@@ -366,7 +425,7 @@ public class S3FileDriverImpl implements S3Driver {
     @Override
     public ListBucketResult getBucketObjects(GetBucketObjects getBucketObjects) throws S3Exception {
         ListBucketResultRaw rawResult = entityDriver.getBucketObjects(getBucketObjects);
-        List<S3Content> s3Contents = makeContents(rawResult.getS3FileObjectsPaths());
+        Iterator<S3Content> s3Contents = makeContents(rawResult.getS3FileObjectsPaths(), true);
         return ListBucketResult.builder()
                 .setMaxKeys(getBucketObjects.getMaxKeys())
                 .setName(getBucketObjects.getBucket())
@@ -382,36 +441,11 @@ public class S3FileDriverImpl implements S3Driver {
 
     @Override
     public GetBucketsResult getBuckets(S3User s3User) throws S3Exception {
-        List<Pair<S3FileBucketPath, String>> buckets = entityDriver.getBuckets(s3User);
-        ExecutorService executorService = Executors.newFixedThreadPool(3);
-        List<Future<Pair<S3FileBucketPath, Pair<AccessControlPolicy, String>>>> bucketsWithAclFutures = buckets.stream()
-                .map(pair -> executorService.submit(() -> {
-                    AccessControlPolicy acl = entityLockDriver.readMeta(
-                        pair.getFirst().getPathToBucket(),
-                        pair.getFirst().getPathToBucketMetadataFolder(),
-                        pair.getFirst().getPathToBucketAclFile(),
-                        () -> aclDriver.getBucketAcl(pair.getFirst())
-                    );
-                    return Pair.of(pair.getFirst(), Pair.of(acl, pair.getSecond()));
-                }))
-                .collect(Collectors.toList());
-        List<Pair<String, String>> bucketsFiltered = new ArrayList<>();
-        for (Future<Pair<S3FileBucketPath, Pair<AccessControlPolicy, String>>> bucketWithAclFuture :
-                bucketsWithAclFutures) {
-            try {
-                Pair<S3FileBucketPath, Pair<AccessControlPolicy, String>> bucketWithAcl = bucketWithAclFuture.get();
-                AccessControlPolicy acl = bucketWithAcl.getSecond().getFirst();
-                if (s3User.getCanonicalUserId().equals(acl.getOwner().getId()) &&
-                    s3User.getAccountName().equals(acl.getOwner().getDisplayName())) {
-                    bucketsFiltered.add(Pair.of(bucketWithAcl.getFirst().getBucket(),
-                            bucketWithAcl.getSecond().getSecond()));
-                }
-            } catch (InterruptedException | ExecutionException e) {
-                throw S3Exception.INTERNAL_ERROR(e);
-            }
-        }
+        List<Pair<String, String>> buckets = bucketOwnerIndex.getBuckets(s3User.getCanonicalUserId(),
+                s3User.getAccountName(), bucket -> fileDriver.isFolderExists(
+                        fileDriver.buildPathToBucket(bucket).getPathToBucket()));
         return GetBucketsResult.builder()
-                .setBuckets(bucketsFiltered)
+                .setBuckets(buckets)
                 .setOwner(Owner.builder()
                         .setDisplayName(s3User.getAccountName())
                         .setId(s3User.getCanonicalUserId())
@@ -464,6 +498,22 @@ public class S3FileDriverImpl implements S3Driver {
         );
     }
 
+    @Override
+    public String putUploadPart(S3FileObjectPath s3FileObjectPath, String uploadId, int partNumber,
+                                StreamedContent content) throws S3Exception {
+        String pathToUpload = s3FileObjectPath.getPathToObjectUploadFolder(uploadId);
+        if (!fileDriver.isFolderExists(pathToUpload)) {
+            throw S3Exception.NO_SUCH_UPLOAD(uploadId);
+        }
+        return entityLockDriver.writeUpload(
+            s3FileObjectPath.getPathToBucket(),
+            s3FileObjectPath.getPathToObjectMetadataFolder(),
+            pathToUpload,
+            s3FileObjectPath.getPathToObjectUploadPart(uploadId, partNumber),
+            () -> entityDriver.putUploadPart(s3FileObjectPath, uploadId, partNumber, content)
+        );
+    }
+
     @Override
     public String completeMultipartUpload(S3FileObjectPath s3FileObjectPath, String uploadId, List<Part> parts,
                                           S3User s3User) throws S3Exception {
@@ -474,26 +524,20 @@ public class S3FileDriverImpl implements S3Driver {
                     .setMessage("No parts to complete multipart upload")
                     .build();
         }
-        File file = new File(s3FileObjectPath.getPathToObject());
-        if (!file.exists()) {
-            try {
-                if (!file.createNewFile()) {
-                    throw S3Exception.INTERNAL_ERROR("Can't create file : " + s3FileObjectPath.getPathToObject());
-                }
-            } catch (IOException exception) {
-                throw S3Exception.INTERNAL_ERROR(exception);
-            }
+        try {
+            return entityLockDriver.completeUpload(
+                    s3FileObjectPath,
+                    s3FileObjectPath.getPathToObjectUploadFolder(uploadId),
+                    () -> {
+                        String eTag = entityDriver.completeMultipartUpload(s3FileObjectPath, uploadId, parts);
+                        metadataDriver.putObjectMetadata(s3FileObjectPath, Map.of(), eTag,
+                                createDefaultAccessControlPolicy(s3User));
+                        return eTag;
+                    }
+            );
+        } finally {
+            authorizationCache.invalidateObject(s3FileObjectPath);
         }
-        return entityLockDriver.completeUpload(
-                s3FileObjectPath,
-                s3FileObjectPath.getPathToObjectUploadFolder(uploadId),
-                () -> {
-                    String eTag = entityDriver.completeMultipartUpload(s3FileObjectPath, uploadId, parts);
-                    metadataDriver.putObjectMetadata(s3FileObjectPath, Map.of(), eTag);
-                    aclDriver.putObjectAcl(s3FileObjectPath, createDefaultAccessControlPolicy(s3User));
-                    return eTag;
-                }
-        );
     }
 
     @Override
@@ -501,51 +545,91 @@ public class S3FileDriverImpl implements S3Driver {
         return fileDriver.buildPathToObject(bucketKeyToObject);
     }
 
-    private List<S3Content> makeContents(List<S3FileObjectPath> s3FileObjectPaths) {
-        ExecutorService executorService = Executors.newFixedThreadPool(3);
-        List<Future<S3ObjectETag>> s3objectETagFutures = s3FileObjectPaths.stream()
-                .map(s3FileObjectPath -> executorService.submit(() -> {
-                    Map<String, String> metaData = entityLockDriver.readMeta(
-                            s3FileObjectPath.getPathToBucket(),
-                            s3FileObjectPath.getPathToObjectMetadataFolder(),
-                            s3FileObjectPath.getPathToObjectMetaFile(),
-                            () -> metadataDriver.getObjectMetadata(s3FileObjectPath)
-                    );
-                    return new S3ObjectETag(metaData.get(FileMetadataDriver.ETAG), s3FileObjectPath);
-                }))
-                .collect(Collectors.toList());
-        List<S3ObjectETag> s3ObjectETags = new ArrayList<>();
-        for (Future<S3ObjectETag> s3ObjectETagFuture : s3objectETagFutures) {
-            try {
-                s3ObjectETags.add(s3ObjectETagFuture.get());
-            } catch (InterruptedException | ExecutionException e) {
-                throw S3Exception.INTERNAL_ERROR(e);
+    /**
+     * Contents are resolved while the response is written, at most {@link #LIST_WINDOW} batches ahead of it
+     */
+    private Iterator<S3Content> makeContents(List<S3FileObjectPath> s3FileObjectPaths, boolean fetchOwner) {
+        Iterator<S3ObjectSummary> summaries = inBatches(s3FileObjectPaths,
+                batch -> metadataDriver.getObjectSummaries(batch, fetchOwner));
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return summaries.hasNext();
             }
-        }
-        List<Future<S3Content>> s3ContentFutures = s3ObjectETags.stream()
-                .map(s3ObjectETag -> executorService.submit(() -> S3Content.builder()
-                        .setETag("\"" + s3ObjectETag.getETag() + "\"")
-                        .setKey(s3ObjectETag.getS3FileObjectPath().getKey())
-                        .setLastModified(DateTimeUtil.parseDateTimeISO(s3ObjectETag.getFile()))
-                        .setOwner(entityLockDriver.readMeta(
-                                s3ObjectETag.getS3FileObjectPath().getPathToBucket(),
-                                s3ObjectETag.getS3FileObjectPath().getPathToObjectMetadataFolder(),
-                                s3ObjectETag.getS3FileObjectPath().getPathToObjectAclFile(),
-                                () -> aclDriver.getObjectAcl(s3ObjectETag.getS3FileObjectPath()).getOwner()))
-                        .setSize(s3ObjectETag.getFile().length())
+
+            @Override
+            public S3Content next() {
+                S3ObjectSummary summary = summaries.next();
+                return S3Content.builder()
+                        .setETag("\"" + summary.getETag() + "\"")
+                        .setKey(summary.getS3FileObjectPath().getKey())
+                        .setLastModified(DateTimeUtil.parseDateTimeISO(summary.getLastModified()))
+                        .setOwner(summary.getOwner())
+                        .setSize(summary.getSize())
                         .setStorageClass("STANDART")
-                        .build()))
-                .collect(Collectors.toList());
-        List<S3Content> s3Contents = new ArrayList<>();
-        for (Future<S3Content> s3ContentFuture : s3ContentFutures) {
-            try {
-                s3Contents.add(s3ContentFuture.get());
-            } catch (InterruptedException | ExecutionException e) {
-                throw S3Exception.INTERNAL_ERROR(e);
+                        .build();
+            }
+        };
+    }
+
+    /**
+     * Reads the owners of all buckets, a bucket with an unreadable acl is left out of ListBuckets
+     */
+    private void indexBucketOwners() throws S3Exception {
+        List<Pair<S3FileBucketPath, String>> buckets = entityDriver.getBuckets(null);
+        inBatches(buckets, batch -> {
+            for (Pair<S3FileBucketPath, String> bucket : batch) {
+                try {
+                    AccessControlPolicy acl = entityLockDriver.readMeta(
+                            bucket.getFirst().getPathToBucket(),
+                            bucket.getFirst().getPathToBucketMetadataFolder(),
+                            bucket.getFirst().getPathToBucketAclFile(),
+                            () -> aclDriver.getBucketAcl(bucket.getFirst()));
+                    bucketOwnerIndex.put(bucket.getFirst().getBucket(), acl.getOwner(), bucket.getSecond());
+                } catch (S3Exception exception) {
+                    log.error("Can't read owner of bucket " + bucket.getFirst().getBucket(), exception);
+                }
             }
+            return Collections.emptyList();
+        }).forEachRemaining(ignored -> { });
+        log.info("Owners of {} buckets are indexed", buckets.size());
+    }
+
+    /**
+     * An object which is not completed by a multipart upload has only the part 1
+     */
+    private S3Object selectPart(S3Object s3Object, Integer partNumber) throws S3Exception {
+        if (partNumber == null) {
+            return s3Object;
+        }
+        PartLayout layout = entityDriver.getPartLayout(s3Object.getS3Path(), s3Object.getETag());
+        if (layout == null) {
+            if (partNumber != 1) {
+                throw S3Exception.INVALID_PART_NUMBER(partNumber);
+            }
+            return s3Object;
+        }
+        ObjectPart part = layout.getPart(partNumber);
+        if (part == null) {
+            throw S3Exception.INVALID_PART_NUMBER(partNumber);
         }
-        executorService.shutdown();
-        return s3Contents;
+        s3Object.setBody(s3Object.getBody().slice(part.getOffset(), part.getSize()));
+        return s3Object.setPartsCount(layout.getPartsCount());
+    }
+
+    /**
+     * Opens the body while the object is locked, so it is read whole even if the object is rewritten
+     */
+    private void openBody(S3Object s3Object) throws S3Exception {
+        try {
+            s3Object.getBody().open();
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
+    private <T, R> Iterator<R> inBatches(List<T> items, Function<List<T>, List<R>> batch) {
+        return new BatchedIterator<>(items, batch, listingExecutor, LIST_BATCH_SIZE, LIST_WINDOW);
     }
 
     private AccessControlPolicy createDefaultAccessControlPolicy(S3User s3User) {
@@ -566,23 +650,4 @@ public class S3FileDriverImpl implements S3Driver {
                 ))
                 .build();
     }
-
-    private boolean match(String first, String second)
-    {
-        if (first.length() == 0 && second.length() == 0)
-            return true;
-
-        if (first.length() > 1 && first.charAt(0) == '*' &&
-                second.length() == 0)
-            return false;
-
-        if ((first.length() != 0 && second.length() != 0 &&
-                        first.charAt(0) == second.charAt(0)))
-            return match(first.substring(1), second.substring(1));
-
-        if (first.length() > 0 && first.charAt(0) == '*')
-            return match(first.substring(1), second) ||
-                   match(first, second.substring(1));
-        return false;
-    }
 }
@@ -0,0 +1,19 @@
+package com.thorinhood.drivers.metadata;
+
+import com.thorinhood.data.acl.AccessControlPolicy;
+import com.thorinhood.exceptions.S3Exception;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Metadata driver which stores metadata on the object file itself, so it commits together with the object
+ */
+public interface AttachedMetadataDriver extends MetadataDriver {
+
+    /**
+     * Stores metadata on a not yet committed object file
+     */
+    void attachObjectMetadata(Path objectFile, Map<String, String> metadata, String eTag, AccessControlPolicy acl)
+            throws S3Exception;
+}
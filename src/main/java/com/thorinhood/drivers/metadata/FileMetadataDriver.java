@@ -1,13 +1,19 @@
 package com.thorinhood.drivers.metadata;
 
 import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.acl.AccessControlPolicy;
+import com.thorinhood.data.s3object.S3ObjectSummary;
 import com.thorinhood.drivers.FileDriver;
+import com.thorinhood.drivers.acl.FileAclDriver;
 import com.thorinhood.exceptions.S3Exception;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,13 +21,17 @@ public class FileMetadataDriver extends FileDriver implements MetadataDriver {
 
     public static final String ETAG = " (additional) etag";
 
+    private final FileAclDriver fileAclDriver;
+
     public FileMetadataDriver(String baseFolderPath, String configFolderPath, String usersFolderPath) {
         super(baseFolderPath, configFolderPath, usersFolderPath);
+        fileAclDriver = new FileAclDriver(baseFolderPath, configFolderPath, usersFolderPath);
     }
 
     @Override
     public void putObjectMetadata(S3FileObjectPath s3FileObjectPath, Map<String, String> metadata, String eTag)
             throws S3Exception {
+        createFolder(s3FileObjectPath.getPathToObjectMetadataFolder());
         File file = new File(s3FileObjectPath.getPathToObjectMetaFile());
         StringBuilder content = new StringBuilder();
         if (metadata != null) {
@@ -35,33 +45,57 @@ public class FileMetadataDriver extends FileDriver implements MetadataDriver {
         commitFile(source, file.toPath());
     }
 
+    @Override
+    public void putObjectMetadata(S3FileObjectPath s3FileObjectPath, Map<String, String> metadata, String eTag,
+                                  AccessControlPolicy acl) throws S3Exception {
+        putObjectMetadata(s3FileObjectPath, metadata, eTag);
+        File aclFile = new File(s3FileObjectPath.getPathToObjectAclFile());
+        Path source = createPreparedTmpFile(new File(s3FileObjectPath.getPathToObjectMetadataFolder()).toPath(),
+                aclFile.toPath(), acl.buildXmlBytes());
+        commitFile(source, aclFile.toPath());
+    }
+
     @Override
     public Map<String, String> getObjectMetadata(S3FileObjectPath s3FileObjectPath) throws S3Exception {
-        File file = new File(s3FileObjectPath.getPathToObjectMetaFile());
-        if (!file.exists()) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(Path.of(s3FileObjectPath.getPathToObjectMetaFile()));
+        } catch (NoSuchFileException exception) {
             return Map.of();
+        } catch (IOException e) {
+            throw S3Exception.INTERNAL_ERROR(e);
         }
         Map<String, String> metadata = new HashMap<>();
-        StringBuilder currentLine = new StringBuilder();
+        String content = new String(bytes, StandardCharsets.ISO_8859_1);
+        int lineStart = 0;
         String keyMeta = null;
-        try (FileInputStream reader = new FileInputStream(file.getAbsolutePath())) {
-            int currentInt;
-            while((currentInt = reader.read()) != -1){
-                char currentChar = (char) currentInt;
-                if (currentChar == '=') {
-                    keyMeta = currentLine.toString();
-                    currentLine.setLength(0);
-                } else if (currentChar == '\n') {
-                    metadata.put(keyMeta, currentLine.toString());
-                    currentLine.setLength(0);
-                } else {
-                    currentLine.append(currentChar);
-                }
+        for (int i = 0; i < content.length(); i++) {
+            char currentChar = content.charAt(i);
+            if (currentChar == '=') {
+                keyMeta = content.substring(lineStart, i);
+                lineStart = i + 1;
+            } else if (currentChar == '\n') {
+                metadata.put(keyMeta, content.substring(lineStart, i));
+                lineStart = i + 1;
             }
-        } catch (IOException e) {
-            throw S3Exception.INTERNAL_ERROR(e);
         }
         return metadata;
     }
 
+    @Override
+    public S3ObjectSummary getObjectSummary(S3FileObjectPath s3FileObjectPath, boolean fetchOwner)
+            throws S3Exception {
+        BasicFileAttributes attributes = readObjectAttributes(s3FileObjectPath);
+        if (attributes == null) {
+            return null;
+        }
+        return S3ObjectSummary.builder()
+                .setS3FileObjectPath(s3FileObjectPath)
+                .setETag(getObjectMetadata(s3FileObjectPath).get(ETAG))
+                .setSize(attributes.size())
+                .setLastModified(attributes.lastModifiedTime().toMillis())
+                .setOwner(fetchOwner ? fileAclDriver.getObjectOwner(s3FileObjectPath) : null)
+                .build();
+    }
+
 }
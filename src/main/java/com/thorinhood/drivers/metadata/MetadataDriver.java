@@ -1,12 +1,39 @@
 package com.thorinhood.drivers.metadata;
 
 import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.acl.AccessControlPolicy;
+import com.thorinhood.data.s3object.S3ObjectSummary;
 import com.thorinhood.exceptions.S3Exception;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public interface MetadataDriver {
     void putObjectMetadata(S3FileObjectPath s3FileObjectPath, Map<String, String> metadata, String eTag)
             throws S3Exception;
+    void putObjectMetadata(S3FileObjectPath s3FileObjectPath, Map<String, String> metadata, String eTag,
+                           AccessControlPolicy acl) throws S3Exception;
     Map<String, String> getObjectMetadata(S3FileObjectPath s3FileObjectPath) throws S3Exception;
+
+    /**
+     * ETag, size and last modification of the object with one read of its metadata, the owner only if fetchOwner
+     * @return null if the object is deleted
+     */
+    S3ObjectSummary getObjectSummary(S3FileObjectPath s3FileObjectPath, boolean fetchOwner) throws S3Exception;
+
+    /**
+     * Summaries of a page of a listing, deleted objects are skipped
+     */
+    default List<S3ObjectSummary> getObjectSummaries(List<S3FileObjectPath> s3FileObjectPaths, boolean fetchOwner)
+            throws S3Exception {
+        List<S3ObjectSummary> summaries = new ArrayList<>(s3FileObjectPaths.size());
+        for (S3FileObjectPath s3FileObjectPath : s3FileObjectPaths) {
+            S3ObjectSummary summary = getObjectSummary(s3FileObjectPath, fetchOwner);
+            if (summary != null) {
+                summaries.add(summary);
+            }
+        }
+        return summaries;
+    }
 }
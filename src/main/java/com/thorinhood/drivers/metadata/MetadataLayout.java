@@ -0,0 +1,16 @@
+package com.thorinhood.drivers.metadata;
+
+public enum MetadataLayout {
+    /**
+     * .#name folder with name.meta and name.acl files next to every object
+     */
+    FILES,
+    /**
+     * One binary .@name record with metadata and ACL next to every object
+     */
+    RECORD,
+    /**
+     * Binary record in the user.s3.record extended attribute of every object
+     */
+    XATTR
+}
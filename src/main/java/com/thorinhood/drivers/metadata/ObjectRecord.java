@@ -0,0 +1,181 @@
+package com.thorinhood.drivers.metadata;
+
+import com.thorinhood.data.Owner;
+import com.thorinhood.data.acl.AccessControlPolicy;
+import com.thorinhood.data.acl.Grant;
+import com.thorinhood.data.acl.Grantee;
+import com.thorinhood.data.acl.Permission;
+import com.thorinhood.exceptions.S3Exception;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metadata and ACL of an object in one binary record:
+ * magic, version, ETag, user metadata, owner and grants. Strings are UTF-8 with an int length, -1 for null.
+ */
+public class ObjectRecord {
+
+    private static final int MAGIC = 0x53334D52;
+    private static final byte VERSION = 1;
+
+    private String eTag;
+    private Map<String, String> metadata;
+    private AccessControlPolicy acl;
+
+    public static ObjectRecord decode(byte[] bytes) throws S3Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw S3Exception.INTERNAL_ERROR("Metadata record is corrupt");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw S3Exception.INTERNAL_ERROR("Unknown metadata record version : " + version);
+            }
+            Builder builder = builder().setETag(readString(buffer));
+            int metadataSize = buffer.getInt();
+            Map<String, String> metadata = new HashMap<>();
+            for (int i = 0; i < metadataSize; i++) {
+                metadata.put(readString(buffer), readString(buffer));
+            }
+            builder.setMetadata(metadata);
+            Owner owner = Owner.builder()
+                    .setId(readString(buffer))
+                    .setDisplayName(readString(buffer))
+                    .build();
+            int grantsSize = buffer.getInt();
+            List<Grant> grants = new ArrayList<>(grantsSize);
+            for (int i = 0; i < grantsSize; i++) {
+                Grantee grantee = Grantee.builder()
+                        .setType(readString(buffer))
+                        .setId(readString(buffer))
+                        .setDisplayName(readString(buffer))
+                        .setEmailAddress(readString(buffer))
+                        .build();
+                String permission = readString(buffer);
+                grants.add(Grant.builder()
+                        .setGrantee(grantee)
+                        .setPermission(permission != null ? Permission.valueOf(permission) : null)
+                        .build());
+            }
+            return builder.setAcl(AccessControlPolicy.builder()
+                            .setOwner(owner)
+                            .setAccessControlList(grants)
+                            .build())
+                    .build();
+        } catch (BufferUnderflowException | IllegalArgumentException exception) {
+            throw S3Exception.INTERNAL_ERROR("Metadata record is corrupt");
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private ObjectRecord() {
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    public AccessControlPolicy getAcl() {
+        return acl;
+    }
+
+    public byte[] encode() throws S3Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writeString(out, eTag);
+            out.writeInt(metadata != null ? metadata.size() : 0);
+            if (metadata != null) {
+                for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                }
+            }
+            Owner owner = acl != null ? acl.getOwner() : null;
+            writeString(out, owner != null ? owner.getId() : null);
+            writeString(out, owner != null ? owner.getDisplayName() : null);
+            List<Grant> grants = acl != null && acl.getAccessControlList() != null ? acl.getAccessControlList() :
+                    List.of();
+            out.writeInt(grants.size());
+            for (Grant grant : grants) {
+                Grantee grantee = grant.getGrantee();
+                writeString(out, grantee != null ? grantee.getType() : null);
+                writeString(out, grantee != null ? grantee.getId() : null);
+                writeString(out, grantee != null ? grantee.getDisplayName() : null);
+                writeString(out, grantee != null ? grantee.getEmailAddress() : null);
+                writeString(out, grant.getPermission() != null ? grant.getPermission().name() : null);
+            }
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    public static class Builder {
+        private final ObjectRecord objectRecord;
+
+        public Builder() {
+            objectRecord = new ObjectRecord();
+        }
+
+        public Builder setETag(String eTag) {
+            objectRecord.eTag = eTag;
+            return this;
+        }
+
+        public Builder setMetadata(Map<String, String> metadata) {
+            objectRecord.metadata = metadata;
+            return this;
+        }
+
+        public Builder setAcl(AccessControlPolicy acl) {
+            objectRecord.acl = acl;
+            return this;
+        }
+
+        public ObjectRecord build() {
+            return objectRecord;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.thorinhood.drivers.metadata;
+
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.exceptions.S3Exception;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * {@link MetadataLayout#RECORD} layout: the {@link ObjectRecord} of an object is a .@name file next to the object,
+ * every change rewrites the whole record with one rename.
+ */
+public class RecordMetadataDriver extends RecordMetadataDriverAbstract {
+
+    public RecordMetadataDriver(String baseFolderPath, String configFolderPath, String usersFolderPath) {
+        super(baseFolderPath, configFolderPath, usersFolderPath);
+    }
+
+    @Override
+    protected ObjectRecord readRecord(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(Path.of(s3FileObjectPath.getPathToObjectRecordFile()));
+        } catch (NoSuchFileException exception) {
+            return null;
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+        return ObjectRecord.decode(bytes);
+    }
+
+    @Override
+    protected void writeRecord(S3FileObjectPath s3FileObjectPath, ObjectRecord record) throws S3Exception {
+        Path recordFile = Path.of(s3FileObjectPath.getPathToObjectRecordFile());
+        Path source = createPreparedTmpFile(Path.of(s3FileObjectPath.getPathToBucketMetadataFolder()), recordFile,
+                record.encode());
+        commitFile(source, recordFile);
+    }
+
+    @Override
+    protected File getRecordFile(S3FileObjectPath s3FileObjectPath) {
+        return new File(s3FileObjectPath.getPathToObjectRecordFile());
+    }
+}
@@ -0,0 +1,187 @@
+package com.thorinhood.drivers.metadata;
+
+import com.thorinhood.data.Owner;
+import com.thorinhood.data.S3FileBucketPath;
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.S3FileStatic;
+import com.thorinhood.data.acl.AccessControlPolicy;
+import com.thorinhood.data.s3object.S3ObjectSummary;
+import com.thorinhood.drivers.FileDriver;
+import com.thorinhood.drivers.acl.AclDriver;
+import com.thorinhood.drivers.acl.FileAclDriver;
+import com.thorinhood.exceptions.S3Exception;
+import com.thorinhood.utils.DateTimeUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Layouts that keep metadata and ACL of an object in one {@link ObjectRecord}. Objects written with the
+ * {@link MetadataLayout#FILES} layout are still read from their .meta and .acl files and are converted when they are
+ * changed or by {@link #migrate()}. Bucket ACLs stay in the files of the bucket.
+ */
+public abstract class RecordMetadataDriverAbstract extends FileDriver implements MetadataDriver, AclDriver {
+
+    private static final Logger log = LogManager.getLogger(RecordMetadataDriverAbstract.class);
+
+    protected final FileMetadataDriver fileMetadataDriver;
+    protected final FileAclDriver fileAclDriver;
+
+    protected RecordMetadataDriverAbstract(String baseFolderPath, String configFolderPath, String usersFolderPath) {
+        super(baseFolderPath, configFolderPath, usersFolderPath);
+        fileMetadataDriver = new FileMetadataDriver(baseFolderPath, configFolderPath, usersFolderPath);
+        fileAclDriver = new FileAclDriver(baseFolderPath, configFolderPath, usersFolderPath);
+    }
+
+    /**
+     * @return null if the object has no record
+     */
+    protected abstract ObjectRecord readRecord(S3FileObjectPath s3FileObjectPath) throws S3Exception;
+
+    protected abstract void writeRecord(S3FileObjectPath s3FileObjectPath, ObjectRecord record) throws S3Exception;
+
+    /**
+     * File whose modification time is the last modification of the record
+     */
+    protected abstract File getRecordFile(S3FileObjectPath s3FileObjectPath);
+
+    @Override
+    public void putObjectMetadata(S3FileObjectPath s3FileObjectPath, Map<String, String> metadata, String eTag)
+            throws S3Exception {
+        putObjectMetadata(s3FileObjectPath, metadata, eTag, getObjectAcl(s3FileObjectPath));
+    }
+
+    @Override
+    public void putObjectMetadata(S3FileObjectPath s3FileObjectPath, Map<String, String> metadata, String eTag,
+                                  AccessControlPolicy acl) throws S3Exception {
+        writeRecord(s3FileObjectPath, ObjectRecord.builder()
+                .setETag(eTag)
+                .setMetadata(metadata)
+                .setAcl(acl)
+                .build());
+        File metadataFolder = new File(s3FileObjectPath.getPathToObjectMetadataFolder());
+        if (isFolderExists(metadataFolder)) {
+            deleteFile(s3FileObjectPath.getPathToObjectMetaFile());
+            deleteFile(s3FileObjectPath.getPathToObjectAclFile());
+            // the folder stays while it has multipart uploads
+            metadataFolder.delete();
+        }
+    }
+
+    @Override
+    public Map<String, String> getObjectMetadata(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        ObjectRecord record = readRecord(s3FileObjectPath);
+        if (record == null) {
+            return fileMetadataDriver.getObjectMetadata(s3FileObjectPath);
+        }
+        Map<String, String> metadata = new HashMap<>(record.getMetadata());
+        metadata.put(FileMetadataDriver.ETAG, record.getETag());
+        return metadata;
+    }
+
+    @Override
+    public S3ObjectSummary getObjectSummary(S3FileObjectPath s3FileObjectPath, boolean fetchOwner)
+            throws S3Exception {
+        BasicFileAttributes attributes = readObjectAttributes(s3FileObjectPath);
+        if (attributes == null) {
+            return null;
+        }
+        ObjectRecord record = readRecord(s3FileObjectPath);
+        if (record == null) {
+            return fileMetadataDriver.getObjectSummary(s3FileObjectPath, fetchOwner);
+        }
+        return S3ObjectSummary.builder()
+                .setS3FileObjectPath(s3FileObjectPath)
+                .setETag(record.getETag())
+                .setSize(attributes.size())
+                .setLastModified(attributes.lastModifiedTime().toMillis())
+                .setOwner(fetchOwner ? record.getAcl().getOwner() : null)
+                .build();
+    }
+
+    @Override
+    public String putObjectAcl(S3FileObjectPath s3FileObjectPath, AccessControlPolicy acl) throws S3Exception {
+        Map<String, String> metadata = new HashMap<>(getObjectMetadata(s3FileObjectPath));
+        String eTag = metadata.remove(FileMetadataDriver.ETAG);
+        putObjectMetadata(s3FileObjectPath, metadata, eTag, acl);
+        return DateTimeUtil.parseDateTime(getRecordFile(s3FileObjectPath));
+    }
+
+    @Override
+    public AccessControlPolicy getObjectAcl(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        ObjectRecord record = readRecord(s3FileObjectPath);
+        if (record == null) {
+            return fileAclDriver.getObjectAcl(s3FileObjectPath);
+        }
+        return record.getAcl();
+    }
+
+    @Override
+    public Owner getObjectOwner(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        ObjectRecord record = readRecord(s3FileObjectPath);
+        if (record == null) {
+            return fileAclDriver.getObjectOwner(s3FileObjectPath);
+        }
+        return record.getAcl().getOwner();
+    }
+
+    @Override
+    public void putBucketAcl(S3FileBucketPath s3FileBucketPath, AccessControlPolicy acl) throws S3Exception {
+        fileAclDriver.putBucketAcl(s3FileBucketPath, acl);
+    }
+
+    @Override
+    public AccessControlPolicy getBucketAcl(S3FileBucketPath s3FileBucketPath) throws S3Exception {
+        return fileAclDriver.getBucketAcl(s3FileBucketPath);
+    }
+
+    @Override
+    public AccessControlPolicy parseFromBytes(byte[] bytes) throws S3Exception {
+        return fileAclDriver.parseFromBytes(bytes);
+    }
+
+    /**
+     * Converts every object of the {@link MetadataLayout#FILES} layout to a record. Must run before the server
+     * accepts requests
+     */
+    public int migrate() throws S3Exception {
+        Path base = Path.of(BASE_FOLDER_PATH);
+        List<Path> metadataFolders;
+        try (Stream<Path> tree = Files.walk(base)) {
+            metadataFolders = tree.filter(path -> !path.getParent().equals(base) && isMetadataFolder(path))
+                    .collect(Collectors.toList());
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+        int migrated = 0;
+        for (Path metadataFolder : metadataFolders) {
+            String name = metadataFolder.getFileName().toString()
+                    .substring(S3FileStatic.METADATA_FOLDER_PREFIX.length());
+            Path object = metadataFolder.resolveSibling(name);
+            if (!isFileExists(object)) {
+                continue;
+            }
+            S3FileObjectPath s3FileObjectPath = buildPathToObject(base.relativize(object).toString());
+            if (!isFileExists(s3FileObjectPath.getPathToObjectMetaFile()) ||
+                    !isFileExists(s3FileObjectPath.getPathToObjectAclFile())) {
+                continue;
+            }
+            Map<String, String> metadata = new HashMap<>(fileMetadataDriver.getObjectMetadata(s3FileObjectPath));
+            String eTag = metadata.remove(FileMetadataDriver.ETAG);
+            putObjectMetadata(s3FileObjectPath, metadata, eTag, fileAclDriver.getObjectAcl(s3FileObjectPath));
+            migrated++;
+        }
+        log.info("Metadata of {} objects is migrated to records", migrated);
+        return migrated;
+    }
+}
@@ -0,0 +1,88 @@
+package com.thorinhood.drivers.metadata;
+
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.S3FileStatic;
+import com.thorinhood.data.acl.AccessControlPolicy;
+import com.thorinhood.exceptions.S3Exception;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.Map;
+
+/**
+ * {@link MetadataLayout#XATTR} layout: the {@link ObjectRecord} of an object is the user.s3.record extended attribute
+ * of the object file. A put writes the attribute on the tmp file, so data and metadata commit with one rename.
+ */
+public class XattrMetadataDriver extends RecordMetadataDriverAbstract implements AttachedMetadataDriver {
+
+    // ext4 keeps an attribute value in one block
+    private static final int RECORD_BUFFER_SIZE = 4096;
+
+    public XattrMetadataDriver(String baseFolderPath, String configFolderPath, String usersFolderPath) {
+        super(baseFolderPath, configFolderPath, usersFolderPath);
+    }
+
+    @Override
+    public void attachObjectMetadata(Path objectFile, Map<String, String> metadata, String eTag,
+                                     AccessControlPolicy acl) throws S3Exception {
+        writeAttribute(objectFile, ObjectRecord.builder()
+                .setETag(eTag)
+                .setMetadata(metadata)
+                .setAcl(acl)
+                .build());
+    }
+
+    @Override
+    protected ObjectRecord readRecord(S3FileObjectPath s3FileObjectPath) throws S3Exception {
+        UserDefinedFileAttributeView view = getView(Path.of(s3FileObjectPath.getPathToObject()));
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_BUFFER_SIZE);
+            try {
+                view.read(S3FileStatic.METADATA_ATTRIBUTE, buffer);
+            } catch (FileSystemException exception) {
+                if (!view.list().contains(S3FileStatic.METADATA_ATTRIBUTE)) {
+                    return null;
+                }
+                buffer = ByteBuffer.allocate(view.size(S3FileStatic.METADATA_ATTRIBUTE));
+                view.read(S3FileStatic.METADATA_ATTRIBUTE, buffer);
+            }
+            byte[] bytes = new byte[buffer.position()];
+            buffer.flip().get(bytes);
+            return ObjectRecord.decode(bytes);
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR(exception);
+        }
+    }
+
+    @Override
+    protected void writeRecord(S3FileObjectPath s3FileObjectPath, ObjectRecord record) throws S3Exception {
+        writeAttribute(Path.of(s3FileObjectPath.getPathToObject()), record);
+    }
+
+    @Override
+    protected File getRecordFile(S3FileObjectPath s3FileObjectPath) {
+        return new File(s3FileObjectPath.getPathToObject());
+    }
+
+    private void writeAttribute(Path file, ObjectRecord record) throws S3Exception {
+        try {
+            getView(file).write(S3FileStatic.METADATA_ATTRIBUTE, ByteBuffer.wrap(record.encode()));
+        } catch (IOException exception) {
+            throw S3Exception.INTERNAL_ERROR("Can't write metadata attribute of " + file + " : " +
+                    exception.getMessage());
+        }
+    }
+
+    private UserDefinedFileAttributeView getView(Path file) throws S3Exception {
+        UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+        if (view == null) {
+            throw S3Exception.INTERNAL_ERROR("Extended attributes are not supported : " + file);
+        }
+        return view;
+    }
+}
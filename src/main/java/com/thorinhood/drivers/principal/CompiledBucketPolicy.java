@@ -0,0 +1,148 @@
+package com.thorinhood.drivers.principal;
+
+import com.thorinhood.data.policy.BucketPolicy;
+import com.thorinhood.data.policy.Statement;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bucket policy prepared for evaluation: patterns are compiled to {@link GlobMatcher}, statements are indexed by
+ * literal actions and principals, statements with wildcards are kept in separate lists. Statements that can apply to
+ * a pair of method and principal are found once and remembered, so a request only checks their resources.
+ * The first statement in the policy order that applies decides, like before.
+ */
+public class CompiledBucketPolicy {
+
+    private static final String RESOURCE_PREFIX = "arn:aws:s3:::";
+    private static final int MAX_CACHED_CANDIDATES = 1024;
+    private static final CompiledStatement[] NO_STATEMENTS = new CompiledStatement[0];
+
+    private final BucketPolicy bucketPolicy;
+    private final CompiledStatement[] statements;
+    private final Map<String, BitSet> statementsByAction;
+    private final BitSet wildcardActionStatements;
+    private final Map<String, BitSet> statementsByPrincipal;
+    private final BitSet wildcardPrincipalStatements;
+    private final Map<String, CompiledStatement[]> candidates;
+
+    private CompiledBucketPolicy(BucketPolicy bucketPolicy) {
+        this.bucketPolicy = bucketPolicy;
+        List<Statement> policyStatements = bucketPolicy.getStatements() != null ? bucketPolicy.getStatements() :
+                List.of();
+        statements = new CompiledStatement[policyStatements.size()];
+        statementsByAction = new HashMap<>();
+        wildcardActionStatements = new BitSet();
+        statementsByPrincipal = new HashMap<>();
+        wildcardPrincipalStatements = new BitSet();
+        candidates = new ConcurrentHashMap<>();
+        for (int i = 0; i < statements.length; i++) {
+            Statement statement = policyStatements.get(i);
+            statements[i] = new CompiledStatement(statement);
+            index(i, statements[i].actions, statementsByAction, wildcardActionStatements);
+            index(i, statements[i].principals, statementsByPrincipal, wildcardPrincipalStatements);
+        }
+    }
+
+    public static CompiledBucketPolicy compile(BucketPolicy bucketPolicy) {
+        return new CompiledBucketPolicy(bucketPolicy);
+    }
+
+    public BucketPolicy getBucketPolicy() {
+        return bucketPolicy;
+    }
+
+    public Optional<Boolean> evaluate(String bucket, String key, String methodName, String arn) {
+        CompiledStatement[] applicable = getCandidates(methodName, arn);
+        if (applicable.length == 0) {
+            return Optional.empty();
+        }
+        String resource = RESOURCE_PREFIX + bucket + (key != null && !key.isEmpty() ? "/" + key : "");
+        for (CompiledStatement statement : applicable) {
+            if (statement.matchesResource(resource)) {
+                return Optional.of(statement.allow);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private CompiledStatement[] getCandidates(String methodName, String arn) {
+        String candidatesKey = methodName + '\n' + arn;
+        CompiledStatement[] result = candidates.get(candidatesKey);
+        if (result != null) {
+            return result;
+        }
+        BitSet byAction = union(statementsByAction.get(methodName), wildcardActionStatements);
+        BitSet byPrincipal = union(statementsByPrincipal.get(arn), wildcardPrincipalStatements);
+        BitSet smaller = byAction.cardinality() <= byPrincipal.cardinality() ? byAction : byPrincipal;
+        List<CompiledStatement> found = new ArrayList<>();
+        for (int i = smaller.nextSetBit(0); i >= 0; i = smaller.nextSetBit(i + 1)) {
+            if (matchesAny(statements[i].actions, methodName) && matchesAny(statements[i].principals, arn)) {
+                found.add(statements[i]);
+            }
+        }
+        result = found.isEmpty() ? NO_STATEMENTS : found.toArray(NO_STATEMENTS);
+        if (candidates.size() >= MAX_CACHED_CANDIDATES) {
+            candidates.clear();
+        }
+        candidates.put(candidatesKey, result);
+        return result;
+    }
+
+    private static void index(int statementIndex, GlobMatcher[] matchers, Map<String, BitSet> literals,
+                              BitSet wildcards) {
+        for (GlobMatcher matcher : matchers) {
+            if (matcher.isLiteral()) {
+                literals.computeIfAbsent(matcher.getPattern(), pattern -> new BitSet()).set(statementIndex);
+            } else {
+                wildcards.set(statementIndex);
+            }
+        }
+    }
+
+    private static BitSet union(BitSet literals, BitSet wildcards) {
+        BitSet result = (BitSet) wildcards.clone();
+        if (literals != null) {
+            result.or(literals);
+        }
+        return result;
+    }
+
+    private static boolean matchesAny(GlobMatcher[] matchers, String value) {
+        for (GlobMatcher matcher : matchers) {
+            if (matcher.matches(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static GlobMatcher[] compileAll(List<String> patterns) {
+        if (patterns == null) {
+            return new GlobMatcher[0];
+        }
+        GlobMatcher[] matchers = new GlobMatcher[patterns.size()];
+        for (int i = 0; i < matchers.length; i++) {
+            matchers[i] = GlobMatcher.compile(patterns.get(i));
+        }
+        return matchers;
+    }
+
+    private static class CompiledStatement {
+        private final boolean allow;
+        private final GlobMatcher[] principals;
+        private final GlobMatcher[] actions;
+        private final GlobMatcher[] resources;
+
+        private CompiledStatement(Statement statement) {
+            allow = Statement.EffectType.Allow.equals(statement.getEffect());
+            principals = compileAll(statement.getPrinciple() != null ? statement.getPrinciple().getAWS() : null);
+            actions = compileAll(statement.getAction());
+            resources = compileAll(statement.getResource());
+        }
+
+        private boolean matchesResource(String resource) {
+            return matchesAny(resources, resource);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.thorinhood.drivers.principal;
+
+import java.util.regex.Pattern;
+
+/**
+ * Pattern of a bucket policy where '*' matches any sequence of characters. The pattern is split by '*' once, a value
+ * is matched by anchoring the first and the last segment and finding the rest from left to right, leftmost match of
+ * every segment is always enough, so there is no backtracking.
+ */
+public class GlobMatcher {
+
+    private static final Pattern WILDCARD = Pattern.compile("\\*");
+
+    private final String pattern;
+    private final String[] segments;
+    private final int minLength;
+
+    private GlobMatcher(String pattern) {
+        this.pattern = pattern;
+        this.segments = WILDCARD.split(pattern, -1);
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.minLength = length;
+    }
+
+    public static GlobMatcher compile(String pattern) {
+        return new GlobMatcher(pattern);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean isLiteral() {
+        return segments.length == 1;
+    }
+
+    public boolean matches(String value) {
+        if (value == null) {
+            return false;
+        }
+        if (segments.length == 1) {
+            return pattern.equals(value);
+        }
+        if (value.length() < minLength) {
+            return false;
+        }
+        String first = segments[0];
+        String last = segments[segments.length - 1];
+        if (!value.startsWith(first) || !value.endsWith(last)) {
+            return false;
+        }
+        int position = first.length();
+        int end = value.length() - last.length();
+        for (int i = 1; i < segments.length - 1; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            int found = value.indexOf(segment, position);
+            if (found == -1 || found + segment.length() > end) {
+                return false;
+            }
+            position = found + segment.length();
+        }
+        return true;
+    }
+}
@@ -9,29 +9,60 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Users are kept in memory by access key, so the check of a request doesn't touch the disk. The users folder is
+ * polled in background and changes of identity.json files made outside of the driver are picked up by mtime and size.
+ */
 public class FileUserDriver extends FileDriver implements UserDriver {
 
     private static final Logger log = LogManager.getLogger(FileUserDriver.class);
     private static final String USER_FILE_NAME = "identity.json";
+    private static final long USERS_REFRESH_INTERVAL_MS = 1000;
 
     private final ObjectMapper objectMapper;
+    private final Map<String, CachedUser> users;
+    private final ScheduledExecutorService refresher;
 
     public FileUserDriver(String baseFolderPath, String configFolderPath, String usersFolderPath) {
         super(baseFolderPath, configFolderPath, usersFolderPath);
         this.objectMapper = new ObjectMapper();
+        this.users = new ConcurrentHashMap<>();
+        refreshUsers();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "users-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshUsers, USERS_REFRESH_INTERVAL_MS, USERS_REFRESH_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
     }
 
     @Override
     public void addUser(S3User s3User) throws S3Exception {
         String userFolderPath = USERS_FOLDER_PATH + File.separatorChar + s3User.getAccessKey();
         createFolder(userFolderPath);
+        Path userFile = getUserFile(s3User.getAccessKey());
         try {
-            objectMapper.writeValue(new File(userFolderPath + File.separatorChar + USER_FILE_NAME), s3User);
+            objectMapper.writeValue(userFile.toFile(), s3User);
         } catch (IOException exception) {
             throw S3Exception.INTERNAL_ERROR("Can't create user");
         }
+        BasicFileAttributes attributes = readAttributes(userFile);
+        users.put(s3User.getAccessKey(), new CachedUser(s3User, attributes));
     }
 
     @Override
@@ -51,22 +82,100 @@ public class FileUserDriver extends FileDriver implements UserDriver {
 
     @Override
     public Optional<S3User> getS3User(String accessKey) throws S3Exception {
-        String userPath = USERS_FOLDER_PATH + File.separatorChar + accessKey + File.separatorChar + USER_FILE_NAME;
-        File file = new File(userPath);
-        if (!file.exists() || !file.isFile()) {
-            return Optional.empty();
-        }
-        try {
-            return Optional.of(objectMapper.readValue(new File(userPath), S3User.class));
-        } catch (IOException exception) {
-            throw S3Exception.INTERNAL_ERROR("Can't get user");
-        }
+        CachedUser cachedUser = users.get(accessKey);
+        return cachedUser != null ? Optional.of(cachedUser.s3User) : Optional.empty();
     }
 
     @Override
     public void removeUser(String accessKey) throws S3Exception {
         String userPath = USERS_FOLDER_PATH + File.separatorChar + accessKey;
         deleteFolder(userPath);
+        users.remove(accessKey);
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private void refreshUsers() {
+        try {
+            Set<String> accessKeys = new HashSet<>();
+            File[] userFolders = new File(USERS_FOLDER_PATH).listFiles(File::isDirectory);
+            if (userFolders != null) {
+                for (File userFolder : userFolders) {
+                    accessKeys.add(userFolder.getName());
+                    refreshUser(userFolder.getName());
+                }
+            }
+            for (String accessKey : users.keySet()) {
+                if (!accessKeys.contains(accessKey)) {
+                    refreshUser(accessKey);
+                }
+            }
+        } catch (RuntimeException exception) {
+            log.error("Can't refresh users", exception);
+        }
+    }
+
+    /**
+     * Entries are replaced only if nobody changed them since they were read, so a concurrent addUser or removeUser
+     * is never overwritten with an older state of the disk
+     */
+    private void refreshUser(String accessKey) {
+        CachedUser cachedUser = users.get(accessKey);
+        Path userFile = getUserFile(accessKey);
+        BasicFileAttributes attributes = readAttributes(userFile);
+        if (attributes == null || !attributes.isRegularFile()) {
+            if (cachedUser != null) {
+                users.remove(accessKey, cachedUser);
+            }
+            return;
+        }
+        if (cachedUser != null && cachedUser.isActual(attributes)) {
+            return;
+        }
+        S3User s3User;
+        try {
+            s3User = objectMapper.readValue(userFile.toFile(), S3User.class);
+        } catch (IOException exception) {
+            log.error("Can't read user {} : {}", accessKey, exception.getMessage());
+            return;
+        }
+        CachedUser loadedUser = new CachedUser(s3User, attributes);
+        if (cachedUser == null) {
+            users.putIfAbsent(accessKey, loadedUser);
+        } else {
+            users.replace(accessKey, cachedUser, loadedUser);
+        }
+    }
+
+    private Path getUserFile(String accessKey) {
+        return Paths.get(USERS_FOLDER_PATH, accessKey, USER_FILE_NAME);
+    }
+
+    private BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    private static class CachedUser {
+        private final S3User s3User;
+        private final FileTime lastModified;
+        private final long size;
+
+        private CachedUser(S3User s3User, BasicFileAttributes attributes) {
+            this.s3User = s3User;
+            this.lastModified = attributes != null ? attributes.lastModifiedTime() : null;
+            this.size = attributes != null ? attributes.size() : -1;
+        }
+
+        private boolean isActual(BasicFileAttributes attributes) {
+            return attributes.lastModifiedTime().equals(lastModified) && size == attributes.size();
+        }
     }
 
 }
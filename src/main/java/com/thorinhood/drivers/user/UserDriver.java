@@ -12,4 +12,9 @@ public interface UserDriver {
     Optional<S3User> getS3User(String accessKey) throws S3Exception;
     void removeUser(String accessKey) throws S3Exception;
 
+    /**
+     * Stops the background work of the driver
+     */
+    void close();
+
 }
@@ -70,6 +70,38 @@ public class S3Exception extends RuntimeException {
                 .build();
     }
 
+    public static S3Exception SLOW_DOWN() {
+        return builder("Storage executor queue is full")
+                .setStatus(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                .setCode(S3ResponseErrorCodes.SLOW_DOWN)
+                .setMessage("Please reduce your request rate.")
+                .build();
+    }
+
+    public static S3Exception ENTITY_TOO_LARGE(long contentLength, long maxContentLength) {
+        return builder("Content length " + contentLength + " is greater than " + maxContentLength)
+                .setStatus(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE)
+                .setCode(S3ResponseErrorCodes.ENTITY_TOO_LARGE)
+                .setMessage("Your proposed upload exceeds the maximum allowed object size.")
+                .build();
+    }
+
+    public static S3Exception INVALID_RANGE(String range, long length) {
+        return builder("Range " + range + " is not satisfiable for length " + length)
+                .setStatus(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .setCode(S3ResponseErrorCodes.INVALID_RANGE)
+                .setMessage("The requested range is not satisfiable")
+                .build();
+    }
+
+    public static S3Exception INVALID_PART_NUMBER(int partNumber) {
+        return builder("Part " + partNumber + " is not satisfiable")
+                .setStatus(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .setCode(S3ResponseErrorCodes.INVALID_PART_NUMBER)
+                .setMessage("The requested partnumber is not satisfiable")
+                .build();
+    }
+
     public static Builder builder(String internalMessage) {
         return new Builder(internalMessage);
     }
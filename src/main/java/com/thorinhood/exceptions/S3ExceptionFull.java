@@ -2,8 +2,7 @@ package com.thorinhood.exceptions;
 
 import com.thorinhood.data.S3FileBucketPath;
 import com.thorinhood.utils.XmlObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import com.thorinhood.utils.XmlWriter;
 
 import java.io.File;
 
@@ -26,13 +25,13 @@ public class S3ExceptionFull extends S3Exception implements XmlObject {
     }
 
     @Override
-    public Element buildXmlRootNode(Document doc) {
-        return createElement(doc, "Error",
-                createTextElement(doc, "Code", code),
-                createTextElement(doc, "Message", message),
-                createTextElement(doc, "Resource", resource == null ? "" : File.separatorChar +
-                        resource.getKeyWithBucket()),
-                createTextElement(doc, "RequestId", requestId));
+    public void writeXml(XmlWriter writer) {
+        writer.startElement("Error")
+                .textElement("Code", code)
+                .textElement("Message", message)
+                .textElement("Resource", resource == null ? "" : File.separatorChar + resource.getKeyWithBucket())
+                .textElement("RequestId", requestId)
+                .endElement();
     }
 
     public String getRequestId() {
@@ -0,0 +1,116 @@
+package com.thorinhood.handlers;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpExpectationFailedEvent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Lets a connection have one request in processing at a time. Stopping autoRead doesn't stop the decoder from
+ * passing requests it has already read, so requests pipelined by the client are queued here until the response of the
+ * current request is written, and the responses keep the order of the requests. Reading stops while requests wait.
+ */
+public class PipeliningHandler extends ChannelDuplexHandler {
+
+    private final Queue<Object> waiting = new ArrayDeque<>();
+    private boolean inFlight;
+    private boolean received;
+    private boolean responded;
+    private boolean stopped;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!waiting.isEmpty() || (inFlight && received)) {
+            waiting.add(msg);
+            if (!stopped) {
+                stopped = true;
+                ReadGate.of(ctx.channel()).stop();
+            }
+            return;
+        }
+        forward(ctx, msg);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof HttpExpectationFailedEvent && inFlight) {
+            // the request was rejected before its body and the client doesn't send it
+            received = true;
+            complete(ctx);
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        boolean last = msg instanceof LastHttpContent && !(msg instanceof HttpResponse &&
+                ((HttpResponse) msg).status().codeClass() == HttpStatusClass.INFORMATIONAL);
+        ctx.write(msg, promise);
+        if (last && inFlight) {
+            responded = true;
+            complete(ctx);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseWaiting();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        releaseWaiting();
+    }
+
+    private void forward(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest) {
+            inFlight = true;
+            received = false;
+            responded = false;
+        }
+        if (msg instanceof LastHttpContent) {
+            received = true;
+        }
+        ctx.fireChannelRead(msg);
+        if (msg instanceof LastHttpContent) {
+            complete(ctx);
+        }
+    }
+
+    /**
+     * The request is done when its body is received and its response is written, a request rejected by its head is
+     * answered before the body
+     */
+    private void complete(ChannelHandlerContext ctx) {
+        if (inFlight && received && responded) {
+            inFlight = false;
+            ctx.executor().execute(() -> next(ctx));
+        }
+    }
+
+    private void next(ChannelHandlerContext ctx) {
+        while (!waiting.isEmpty() && !(inFlight && received)) {
+            forward(ctx, waiting.poll());
+        }
+        if (waiting.isEmpty() && stopped) {
+            stopped = false;
+            ReadGate.of(ctx.channel()).resume();
+        }
+    }
+
+    private void releaseWaiting() {
+        Object msg;
+        while ((msg = waiting.poll()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
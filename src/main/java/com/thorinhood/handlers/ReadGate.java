@@ -0,0 +1,43 @@
+package com.thorinhood.handlers;
+
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+/**
+ * autoRead of a channel shared by the handlers: the channel is read again only when every handler which stopped it
+ * resumes it. Used on the event loop of the channel only
+ */
+public final class ReadGate {
+
+    private static final AttributeKey<ReadGate> KEY = AttributeKey.valueOf(ReadGate.class, "readGate");
+
+    private final Channel channel;
+    private int stops;
+
+    private ReadGate(Channel channel) {
+        this.channel = channel;
+    }
+
+    public static ReadGate of(Channel channel) {
+        Attribute<ReadGate> attribute = channel.attr(KEY);
+        ReadGate gate = attribute.get();
+        if (gate == null) {
+            gate = new ReadGate(channel);
+            attribute.set(gate);
+        }
+        return gate;
+    }
+
+    public void stop() {
+        if (stops++ == 0) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    public void resume() {
+        if (stops > 0 && --stops == 0) {
+            channel.config().setAutoRead(true);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.thorinhood.handlers;
+
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.requests.S3ResponseErrorCodes;
+import com.thorinhood.exceptions.S3Exception;
+import com.thorinhood.exceptions.S3ExceptionFull;
+import com.thorinhood.processors.Processor;
+import com.thorinhood.utils.ParsedRequest;
+import com.thorinhood.utils.RequestUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.*;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Parses the head of every request once, the handlers after this one take it by {@link #getParsedRequest(Channel)}.
+ * Requests with a body are checked by their head: a request that will be rejected is answered before the body is
+ * received, and a client waiting for 100 Continue doesn't send it at all. The check reads ACLs and policies, so it runs
+ * on the storage executor and the body is held until it is done.
+ */
+public class RequestHeadHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger log = LogManager.getLogger(RequestHeadHandler.class);
+    private static final AttributeKey<ParsedRequest> PARSED_REQUEST = AttributeKey.valueOf(RequestHeadHandler.class,
+            "parsedRequest");
+
+    private final RequestUtil requestUtil;
+    private final ServerHandler serverHandler;
+    private final StorageExecutor storageExecutor;
+    private final long maxObjectSize;
+    private final long maxAggregatedContentLength;
+    private final Queue<HttpContent> held = new ArrayDeque<>();
+
+    private HttpRequest checking;
+    private boolean skipContent;
+
+    public RequestHeadHandler(RequestUtil requestUtil, ServerHandler serverHandler, StorageExecutor storageExecutor,
+                              long maxObjectSize, long maxAggregatedContentLength) {
+        this.requestUtil = requestUtil;
+        this.serverHandler = serverHandler;
+        this.storageExecutor = storageExecutor;
+        this.maxObjectSize = maxObjectSize;
+        this.maxAggregatedContentLength = maxAggregatedContentLength;
+    }
+
+    /**
+     * Request in processing on the channel, parsed once from its head. Null if its head is not decoded
+     */
+    public static ParsedRequest getParsedRequest(Channel channel) {
+        return channel.attr(PARSED_REQUEST).get();
+    }
+
+    /**
+     * Same as {@link #getParsedRequest(Channel)}, the request is not kept by the channel after it
+     */
+    public static ParsedRequest takeParsedRequest(Channel channel) {
+        return channel.attr(PARSED_REQUEST).getAndSet(null);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest && !(msg instanceof FullHttpRequest)) {
+            readHead(ctx, (HttpRequest) msg);
+            return;
+        }
+        if (msg instanceof HttpContent && checking != null) {
+            held.add((HttpContent) msg);
+            return;
+        }
+        readContent(ctx, msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        reset();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        reset();
+    }
+
+    /**
+     * Answers the request with an error before its body is received.
+     * Returns true if the body is still going to arrive and has to be skipped
+     */
+    public static boolean reject(ChannelHandlerContext ctx, HttpRequest request, S3FileObjectPath path,
+                                 S3Exception exception) {
+        log.info("Request {} {} is rejected before the body : {}", request.method(),
+                QueryStringDecoder.decodeComponent(request.uri()), exception.getMessage());
+        boolean skipBody = true;
+        if (HttpUtil.is100ContinueExpected(request)) {
+            // the client doesn't send the body after a final response, the decoder has to stop waiting for it
+            ctx.pipeline().fireUserEventTriggered(HttpExpectationFailedEvent.INSTANCE);
+            skipBody = false;
+        }
+        Processor.sendError(ctx, new StreamedHttpRequest(request, EmptyHttpHeaders.INSTANCE, null),
+                S3ExceptionFull.build(exception, path, "1"));
+        return skipBody;
+    }
+
+    private void readHead(ChannelHandlerContext ctx, HttpRequest head) {
+        ctx.channel().attr(PARSED_REQUEST).set(null);
+        if (!head.decoderResult().isSuccess()) {
+            ctx.fireChannelRead(head);
+            return;
+        }
+        ParsedRequest parsedRequest;
+        try {
+            parsedRequest = requestUtil.parseRequestHead(head);
+        } catch (RuntimeException exception) {
+            skipContent = reject(ctx, head, extractS3Path(head), invalidHead(exception));
+            return;
+        }
+        ctx.channel().attr(PARSED_REQUEST).set(parsedRequest);
+        if (!hasBody(head)) {
+            ctx.fireChannelRead(head);
+            return;
+        }
+        long maxContentLength = parsedRequest.getOperation() != null &&
+                parsedRequest.getOperation().isStreamingUpload() ? maxObjectSize : maxAggregatedContentLength;
+        checkRequestHead(ctx, head, parsedRequest, maxContentLength);
+    }
+
+    private boolean hasBody(HttpRequest request) {
+        return HttpUtil.is100ContinueExpected(request) || HttpUtil.isTransferEncodingChunked(request) ||
+                HttpUtil.getContentLength(request, 0L) > 0;
+    }
+
+    private void readContent(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpContent && skipContent) {
+            if (msg instanceof LastHttpContent) {
+                skipContent = false;
+            }
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void checkRequestHead(ChannelHandlerContext ctx, HttpRequest request, ParsedRequest parsedRequest,
+                                  long maxContentLength) {
+        checking = request;
+        ReadGate.of(ctx.channel()).stop();
+        try {
+            storageExecutor.execute(() -> {
+                S3Exception failure = check(request, parsedRequest, maxContentLength);
+                ctx.executor().execute(() -> checked(ctx, request, failure));
+            });
+        } catch (RejectedExecutionException exception) {
+            log.error("Storage executor rejected head of request {} {} : {}", request.method(),
+                    QueryStringDecoder.decodeComponent(request.uri()), storageExecutor);
+            checked(ctx, request, S3Exception.SLOW_DOWN());
+        }
+    }
+
+    /**
+     * Returns the reason to reject the request or null
+     */
+    private S3Exception check(HttpRequest request, ParsedRequest parsedRequest, long maxContentLength) {
+        try {
+            serverHandler.checkRequestHead(request, parsedRequest, maxContentLength);
+            return null;
+        } catch (RuntimeException exception) {
+            return invalidHead(exception);
+        }
+    }
+
+    /**
+     * A head which can't be parsed is rejected too, its body is not worth receiving
+     */
+    private S3Exception invalidHead(RuntimeException exception) {
+        if (exception instanceof S3Exception) {
+            return (S3Exception) exception;
+        }
+        log.debug("Can't check head of request : {}", exception.getMessage());
+        return S3Exception.builder("Malformed request head : " + exception.getMessage())
+                .setStatus(HttpResponseStatus.BAD_REQUEST)
+                .setCode(S3ResponseErrorCodes.INVALID_REQUEST)
+                .setMessage("Invalid request")
+                .build();
+    }
+
+    private S3FileObjectPath extractS3Path(HttpRequest request) {
+        try {
+            return requestUtil.extractS3Path(request);
+        } catch (S3Exception exception) {
+            return null;
+        }
+    }
+
+    private void checked(ChannelHandlerContext ctx, HttpRequest request, S3Exception failure) {
+        if (checking != request) {
+            // the connection is closed
+            return;
+        }
+        checking = null;
+        if (failure == null) {
+            ctx.fireChannelRead(request);
+        } else {
+            skipContent = reject(ctx, request, extractS3Path(request), failure);
+        }
+        HttpContent content;
+        while (checking == null && (content = held.poll()) != null) {
+            readContent(ctx, content);
+        }
+        ReadGate.of(ctx.channel()).resume();
+    }
+
+    private void reset() {
+        checking = null;
+        HttpContent content;
+        while ((content = held.poll()) != null) {
+            content.release();
+        }
+    }
+}
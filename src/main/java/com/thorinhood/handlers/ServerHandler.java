@@ -1,5 +1,6 @@
 package com.thorinhood.handlers;
 
+import com.thorinhood.data.requests.S3Operation;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.exceptions.S3Exception;
@@ -25,14 +26,15 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.FullHttpRequest;
-import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.List;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * с помощью {@link RequestUtil}
@@ -44,56 +46,67 @@ public class ServerHandler extends SimpleChannelInboundHandler<FullHttpRequest>
     private static final Logger log = LogManager.getLogger(ServerHandler.class);
 
     private final RequestUtil requestUtil;
-    private final GetObjectProcessor getObjectProcessor;
-    private final CreateBucketProcessor createBucketProcessor;
-    private final PutObjectProcessor putObjectProcessor;
-    private final PutObjectAclProcessor putObjectAclProcessor;
-    private final PutBucketAclProcessor putBucketAclProcessor;
-    private final GetObjectAclProcessor getObjectAclProcessor;
-    private final GetBucketAclProcessor getBucketAclProcessor;
-    private final PutBucketPolicyProcessor putBucketPolicyProcessor;
-    private final GetBucketPolicyProcessor getBucketPolicyProcessor;
-    private final DeleteObjectProcessor deleteObjectProcessor;
-    private final ListObjectsV2Processor listObjectsV2Processor;
-    private final ListObjectsProcessor listObjectsProcessor;
-    private final DeleteBucketProcessor deleteBucketProcessor;
-    private final ListBucketsProcessor listBucketsProcessor;
-    private final CreateMultipartUploadProcessor createMultipartUploadProcessor;
-    private final AbortMultipartUploadProcessor abortMultipartUploadProcessor;
-    private final UploadPartProcessor uploadPartProcessor;
-    private final CompleteMultipartUploadProcessor completeMultipartUploadProcessor;
-    private final CopyObjectProcessor copyObjectProcessor;
-    private final HeadObjectProcessor headObjectProcessor;
-
-    public ServerHandler(S3Driver s3Driver, RequestUtil requestUtil) {
+    private final StorageExecutor storageExecutor;
+    private final Map<S3Operation, Processor> processors;
+
+    public ServerHandler(S3Driver s3Driver, RequestUtil requestUtil, StorageExecutor storageExecutor) {
         this.requestUtil = requestUtil;
-        getObjectProcessor = new GetObjectProcessor(s3Driver);
-        createBucketProcessor = new CreateBucketProcessor(s3Driver);
-        putObjectProcessor = new PutObjectProcessor(s3Driver);
-        putObjectAclProcessor = new PutObjectAclProcessor(s3Driver);
-        putBucketAclProcessor = new PutBucketAclProcessor(s3Driver);
-        getObjectAclProcessor = new GetObjectAclProcessor(s3Driver);
-        getBucketAclProcessor = new GetBucketAclProcessor(s3Driver);
-        putBucketPolicyProcessor = new PutBucketPolicyProcessor(s3Driver);
-        getBucketPolicyProcessor = new GetBucketPolicyProcessor(s3Driver);
-        deleteObjectProcessor = new DeleteObjectProcessor(s3Driver);
-        listObjectsV2Processor = new ListObjectsV2Processor(s3Driver);
-        listObjectsProcessor = new ListObjectsProcessor(s3Driver);
-        deleteBucketProcessor = new DeleteBucketProcessor(s3Driver);
-        listBucketsProcessor = new ListBucketsProcessor(s3Driver);
-        createMultipartUploadProcessor = new CreateMultipartUploadProcessor(s3Driver);
-        abortMultipartUploadProcessor = new AbortMultipartUploadProcessor(s3Driver);
-        uploadPartProcessor = new UploadPartProcessor(s3Driver);
-        completeMultipartUploadProcessor = new CompleteMultipartUploadProcessor(s3Driver);
-        copyObjectProcessor = new CopyObjectProcessor(s3Driver);
-        headObjectProcessor = new HeadObjectProcessor(s3Driver);
+        this.storageExecutor = storageExecutor;
+        processors = new EnumMap<>(S3Operation.class);
+        processors.put(S3Operation.LIST_BUCKETS, new ListBucketsProcessor(s3Driver));
+        processors.put(S3Operation.CREATE_BUCKET, new CreateBucketProcessor(s3Driver));
+        processors.put(S3Operation.DELETE_BUCKET, new DeleteBucketProcessor(s3Driver));
+        processors.put(S3Operation.LIST_OBJECTS, new ListObjectsProcessor(s3Driver));
+        processors.put(S3Operation.LIST_OBJECTS_V2, new ListObjectsV2Processor(s3Driver));
+        processors.put(S3Operation.GET_BUCKET_ACL, new GetBucketAclProcessor(s3Driver));
+        processors.put(S3Operation.PUT_BUCKET_ACL, new PutBucketAclProcessor(s3Driver));
+        processors.put(S3Operation.GET_BUCKET_POLICY, new GetBucketPolicyProcessor(s3Driver));
+        processors.put(S3Operation.PUT_BUCKET_POLICY, new PutBucketPolicyProcessor(s3Driver));
+        processors.put(S3Operation.GET_OBJECT, new GetObjectProcessor(s3Driver));
+        processors.put(S3Operation.HEAD_OBJECT, new HeadObjectProcessor(s3Driver));
+        processors.put(S3Operation.PUT_OBJECT, new PutObjectProcessor(s3Driver));
+        processors.put(S3Operation.COPY_OBJECT, new CopyObjectProcessor(s3Driver));
+        processors.put(S3Operation.DELETE_OBJECT, new DeleteObjectProcessor(s3Driver));
+        processors.put(S3Operation.GET_OBJECT_ACL, new GetObjectAclProcessor(s3Driver));
+        processors.put(S3Operation.PUT_OBJECT_ACL, new PutObjectAclProcessor(s3Driver));
+        processors.put(S3Operation.CREATE_MULTIPART_UPLOAD, new CreateMultipartUploadProcessor(s3Driver));
+        processors.put(S3Operation.UPLOAD_PART, new UploadPartProcessor(s3Driver));
+        processors.put(S3Operation.COMPLETE_MULTIPART_UPLOAD, new CompleteMultipartUploadProcessor(s3Driver));
+        processors.put(S3Operation.ABORT_MULTIPART_UPLOAD, new AbortMultipartUploadProcessor(s3Driver));
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext context, FullHttpRequest request) throws Exception {
+        // the request is processed on the storage executor, PipeliningHandler holds the next one until the response
+        // is written
+        request.retain();
+        ParsedRequest parsedRequest = RequestHeadHandler.takeParsedRequest(context.channel());
+        try {
+            storageExecutor.execute(() -> {
+                try {
+                    handle(context, request, parsedRequest);
+                } finally {
+                    request.release();
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            log.error("Storage executor rejected request {} {} : {}", request.method(),
+                    QueryStringDecoder.decodeComponent(request.uri()), storageExecutor);
+            try {
+                Processor.sendError(context, request, S3ExceptionFull.build(S3Exception.SLOW_DOWN(), null, "1"));
+            } finally {
+                if (request instanceof StreamedHttpRequest) {
+                    ((StreamedHttpRequest) request).getStreamedContent().delete();
+                }
+                request.release();
+            }
+        }
+    }
+
+    private void handle(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest) {
         try {
             long start = System.currentTimeMillis();
-            boolean processed = process(context, request);
+            boolean processed = process(context, request, parsedRequest);
             if (!processed) {
                 log.error(String.format("Not found any processor for request or error occurred : %s %s", request.method(),
                         QueryStringDecoder.decodeComponent(request.uri())));
@@ -111,6 +124,10 @@ public class ServerHandler extends SimpleChannelInboundHandler<FullHttpRequest>
                     QueryStringDecoder.decodeComponent(request.uri()), System.currentTimeMillis() - start));
         } catch (Exception exception) {
             exception.printStackTrace();
+        } finally {
+            if (request instanceof StreamedHttpRequest) {
+                ((StreamedHttpRequest) request).getStreamedContent().delete();
+            }
         }
     }
 
@@ -120,11 +137,18 @@ public class ServerHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         ctx.channel().close();
     }
 
-    private boolean process(ChannelHandlerContext context, FullHttpRequest request) throws Exception {
-        ParsedRequest parsedRequest = null;
+    /**
+     * @param parsedRequest head parsed by {@link RequestHeadHandler}, null if the request is parsed here
+     */
+    private boolean process(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest)
+            throws Exception {
 
         try {
-            parsedRequest = requestUtil.parseRequest(request);
+            if (parsedRequest == null) {
+                parsedRequest = requestUtil.parseRequest(request);
+            } else {
+                requestUtil.setContent(parsedRequest, request);
+            }
         } catch (S3Exception s3Exception) {
             Processor.sendError(context, request, S3ExceptionFull.build(
                     s3Exception,
@@ -145,106 +169,29 @@ public class ServerHandler extends SimpleChannelInboundHandler<FullHttpRequest>
             return false;
         }
 
-        if (request.method().equals(HttpMethod.POST)) {
-            if (checkRequestS3Type(request, "uploads")) {
-                createMultipartUploadProcessor.process(context, request, parsedRequest);
-                return true;
-            } else if (checkRequestS3Type(request, "uploadId")) {
-                completeMultipartUploadProcessor.process(context, request, parsedRequest);
-                return true;
-            }
-        }
-
-        if (request.method().equals(HttpMethod.HEAD)) {
-            if (parsedRequest.isPathToObject()) {
-                headObjectProcessor.process(context, request, parsedRequest);
-                return true;
-            }
-        }
-
-        if (request.method().equals(HttpMethod.GET)) {
-            if (!parsedRequest.hasPathToObjectOrBucket()) {
-                listBucketsProcessor.process(context, request, parsedRequest);
-            } else if (isAclRequest(request)) {
-                if (parsedRequest.isPathToObject()) {
-                    getObjectAclProcessor.process(context, request, parsedRequest);
-                } else {
-                    getBucketAclProcessor.process(context, request, parsedRequest);
-                }
-            } else if (isPolicyRequest(request)) {
-                getBucketPolicyProcessor.process(context, request, parsedRequest);
-            } else if (!parsedRequest.isPathToObject() && checkRequestS3Type(request, "list-type", "2")) {
-                listObjectsV2Processor.process(context, request, parsedRequest);
-            } else if (!parsedRequest.isPathToObject()) {
-                listObjectsProcessor.process(context, request, parsedRequest);
-            } else if (parsedRequest.isPathToObject()) {
-                getObjectProcessor.process(context, request, parsedRequest);
-            } else {
-                return false;
-            }
-            return true;
-        }
-
-        if (request.method().equals(HttpMethod.PUT)) {
-            if (isAclRequest(request)) {
-                if (parsedRequest.isPathToObject()) {
-                    putObjectAclProcessor.process(context, request, parsedRequest);
-                } else {
-                    putBucketAclProcessor.process(context, request, parsedRequest);
-                }
-            } else if (isPolicyRequest(request)) {
-                putBucketPolicyProcessor.process(context, request, parsedRequest);
-                return true;
-            } else if (parsedRequest.isPathToObject() && checkRequestS3Type(request, "partNumber") &&
-                       checkRequestS3Type(request, "uploadId")) {
-                uploadPartProcessor.process(context, request, parsedRequest);
-            } else if (parsedRequest.isPathToObject() &&
-                       checkRequestS3TypeByHeader(request, "x-amz-copy-source")) {
-                copyObjectProcessor.process(context, request, parsedRequest);
-            } else if (parsedRequest.isPathToObject()) {
-                putObjectProcessor.process(context, request, parsedRequest);
-            } else {
-                createBucketProcessor.process(context, request, parsedRequest);
-            }
-            return true;
-        }
-
-        if (request.method().equals(HttpMethod.DELETE)) {
-            if (parsedRequest.isPathToObject() && checkRequestS3Type(request, "uploadId")) {
-                abortMultipartUploadProcessor.process(context, request, parsedRequest);
-            } else if (parsedRequest.isPathToObject()) {
-                deleteObjectProcessor.process(context, request, parsedRequest);
-            } else {
-                deleteBucketProcessor.process(context, request, parsedRequest);
-            }
-            return true;
+        Processor processor = route(parsedRequest);
+        if (processor == null) {
+            return false;
         }
-
-        return false;
+        processor.process(context, request, parsedRequest);
+        return true;
     }
 
-    private boolean isPolicyRequest(FullHttpRequest request) {
-        return checkRequestS3Type(request, "policy");
-    }
-
-    private boolean isAclRequest(FullHttpRequest request) {
-        return checkRequestS3Type(request, "acl");
-    }
-
-    private boolean checkRequestS3TypeByHeader(FullHttpRequest request, String key) {
-        return request.headers().contains(key);
-    }
-
-    private boolean checkRequestS3Type(FullHttpRequest request, String key, String value) {
-        QueryStringDecoder queryStringDecoder = new QueryStringDecoder(request.uri());
-        Map<String, List<String>> params = queryStringDecoder.parameters();
-        return params.containsKey(key) && params.get(key) != null && params.get(key).size() == 1 &&
-                params.get(key).get(0).equals(value);
+    /**
+     * Runs the checks that don't need the body: content length, signature and the head checks of the processor.
+     * Throws {@link S3Exception} if the request will be rejected anyway
+     */
+    public void checkRequestHead(HttpRequest head, ParsedRequest parsedRequest, long maxContentLength)
+            throws S3Exception {
+        requestUtil.checkContentLength(head, maxContentLength);
+        requestUtil.checkSignature(parsedRequest);
+        Processor processor = route(parsedRequest);
+        if (processor != null) {
+            processor.checkRequestHead(parsedRequest);
+        }
     }
 
-    private boolean checkRequestS3Type(FullHttpRequest request, String type) {
-        QueryStringDecoder queryStringDecoder = new QueryStringDecoder(request.uri());
-        Map<String, List<String>> params = queryStringDecoder.parameters();
-        return params.containsKey(type);
+    private Processor route(ParsedRequest parsedRequest) {
+        return parsedRequest.getOperation() != null ? processors.get(parsedRequest.getOperation()) : null;
     }
 }
@@ -0,0 +1,157 @@
+package com.thorinhood.handlers;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool for the blocking part of request processing (file system, locks, xml, hashing).
+ * When maxThreads is greater than minThreads the core size follows the observed service time: it grows while tasks
+ * wait in the queue and the disk answers as fast as it did at its best, and shrinks when the service time degrades,
+ * because more concurrent requests only add to the latency of a saturated disk.
+ */
+public class StorageExecutor {
+
+    private static final Logger log = LogManager.getLogger(StorageExecutor.class);
+
+    private static final long ADJUST_PERIOD_MILLIS = 1000;
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final double GROW_THRESHOLD = 1.5;
+    private static final double SHRINK_THRESHOLD = 3.0;
+    private static final double BEST_SERVICE_TIME_DECAY = 1.05;
+
+    private final int minThreads;
+    private final int maxThreads;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService adjuster;
+    private final LongAdder submitted;
+    private final LongAdder completed;
+    private final LongAdder rejected;
+
+    private double queueWaitNanos;
+    private double serviceTimeNanos;
+    private double bestServiceTimeNanos;
+
+    public StorageExecutor(int minThreads, int maxThreads, int queueSize) {
+        this.minThreads = Math.max(1, minThreads);
+        this.maxThreads = Math.max(this.minThreads, maxThreads);
+        executor = new ThreadPoolExecutor(this.minThreads, this.maxThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), new DefaultThreadFactory("s3-storage"));
+        submitted = new LongAdder();
+        completed = new LongAdder();
+        rejected = new LongAdder();
+        bestServiceTimeNanos = Double.MAX_VALUE;
+        if (this.maxThreads > this.minThreads) {
+            adjuster = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("s3-storage-adjuster",
+                    true));
+            adjuster.scheduleAtFixedRate(this::adjust, ADJUST_PERIOD_MILLIS, ADJUST_PERIOD_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            adjuster = null;
+        }
+    }
+
+    public void execute(Runnable task) throws RejectedExecutionException {
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    record(startedAt - queuedAt, System.nanoTime() - startedAt);
+                }
+            });
+            submitted.increment();
+        } catch (RejectedExecutionException exception) {
+            rejected.increment();
+            throw exception;
+        }
+    }
+
+    private synchronized void record(long queueWait, long serviceTime) {
+        completed.increment();
+        if (completed.sum() == 1) {
+            queueWaitNanos = queueWait;
+            serviceTimeNanos = serviceTime;
+        } else {
+            queueWaitNanos += EWMA_WEIGHT * (queueWait - queueWaitNanos);
+            serviceTimeNanos += EWMA_WEIGHT * (serviceTime - serviceTimeNanos);
+        }
+    }
+
+    private synchronized void adjust() {
+        if (completed.sum() == 0) {
+            return;
+        }
+        bestServiceTimeNanos = Math.min(bestServiceTimeNanos * BEST_SERVICE_TIME_DECAY, serviceTimeNanos);
+        int current = executor.getCorePoolSize();
+        int next = current;
+        if (!executor.getQueue().isEmpty() && serviceTimeNanos <= bestServiceTimeNanos * GROW_THRESHOLD) {
+            next = Math.min(maxThreads, current + 1);
+        } else if (serviceTimeNanos > bestServiceTimeNanos * SHRINK_THRESHOLD ||
+                   (executor.getQueue().isEmpty() && executor.getActiveCount() < current - 1)) {
+            next = Math.max(minThreads, current - 1);
+        }
+        if (next != current) {
+            executor.setCorePoolSize(next);
+            log.debug("storage threads {} -> {}, {}", current, next, this);
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public synchronized long getQueueWaitMicros() {
+        return (long) (queueWaitNanos / 1000);
+    }
+
+    public synchronized long getServiceTimeMicros() {
+        return (long) (serviceTimeNanos / 1000);
+    }
+
+    public void shutdown() {
+        if (adjuster != null) {
+            adjuster.shutdownNow();
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "StorageExecutor{" +
+                "poolSize=" + getPoolSize() +
+                ", active=" + getActiveCount() +
+                ", queueSize=" + getQueueSize() +
+                ", submitted=" + getSubmittedCount() +
+                ", completed=" + getCompletedCount() +
+                ", rejected=" + getRejectedCount() +
+                ", queueWaitMicros=" + getQueueWaitMicros() +
+                ", serviceTimeMicros=" + getServiceTimeMicros() +
+                '}';
+    }
+}
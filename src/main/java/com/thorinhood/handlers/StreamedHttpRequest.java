@@ -0,0 +1,23 @@
+package com.thorinhood.handlers;
+
+import com.thorinhood.data.StreamedContent;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+
+public class StreamedHttpRequest extends DefaultFullHttpRequest {
+
+    private final StreamedContent streamedContent;
+
+    public StreamedHttpRequest(HttpRequest request, HttpHeaders trailingHeaders, StreamedContent streamedContent) {
+        super(request.protocolVersion(), request.method(), request.uri(), Unpooled.EMPTY_BUFFER, request.headers(),
+                trailingHeaders);
+        setDecoderResult(request.decoderResult());
+        this.streamedContent = streamedContent;
+    }
+
+    public StreamedContent getStreamedContent() {
+        return streamedContent;
+    }
+}
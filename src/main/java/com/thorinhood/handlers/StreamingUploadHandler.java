@@ -0,0 +1,344 @@
+package com.thorinhood.handlers;
+
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.StreamedContent;
+import com.thorinhood.data.requests.S3Operation;
+import com.thorinhood.drivers.main.S3Driver;
+import com.thorinhood.exceptions.S3Exception;
+import com.thorinhood.exceptions.S3ExceptionFull;
+import com.thorinhood.processors.Processor;
+import com.thorinhood.utils.ParsedRequest;
+import com.thorinhood.utils.PayloadSignType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.RejectedExecutionException;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Writes the body of PutObject and UploadPart requests to a tmp file next to the target object while it arrives,
+ * so only {@code uploadWindow} bytes of the body are kept in memory. The rest of the requests go to the aggregator.
+ * The tmp file is created, written and closed on the storage executor one task at a time, the event loop only collects
+ * the next window and stops reading while the window is full.
+ */
+public class StreamingUploadHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger log = LogManager.getLogger(StreamingUploadHandler.class);
+
+    private final S3Driver s3Driver;
+    private final StorageExecutor storageExecutor;
+    private final int uploadWindow;
+
+    private Upload upload;
+    private boolean skipContent;
+
+    public StreamingUploadHandler(S3Driver s3Driver, StorageExecutor storageExecutor, int uploadWindow) {
+        this.s3Driver = s3Driver;
+        this.storageExecutor = storageExecutor;
+        this.uploadWindow = uploadWindow;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest && !(msg instanceof FullHttpRequest)) {
+            ParsedRequest parsedRequest = RequestHeadHandler.getParsedRequest(ctx.channel());
+            if (parsedRequest != null && parsedRequest.getOperation() != null &&
+                    parsedRequest.getOperation().isStreamingUpload()) {
+                start(ctx, (HttpRequest) msg, parsedRequest);
+                return;
+            }
+        }
+        if (msg instanceof HttpContent && (upload != null || skipContent)) {
+            readContent((HttpContent) msg);
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        abort();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        abort();
+    }
+
+    private void start(ChannelHandlerContext ctx, HttpRequest request, ParsedRequest parsedRequest) {
+        String uploadId = parsedRequest.getOperation() == S3Operation.UPLOAD_PART ? parsedRequest.getUploadId() : null;
+        upload = new Upload(ctx, request, parsedRequest, uploadId);
+        upload.open();
+    }
+
+    private void readContent(HttpContent content) {
+        try {
+            if (skipContent) {
+                if (content instanceof LastHttpContent) {
+                    skipContent = false;
+                }
+                return;
+            }
+            upload.add(content);
+        } finally {
+            ReferenceCountUtil.release(content);
+        }
+    }
+
+    private void abort() {
+        if (upload != null) {
+            upload.abort();
+            upload = null;
+        }
+        skipContent = false;
+    }
+
+    private interface StorageTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Body of one request. Fields used by the storage tasks are handed over with the task and back with its
+     * completion, so they are never used by two threads at once
+     */
+    private class Upload {
+
+        private final ChannelHandlerContext ctx;
+        private final HttpRequest request;
+        private final S3FileObjectPath s3FileObjectPath;
+        private final String uploadId;
+        private final MessageDigest md5;
+        private final MessageDigest sha256;
+        private final ReadGate readGate;
+        private CompositeByteBuf window;
+        private Path tmpFile;
+        private FileChannel fileChannel;
+        private long size;
+        private HttpHeaders trailingHeaders;
+        private boolean opened;
+        private boolean received;
+        private boolean running;
+        private boolean stopped;
+        private boolean aborted;
+
+        private Upload(ChannelHandlerContext ctx, HttpRequest request, ParsedRequest parsedRequest, String uploadId) {
+            this.ctx = ctx;
+            this.request = request;
+            this.s3FileObjectPath = parsedRequest.getS3ObjectPathUnsafe();
+            this.uploadId = uploadId;
+            md5 = DigestUtils.getMd5Digest();
+            // the payload hash is checked only for single chunk signed requests, aws-chunked bodies come here decoded
+            sha256 = parsedRequest.getPayloadSignType() == PayloadSignType.SINGLE_CHUNK ?
+                    DigestUtils.getSha256Digest() : null;
+            readGate = ReadGate.of(ctx.channel());
+            window = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+        }
+
+        private void open() {
+            run(() -> {
+                tmpFile = s3Driver.createTmpFile(s3FileObjectPath, uploadId);
+                fileChannel = FileChannel.open(tmpFile, StandardOpenOption.WRITE);
+            });
+        }
+
+        private void add(HttpContent content) {
+            if (content.content().isReadable()) {
+                window.addComponent(true, content.content().retain());
+            }
+            if (content instanceof LastHttpContent) {
+                received = true;
+                trailingHeaders = new DefaultHttpHeaders().add(((LastHttpContent) content).trailingHeaders());
+            }
+            if (running) {
+                if (window.readableBytes() >= uploadWindow && !stopped) {
+                    stopped = true;
+                    readGate.stop();
+                }
+                return;
+            }
+            next();
+        }
+
+        private void next() {
+            if (window.readableBytes() >= uploadWindow || (received && window.isReadable())) {
+                CompositeByteBuf batch = window;
+                window = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+                run(() -> {
+                    try {
+                        write(batch);
+                    } finally {
+                        batch.release();
+                    }
+                });
+            } else if (received && fileChannel != null) {
+                FileChannel written = fileChannel;
+                fileChannel = null;
+                run(written::close);
+            } else if (received) {
+                finish();
+                return;
+            }
+            if (stopped) {
+                stopped = false;
+                readGate.resume();
+            }
+        }
+
+        private void write(ByteBuf batch) throws IOException {
+            int readable = batch.readableBytes();
+            ByteBuffer[] buffers = batch.nioBuffers();
+            for (ByteBuffer buffer : buffers) {
+                md5.update(buffer.duplicate());
+                if (sha256 != null) {
+                    sha256.update(buffer.duplicate());
+                }
+            }
+            long written = 0;
+            while (written < readable) {
+                written += fileChannel.write(buffers);
+            }
+            size += readable;
+        }
+
+        private void run(StorageTask task) {
+            running = true;
+            try {
+                storageExecutor.execute(() -> {
+                    Exception failure = null;
+                    try {
+                        task.run();
+                    } catch (Exception exception) {
+                        failure = exception;
+                    }
+                    Exception result = failure;
+                    try {
+                        ctx.executor().execute(() -> completed(result));
+                    } catch (RejectedExecutionException exception) {
+                        // the event loop is shut down
+                        aborted = true;
+                        cleanup();
+                    }
+                });
+            } catch (RejectedExecutionException exception) {
+                running = false;
+                log.error("Storage executor rejected upload of {} : {}", s3FileObjectPath, storageExecutor);
+                fail(S3Exception.SLOW_DOWN());
+            }
+        }
+
+        private void completed(Exception failure) {
+            running = false;
+            if (aborted) {
+                cleanup();
+                return;
+            }
+            if (failure instanceof S3Exception) {
+                fail((S3Exception) failure);
+                return;
+            } else if (failure != null) {
+                log.error("Can't write content of " + s3FileObjectPath, failure);
+                fail(S3Exception.INTERNAL_ERROR(failure));
+                return;
+            }
+            if (!opened) {
+                opened = true;
+                if (HttpUtil.is100ContinueExpected(request)) {
+                    ctx.writeAndFlush(new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.CONTINUE,
+                            Unpooled.EMPTY_BUFFER));
+                }
+            }
+            next();
+        }
+
+        private void finish() {
+            StreamedContent streamedContent = new StreamedContent(tmpFile, size, Hex.encodeHexString(md5.digest()),
+                    sha256 != null ? Hex.encodeHexString(sha256.digest()) : null);
+            StreamedHttpRequest streamedRequest = new StreamedHttpRequest(request, trailingHeaders,
+                    streamedContent);
+            tmpFile = null;
+            release();
+            ctx.fireChannelRead(streamedRequest);
+        }
+
+        /**
+         * A request which failed before its tmp file was created is rejected like by its head, after that the rest
+         * of the body can't be used and the connection is closed after the answer
+         */
+        private void fail(S3Exception exception) {
+            release();
+            cleanup();
+            if (!opened) {
+                skipContent = RequestHeadHandler.reject(ctx, request, s3FileObjectPath, exception) && !received;
+                return;
+            }
+            FullHttpRequest failedRequest = new StreamedHttpRequest(request, EmptyHttpHeaders.INSTANCE, null);
+            HttpUtil.setKeepAlive(failedRequest, false);
+            skipContent = !received;
+            Processor.sendError(ctx, failedRequest, S3ExceptionFull.build(exception, s3FileObjectPath, "1"));
+        }
+
+        private void abort() {
+            aborted = true;
+            window.release();
+            if (!running) {
+                cleanup();
+            }
+        }
+
+        private void release() {
+            window.release();
+            if (stopped) {
+                stopped = false;
+                readGate.resume();
+            }
+            upload = null;
+        }
+
+        /**
+         * Closes and deletes the tmp file on the storage executor, or here if it is shut down
+         */
+        private void cleanup() {
+            FileChannel channel = fileChannel;
+            Path file = tmpFile;
+            fileChannel = null;
+            tmpFile = null;
+            if (channel == null && file == null) {
+                return;
+            }
+            Runnable delete = () -> {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException exception) {
+                        log.error("Can't close tmp file : " + file, exception);
+                    }
+                }
+                if (file != null) {
+                    new StreamedContent(file, 0, null, null).delete();
+                }
+            };
+            try {
+                storageExecutor.execute(delete);
+            } catch (RejectedExecutionException exception) {
+                delete.run();
+            }
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package com.thorinhood.processors;
 
-import com.thorinhood.chunks.ChunkReader;
 import com.thorinhood.data.S3FileObjectPath;
 import com.thorinhood.data.S3User;
+import com.thorinhood.data.acl.S3Action;
+import com.thorinhood.data.requests.ByteRange;
+import com.thorinhood.data.requests.S3Headers;
+import com.thorinhood.data.s3object.S3Object;
+import com.thorinhood.data.s3object.S3ObjectBody;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.exceptions.S3Exception;
 import com.thorinhood.exceptions.S3ExceptionFull;
 import com.thorinhood.utils.ParsedRequest;
+import com.thorinhood.utils.XmlObject;
+import com.thorinhood.utils.XmlWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.*;
-import io.netty.util.CharsetUtil;
 import org.apache.logging.log4j.Logger;
 
 import javax.activation.MimetypesFileTypeMap;
@@ -21,7 +28,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
@@ -31,41 +38,35 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 public abstract class Processor {
 
     protected final S3Driver S3_DRIVER;
-    protected final String METHOD_NAME;
+    protected final S3Action ACTION;
 
-    public Processor(S3Driver s3Driver) {
+    public Processor(S3Driver s3Driver, S3Action action) {
         this.S3_DRIVER = s3Driver;
-        METHOD_NAME = "s3:" + this.getClass().getSimpleName().substring(0,
-                this.getClass().getSimpleName().indexOf("Processor"));
-    }
-
-    protected byte[] processChunkedContent(ParsedRequest parsedRequest, FullHttpRequest request) {
-        return ChunkReader.readChunks(request, parsedRequest);
+        this.ACTION = action;
     }
 
     protected void checkRequestPermissions(ParsedRequest request, boolean isBucketAcl) throws S3Exception {
-        checkRequestPermissions(request, METHOD_NAME, isBucketAcl);
+        checkRequestPermissions(request, ACTION, isBucketAcl);
     }
 
-    protected void checkRequestPermissions(ParsedRequest request, String methodName, boolean isBucketAcl)
+    protected void checkRequestPermissions(ParsedRequest request, S3Action action, boolean isBucketAcl)
             throws S3Exception {
-        checkRequestPermissions(request.getS3ObjectPathUnsafe(), request.getS3User(), methodName, isBucketAcl);
+        checkRequestPermissions(request.getS3ObjectPathUnsafe(), request.getS3User(), action, isBucketAcl);
     }
 
-    protected void checkRequestPermissions(S3FileObjectPath s3FileObjectPath, S3User s3User, String methodName,
+    protected void checkRequestPermissions(S3FileObjectPath s3FileObjectPath, S3User s3User, S3Action action,
                                            boolean isBucketAcl) throws S3Exception {
-        if (!methodName.equals("s3:CreateBucket")) {
-            S3_DRIVER.isBucketExists(s3FileObjectPath);
-        }
-        boolean aclCheckResult = S3_DRIVER.checkAclPermission(isBucketAcl, s3FileObjectPath, methodName, s3User);
-        Optional<Boolean> policyCheckResult = S3_DRIVER.checkBucketPolicy(s3FileObjectPath,
-                s3FileObjectPath.getKeyUnsafe(), methodName, s3User);
-        if ((policyCheckResult.isPresent() && !policyCheckResult.get()) ||
-            (policyCheckResult.isEmpty() && !aclCheckResult)) {
+        if (!S3_DRIVER.checkPermission(isBucketAcl, s3FileObjectPath, action, s3User)) {
             throw S3Exception.ACCESS_DENIED();
         }
     }
 
+    /**
+     * Checks that need only the head of the request, they run before the body is received
+     */
+    public void checkRequestHead(ParsedRequest parsedRequest) throws S3Exception {
+    }
+
     private void wrapProcess(Logger log, ChannelHandlerContext ctx, FullHttpRequest request,
                              ParsedRequest parsedRequest, Process process) {
         try {
@@ -89,25 +90,67 @@ public abstract class Processor {
 
     public void sendResponse(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus httpResponseStatus,
                              Consumer<FullHttpResponse> headersSetter, String content) {
-        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, httpResponseStatus,
-                Unpooled.copiedBuffer(content, CharsetUtil.UTF_8));
-        headersSetter.accept(response);
-        HttpUtil.setContentLength(response, response.content().readableBytes());
-        sendAndCleanupConnection(ctx, response, request);
+        sendResponse(ctx, request, httpResponseStatus, headersSetter, ByteBufUtil.writeUtf8(ctx.alloc(), content));
     }
 
     public void sendResponse(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus httpResponseStatus,
                              Consumer<FullHttpResponse> headersSetter, byte[] content) {
-        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, httpResponseStatus,
-                Unpooled.copiedBuffer(content));
-        headersSetter.accept(response);
+        sendResponse(ctx, request, httpResponseStatus, headersSetter, Unpooled.wrappedBuffer(content));
+    }
+
+    public void sendResponse(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus httpResponseStatus,
+                             Consumer<FullHttpResponse> headersSetter, XmlObject content) {
+        sendResponse(ctx, request, httpResponseStatus, headersSetter, content.buildXmlByteBuf(ctx.alloc()));
+    }
+
+    public void sendResponse(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus httpResponseStatus,
+                             Consumer<FullHttpResponse> headersSetter, ByteBuf content) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, httpResponseStatus, content);
+        try {
+            headersSetter.accept(response);
+        } catch (RuntimeException exception) {
+            response.release();
+            throw exception;
+        }
         HttpUtil.setContentLength(response, response.content().readableBytes());
         sendAndCleanupConnection(ctx, response, request);
     }
 
+    /**
+     * Sends the xml with chunked transfer-encoding, every {@link XmlWriter#flush()} while it is written goes out as a
+     * chunk. The head of the response goes with the first chunk, so an exception before it is still answered with an
+     * error, after it the connection is closed
+     */
+    public void sendChunkedResponse(ChannelHandlerContext ctx, FullHttpRequest request,
+                                    HttpResponseStatus httpResponseStatus, Consumer<HttpResponse> headersSetter,
+                                    XmlObject content) {
+        HttpResponse response = new DefaultHttpResponse(HTTP_1_1, httpResponseStatus);
+        headersSetter.accept(response);
+        HttpUtil.setTransferEncodingChunked(response, true);
+        setConnectionHeaders(response, request);
+        ChunkSink sink = new ChunkSink(ctx, response);
+        XmlWriter writer = new XmlWriter(ctx.alloc(), sink);
+        try {
+            content.writeXml(writer.declaration());
+            writer.flush();
+        } catch (RuntimeException exception) {
+            writer.getBuffer().release();
+            if (!sink.started) {
+                throw exception;
+            }
+            getLogger().error("Response is broken after it was started", exception);
+            ctx.close();
+            return;
+        }
+        ChannelFuture lastContentFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        if (!HttpUtil.isKeepAlive(request)) {
+            lastContentFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
     public static void sendError(ChannelHandlerContext ctx, FullHttpRequest request, S3ExceptionFull s3Exception) {
         FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, s3Exception.getStatus(),
-                Unpooled.copiedBuffer(s3Exception.buildXmlText(), CharsetUtil.UTF_8));
+                s3Exception.buildXmlByteBuf(ctx.alloc()));
         response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/xml");
         HttpUtil.setContentLength(response, response.content().readableBytes());
         sendAndCleanupConnection(ctx, response, request);
@@ -115,7 +158,7 @@ public abstract class Processor {
 
     protected void sendError(ChannelHandlerContext ctx, HttpResponseStatus status, FullHttpRequest request) {
         FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status,
-                Unpooled.copiedBuffer("Failure: " + status + "\r\n", CharsetUtil.UTF_8));
+                ByteBufUtil.writeUtf8(ctx.alloc(), "Failure: " + status + "\r\n"));
         response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=UTF-8");
         HttpUtil.setContentLength(response, response.content().readableBytes());
         sendAndCleanupConnection(ctx, response, request);
@@ -132,14 +175,34 @@ public abstract class Processor {
     protected static void sendAndCleanupConnection(ChannelHandlerContext ctx, FullHttpResponse response,
                                             FullHttpRequest request) {
         final boolean keepAlive = HttpUtil.isKeepAlive(request);
+        setConnectionHeaders(response, request);
+        ChannelFuture flushPromise = ctx.writeAndFlush(response);
         if (!keepAlive) {
+            flushPromise.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private static void setConnectionHeaders(HttpResponse response, FullHttpRequest request) {
+        if (!HttpUtil.isKeepAlive(request)) {
             response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
         } else if (request.protocolVersion().equals(HTTP_1_0)) {
             response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
         }
-        ChannelFuture flushPromise = ctx.writeAndFlush(response);
-        if (!keepAlive) {
-            flushPromise.addListener(ChannelFutureListener.CLOSE);
+    }
+
+    /**
+     * Parts count and range of a part of a multipart object, nothing if the whole object is sent
+     */
+    protected void setPartHeaders(HttpResponse response, S3Object s3Object) {
+        if (s3Object.getPartsCount() == null) {
+            return;
+        }
+        S3ObjectBody body = s3Object.getBody();
+        response.headers().set(S3Headers.X_AMZ_MP_PARTS_COUNT, s3Object.getPartsCount());
+        if (body.getLength() > 0) {
+            response.headers().set(HttpHeaderNames.CONTENT_RANGE,
+                    new ByteRange(body.getOffset(), body.getOffset() + body.getLength() - 1)
+                            .toContentRange(s3Object.getFile().length()));
         }
     }
 
@@ -169,4 +232,35 @@ public abstract class Processor {
     protected abstract void processInner(ChannelHandlerContext context, FullHttpRequest request,
                                          ParsedRequest parsedRequest, Object... arguments) throws Exception;
     protected abstract Logger getLogger();
+
+    private static class ChunkSink implements Consumer<ByteBuf> {
+
+        private static final long WRITE_TIMEOUT_SECONDS = 30;
+
+        private final ChannelHandlerContext ctx;
+        private final HttpResponse response;
+        private boolean started;
+
+        private ChunkSink(ChannelHandlerContext ctx, HttpResponse response) {
+            this.ctx = ctx;
+            this.response = response;
+        }
+
+        @Override
+        public void accept(ByteBuf chunk) {
+            if (!started) {
+                ctx.write(response);
+                started = true;
+            }
+            ChannelFuture future = ctx.writeAndFlush(new DefaultHttpContent(chunk));
+            // the writer waits for a slow client instead of buffering the whole response, but not for a stalled one
+            if (!ctx.channel().isWritable() && !ctx.executor().inEventLoop()) {
+                if (!future.awaitUninterruptibly(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS) || !future.isSuccess()) {
+                    ctx.close();
+                    throw S3Exception.INTERNAL_ERROR("Response chunk is not written in " + WRITE_TIMEOUT_SECONDS +
+                            " seconds");
+                }
+            }
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.thorinhood.processors.acl;
 
 import com.thorinhood.data.acl.AccessControlPolicy;
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.processors.Processor;
 import com.thorinhood.utils.DateTimeUtil;
@@ -21,7 +22,7 @@ public class GetBucketAclProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(GetObjectAclProcessor.class);
 
     public GetBucketAclProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.GET_BUCKET_ACL);
     }
 
     @Override
@@ -29,11 +30,10 @@ public class GetBucketAclProcessor extends Processor {
                                 Object... arguments) throws Exception {
         checkRequestPermissions(parsedRequest, true);
         AccessControlPolicy accessControlPolicy = S3_DRIVER.getBucketAcl(parsedRequest.getS3BucketPath());
-        String xml = accessControlPolicy.buildXmlText();
         sendResponse(context, request, OK, response -> {
             response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain");
             response.headers().set("Date", DateTimeUtil.currentDateTime());
-        }, xml);
+        }, accessControlPolicy);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.thorinhood.processors.acl;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.processors.Processor;
 import com.thorinhood.utils.DateTimeUtil;
@@ -18,7 +19,7 @@ public class PutBucketAclProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(PutBucketAclProcessor.class);
 
     public PutBucketAclProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.PUT_BUCKET_ACL);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.thorinhood.processors.actions;
 
 import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.results.CopyObjectResult;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.processors.Processor;
@@ -18,25 +19,24 @@ public class CopyObjectProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(CopyObjectProcessor.class);
 
     public CopyObjectProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.PUT_OBJECT);
     }
 
     @Override
     protected void processInner(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest,
                                 Object... arguments) throws Exception {
         S3FileObjectPath sourcePath = S3_DRIVER.buildPathToObject(parsedRequest.getHeader("x-amz-copy-source"));
-        checkRequestPermissions(sourcePath, parsedRequest.getS3User(), "s3:GetObject", false);
-        checkRequestPermissions(parsedRequest, "s3:PutObject", true);
+        checkRequestPermissions(sourcePath, parsedRequest.getS3User(), S3Action.GET_OBJECT, false);
+        checkRequestPermissions(parsedRequest, true);
         CopyObjectResult copyObjectResult = S3_DRIVER.copyObject(
                 sourcePath,
                 parsedRequest.getS3ObjectPath(),
                 parsedRequest.getHeaders(),
                 parsedRequest.getS3User());
-        String xml = copyObjectResult.buildXmlText();
         sendResponse(context, request, HttpResponseStatus.OK, response -> {
             response.headers().set("Date", DateTimeUtil.currentDateTime());
             response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/xml");
-        }, xml);
+        }, copyObjectResult);
     }
 
     @Override
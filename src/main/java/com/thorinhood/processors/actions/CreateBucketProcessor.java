@@ -1,5 +1,6 @@
 package com.thorinhood.processors.actions;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.exceptions.S3Exception;
@@ -20,7 +21,7 @@ public class CreateBucketProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(CreateBucketProcessor.class);
 
     public CreateBucketProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.CREATE_BUCKET);
     }
 
     @Override
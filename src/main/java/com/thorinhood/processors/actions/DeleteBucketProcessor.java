@@ -1,5 +1,6 @@
 package com.thorinhood.processors.actions;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.processors.Processor;
 import com.thorinhood.utils.DateTimeUtil;
@@ -17,7 +18,7 @@ public class DeleteBucketProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(DeleteBucketProcessor.class);
 
     public DeleteBucketProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.DELETE_BUCKET);
     }
 
     @Override
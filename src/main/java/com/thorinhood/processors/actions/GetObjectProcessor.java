@@ -1,20 +1,33 @@
 package com.thorinhood.processors.actions;
 
+import com.thorinhood.data.acl.S3Action;
+import com.thorinhood.data.requests.ByteRange;
+import com.thorinhood.data.requests.S3Headers;
+import com.thorinhood.data.requests.S3ResponseErrorCodes;
 import com.thorinhood.data.s3object.S3Object;
+import com.thorinhood.data.s3object.S3ObjectBody;
 import com.thorinhood.drivers.main.S3Driver;
+import com.thorinhood.exceptions.S3Exception;
 import com.thorinhood.processors.Processor;
 import com.thorinhood.utils.DateTimeUtil;
 import com.thorinhood.utils.ParsedRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.handler.codec.http.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.FileNotFoundException;
-import java.io.RandomAccessFile;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
-import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.PARTIAL_CONTENT;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 public class GetObjectProcessor extends Processor {
@@ -22,7 +35,7 @@ public class GetObjectProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(GetObjectProcessor.class);
 
     public GetObjectProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.GET_OBJECT);
     }
 
     @Override
@@ -32,37 +45,135 @@ public class GetObjectProcessor extends Processor {
 
         final boolean keepAlive = HttpUtil.isKeepAlive(request);
 
-        S3Object s3Object = S3_DRIVER.getObject(parsedRequest.getS3ObjectPath(), parsedRequest.getHeaders());
+        Integer partNumber = parsedRequest.getPartNumber();
+        if (partNumber != null && parsedRequest.getHeaders().contains(S3Headers.RANGE)) {
+            throw S3Exception.builder("Range and partNumber are both specified")
+                    .setStatus(HttpResponseStatus.BAD_REQUEST)
+                    .setCode(S3ResponseErrorCodes.INVALID_REQUEST)
+                    .setMessage("Cannot specify both Range header and partNumber query parameter")
+                    .build();
+        }
+        S3Object s3Object = S3_DRIVER.getObject(parsedRequest.getS3ObjectPath(), parsedRequest.getHeaders(),
+                partNumber);
+        S3ObjectBody body = s3Object.getBody();
+        ChannelFuture lastContentFuture;
+        try {
+            List<ByteRange> ranges = partNumber != null ? null : selectRanges(parsedRequest.getHeaders(), s3Object);
+            boolean partial = ranges != null || s3Object.getPartsCount() != null;
+            HttpResponse response = new DefaultHttpResponse(HTTP_1_1, partial ? PARTIAL_CONTENT : OK);
+            setContentTypeHeader(response, s3Object.getFile());
+            response.headers().set("ETag", "\"" + s3Object.getETag() + "\"");
+            response.headers().set("Last-Modified", s3Object.getLastModified());
+            response.headers().set("Date", DateTimeUtil.currentDateTime());
+            response.headers().set(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES);
+            s3Object.getMetaData().forEach((metaKey, metaValue) ->
+                    response.headers().set("x-amz-meta-" + metaKey, metaValue));
+            setPartHeaders(response, s3Object);
+            body.open();
+            if (ranges == null) {
+                HttpUtil.setContentLength(response, body.getLength());
+                context.write(response);
+                writeRegions(context, body);
+            } else if (ranges.size() == 1) {
+                ByteRange range = ranges.get(0);
+                HttpUtil.setContentLength(response, range.getLength());
+                response.headers().set(HttpHeaderNames.CONTENT_RANGE, range.toContentRange(body.getLength()));
+                context.write(response);
+                writeRegions(context, body.slice(range.getFirst(), range.getLength()));
+            } else {
+                writeByteRanges(context, response, body, ranges);
+            }
+            lastContentFuture = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        } catch (Exception exception) {
+            body.close();
+            throw exception;
+        }
+        lastContentFuture.addListener(future -> body.close());
 
-        RandomAccessFile raf;
+        if (!keepAlive) {
+            lastContentFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+
+    }
+
+    /**
+     * @return null if the whole object is sent
+     */
+    private List<ByteRange> selectRanges(HttpHeaders headers, S3Object s3Object) throws S3Exception {
+        String range = headers.get(S3Headers.RANGE);
+        if (range == null) {
+            return null;
+        }
+        String ifRange = headers.get(S3Headers.IF_RANGE);
+        if (ifRange != null && !matchesIfRange(ifRange, s3Object)) {
+            return null;
+        }
+        return ByteRange.parse(range, s3Object.getBody().getLength());
+    }
+
+    private boolean matchesIfRange(String ifRange, S3Object s3Object) {
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals("\"" + s3Object.getETag() + "\"");
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
         try {
-            raf = new RandomAccessFile(s3Object.getFile(), "r");
-        } catch (FileNotFoundException exception) {
-            sendError(context, NOT_FOUND, request);
-            log.error(exception.getMessage(), exception);
-            return;
+            return DateTimeUtil.parseStrTime(ifRange).getTime() / 1000 == s3Object.getFile().lastModified() / 1000;
+        } catch (ParseException exception) {
+            return false;
         }
-        long fileLength = raf.length();
-        HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
-        HttpUtil.setContentLength(response, fileLength);
-        setContentTypeHeader(response, s3Object.getFile());
-        response.headers().set("ETag", "\"" + s3Object.getETag() + "\"");
-        response.headers().set("Last-Modified", s3Object.getLastModified());
-        response.headers().set("Date", DateTimeUtil.currentDateTime());
-        s3Object.getMetaData().forEach((metaKey, metaValue) ->
-                response.headers().set("x-amz-meta-" + metaKey, metaValue));
+    }
 
+    /**
+     * Sends the ranges as multipart/byteranges, the parts are file regions of the body between small headers
+     */
+    private void writeByteRanges(ChannelHandlerContext context, HttpResponse response, S3ObjectBody body,
+                                 List<ByteRange> ranges) throws IOException {
+        String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong()) +
+                Long.toHexString(ThreadLocalRandom.current().nextLong());
+        String contentType = response.headers().get(HttpHeaderNames.CONTENT_TYPE);
+        List<ByteBuf> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            ByteRange range = ranges.get(i);
+            String partHeader = (i == 0 ? "" : "\r\n") + "--" + boundary + "\r\n" +
+                    "Content-Type: " + contentType + "\r\n" +
+                    "Content-Range: " + range.toContentRange(body.getLength()) + "\r\n\r\n";
+            ByteBuf buffer = Unpooled.copiedBuffer(partHeader, StandardCharsets.US_ASCII);
+            partHeaders.add(buffer);
+            contentLength += buffer.readableBytes() + range.getLength();
+        }
+        ByteBuf closing = Unpooled.copiedBuffer("\r\n--" + boundary + "--\r\n", StandardCharsets.US_ASCII);
+        contentLength += closing.readableBytes();
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary);
+        HttpUtil.setContentLength(response, contentLength);
         context.write(response);
-        ChannelFuture lastContentFuture;
-
-        context.write(new DefaultFileRegion(raf.getChannel(), 0, s3Object.getFile().length()),
-                context.newProgressivePromise());
-        lastContentFuture = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        for (int i = 0; i < ranges.size(); i++) {
+            context.write(new DefaultHttpContent(partHeaders.get(i)));
+            writeRegions(context, body.slice(ranges.get(i).getFirst(), ranges.get(i).getLength()));
+        }
+        context.write(new DefaultHttpContent(closing));
+    }
 
-        if (!keepAlive) {
-            lastContentFuture.addListener(ChannelFutureListener.CLOSE);
+    /**
+     * A region per file of the body, a body of an object completed without copying its parts spans the part files
+     */
+    private static void writeRegions(ChannelHandlerContext context, S3ObjectBody body) throws IOException {
+        for (S3ObjectBody.Segment segment : body.getSegments()) {
+            context.write(region(segment.getChannel(), segment.getPosition(), segment.getLength()));
         }
+    }
 
+    /**
+     * Regions share the channels of the body, they are closed with the body once the response is sent
+     */
+    private static FileRegion region(FileChannel channel, long position, long count) {
+        return new DefaultFileRegion(channel, position, count) {
+            @Override
+            protected void deallocate() {
+            }
+        };
     }
 
     @Override
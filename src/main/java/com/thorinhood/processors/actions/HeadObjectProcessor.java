@@ -1,5 +1,6 @@
 package com.thorinhood.processors.actions;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.s3object.S3Object;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.exceptions.S3Exception;
@@ -22,16 +23,20 @@ public class HeadObjectProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(HeadObjectProcessor.class);
 
     public HeadObjectProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.GET_OBJECT);
     }
 
     @Override
     protected void processInner(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest,
                                 Object... arguments) throws Exception {
-        checkRequestPermissions(parsedRequest, "s3:GetObject", false);
-        S3Object s3Object = S3_DRIVER.headObject(parsedRequest.getS3ObjectPath(), parsedRequest.getHeaders());
-        sendResponse(context, request, HttpResponseStatus.OK, response -> {
-            HttpUtil.setContentLength(response, s3Object.getFile().length());
+        checkRequestPermissions(parsedRequest, false);
+        S3Object s3Object = S3_DRIVER.headObject(parsedRequest.getS3ObjectPath(), parsedRequest.getHeaders(),
+                parsedRequest.getPartNumber());
+        HttpResponseStatus status = s3Object.getPartsCount() != null ? HttpResponseStatus.PARTIAL_CONTENT :
+                HttpResponseStatus.OK;
+        sendResponse(context, request, status, response -> {
+            HttpUtil.setContentLength(response, s3Object.getBody().getLength());
+            setPartHeaders(response, s3Object);
             try {
                 setContentTypeHeader(response, s3Object.getFile());
             } catch (IOException exception) {
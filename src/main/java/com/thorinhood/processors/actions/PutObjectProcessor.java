@@ -1,11 +1,12 @@
 package com.thorinhood.processors.actions;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.s3object.S3Object;
 import com.thorinhood.drivers.main.S3Driver;
+import com.thorinhood.exceptions.S3Exception;
 import com.thorinhood.processors.Processor;
 import com.thorinhood.utils.DateTimeUtil;
 import com.thorinhood.utils.ParsedRequest;
-import com.thorinhood.utils.PayloadSignType;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpRequest;
 import org.apache.logging.log4j.LogManager;
@@ -20,22 +21,32 @@ public class PutObjectProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(PutObjectProcessor.class);
 
     public PutObjectProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.PUT_OBJECT);
+    }
+
+    @Override
+    public void checkRequestHead(ParsedRequest parsedRequest) throws S3Exception {
+        checkRequestPermissions(parsedRequest, true);
     }
 
     @Override
     protected void processInner(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest,
                                 Object[] arguments) throws Exception {
         checkRequestPermissions(parsedRequest, true);
-        if (parsedRequest.getPayloadSignType() != PayloadSignType.SINGLE_CHUNK &&
-            parsedRequest.getPayloadSignType() != PayloadSignType.UNSIGNED_PAYLOAD) {
-            parsedRequest.setBytes(processChunkedContent(parsedRequest, request));
+        S3Object s3Object;
+        if (parsedRequest.getStreamedContent() != null) {
+            s3Object = S3_DRIVER.putObject(
+                    parsedRequest.getS3ObjectPath(),
+                    parsedRequest.getStreamedContent(),
+                    parsedRequest.getMetadata(),
+                    parsedRequest.getS3User());
+        } else {
+            s3Object = S3_DRIVER.putObject(
+                    parsedRequest.getS3ObjectPath(),
+                    parsedRequest.getBytes(),
+                    parsedRequest.getMetadata(),
+                    parsedRequest.getS3User());
         }
-        S3Object s3Object = S3_DRIVER.putObject(
-                parsedRequest.getS3ObjectPath(),
-                parsedRequest.getBytes(),
-                parsedRequest.getMetadata(),
-                parsedRequest.getS3User());
         sendResponseWithoutContent(context, OK, request, Map.of(
                 "ETag", "\"" + s3Object.getETag() + "\"",
                 "Last-Modified", s3Object.getLastModified(),
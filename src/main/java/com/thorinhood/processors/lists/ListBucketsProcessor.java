@@ -2,6 +2,7 @@ package com.thorinhood.processors.lists;
 
 import com.thorinhood.data.S3FileObjectPath;
 import com.thorinhood.data.S3User;
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.results.GetBucketsResult;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.exceptions.S3Exception;
@@ -23,18 +24,17 @@ public class ListBucketsProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(ListBucketsProcessor.class);
 
     public ListBucketsProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.LIST_BUCKETS);
     }
 
     @Override
     protected void processInner(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest,
                                 Object... arguments) throws Exception {
         GetBucketsResult result = S3_DRIVER.getBuckets(parsedRequest.getS3User());
-        String xml = result.buildXmlText();
         sendResponse(context, request, HttpResponseStatus.OK, response -> {
             response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/xml");
             response.headers().set("Date", DateTimeUtil.currentDateTime());
-        }, xml);
+        }, result);
     }
 
     @Override
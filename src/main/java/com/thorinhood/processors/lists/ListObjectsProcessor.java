@@ -1,5 +1,6 @@
 package com.thorinhood.processors.lists;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.list.eventual.ListBucketResult;
 import com.thorinhood.data.list.request.GetBucketObjects;
 import com.thorinhood.drivers.main.S3Driver;
@@ -21,13 +22,13 @@ public class ListObjectsProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(ListObjectsProcessor.class);
 
     public ListObjectsProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.LIST_BUCKET);
     }
 
     @Override
     protected void processInner(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest,
                                 Object... arguments) throws Exception {
-        checkRequestPermissions(parsedRequest, "s3:ListBucket", true);
+        checkRequestPermissions(parsedRequest, true);
         GetBucketObjects getBucketObjects = GetBucketObjects.builder()
                 .setBucket(parsedRequest.getS3BucketPath().getBucket())
                 .setPrefix(parsedRequest.getQueryParam("prefix", "", Function.identity()))
@@ -37,11 +38,10 @@ public class ListObjectsProcessor extends Processor {
                 .setMaxKeys(parsedRequest.getQueryParam("max-keys", 1000, Integer::valueOf))
                 .build();
         ListBucketResult listBucketResult = S3_DRIVER.getBucketObjects(getBucketObjects);
-        String xml = listBucketResult.buildXmlText();
-        sendResponse(context, request, OK, response -> {
+        sendChunkedResponse(context, request, OK, response -> {
             response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/xml");
             response.headers().set("Date", DateTimeUtil.currentDateTime());
-        }, xml);
+        }, listBucketResult);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.thorinhood.processors.lists;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.list.request.GetBucketObjectsV2;
 import com.thorinhood.data.list.eventual.ListBucketV2Result;
 import com.thorinhood.drivers.main.S3Driver;
@@ -21,13 +22,13 @@ public class ListObjectsV2Processor extends Processor {
     private static final Logger log = LogManager.getLogger(ListObjectsV2Processor.class);
 
     public ListObjectsV2Processor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.LIST_BUCKET);
     }
 
     @Override
     protected void processInner(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest,
                                 Object... arguments) throws Exception {
-        checkRequestPermissions(parsedRequest, "s3:ListBucket", true);
+        checkRequestPermissions(parsedRequest, true);
         GetBucketObjectsV2 getBucketObjectsV2 = GetBucketObjectsV2.builder()
                 .setBucket(parsedRequest.getS3BucketPath().getBucket())
                 .setPrefix(parsedRequest.getQueryParam("prefix", "", Function.identity()))
@@ -37,14 +38,14 @@ public class ListObjectsV2Processor extends Processor {
                         Function.identity()))
                 .setDelimiter(parsedRequest.getQueryParam("delimiter", null, delimiter ->
                         delimiter.equals("") ? null : delimiter))
+                .setFetchOwner(parsedRequest.getQueryParam("fetch-owner", false, Boolean::valueOf))
                 .build();
         ListBucketV2Result listBucketV2Result = S3_DRIVER.getBucketObjectsV2(parsedRequest.getS3BucketPath(),
                 getBucketObjectsV2);
-        String xml = listBucketV2Result.buildXmlText();
-        sendResponse(context, request, OK, response -> {
+        sendChunkedResponse(context, request, OK, response -> {
             response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/xml");
             response.headers().set("Date", DateTimeUtil.currentDateTime());
-        }, xml);
+        }, listBucketV2Result);
     }
 
     @Override
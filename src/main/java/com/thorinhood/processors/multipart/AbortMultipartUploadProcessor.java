@@ -1,5 +1,6 @@
 package com.thorinhood.processors.multipart;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.exceptions.S3Exception;
 import com.thorinhood.processors.Processor;
@@ -13,14 +14,13 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
 
 public class AbortMultipartUploadProcessor extends Processor {
 
     private static final Logger log = LogManager.getLogger(AbortMultipartUploadProcessor.class);
 
     public AbortMultipartUploadProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.ABORT_MULTIPART_UPLOAD);
     }
 
     @Override
@@ -28,7 +28,7 @@ public class AbortMultipartUploadProcessor extends Processor {
                                 Object... arguments) throws Exception {
         checkRequestPermissions(parsedRequest, true);
         S3_DRIVER.abortMultipartUpload(parsedRequest.getS3ObjectPath(),
-                parsedRequest.getQueryParam("uploadId", null, Function.identity()));
+                parsedRequest.getUploadId());
         sendResponseWithoutContent(context, HttpResponseStatus.NO_CONTENT, request, Map.of(
                 "Date", DateTimeUtil.currentDateTime()
         ));
@@ -44,14 +44,14 @@ public class AbortMultipartUploadProcessor extends Processor {
         S3_DRIVER.isBucketExists(request.getS3BucketPath());
 
         Optional<Boolean> policyCheckResult = S3_DRIVER.checkBucketPolicy(request.getS3BucketPath(),
-                request.getS3ObjectPathUnsafe().getKeyUnsafe(), METHOD_NAME, request.getS3User());
+                request.getS3ObjectPathUnsafe().getKeyUnsafe(), ACTION, request.getS3User());
         if (policyCheckResult.isPresent() && !policyCheckResult.get()) {
             throw S3Exception.ACCESS_DENIED();
         } else if (policyCheckResult.isPresent()) {
             return;
         }
 
-        String uploadId = request.getQueryParam("uploadId", "", Function.identity());
+        String uploadId = request.getUploadId() != null ? request.getUploadId() : "";
         String accessKeyInitiator = uploadId.substring(uploadId.indexOf("_") + 1);
         if (request.getS3User().isRootUser()) {
             boolean aclCheckResult = S3_DRIVER.isOwner(isBucketAcl, request.getS3ObjectPathUnsafe(),
@@ -1,5 +1,6 @@
 package com.thorinhood.processors.multipart;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.multipart.CompleteMultipartUpload;
 import com.thorinhood.data.results.CompleteMultipartUploadResult;
 import com.thorinhood.drivers.main.S3Driver;
@@ -15,7 +16,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.w3c.dom.Document;
 
-import java.util.function.Function;
 
 public class CompleteMultipartUploadProcessor extends Processor {
 
@@ -23,19 +23,19 @@ public class CompleteMultipartUploadProcessor extends Processor {
 
 
     public CompleteMultipartUploadProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.PUT_OBJECT);
     }
 
     @Override
     protected void processInner(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest,
                                 Object... arguments) throws Exception {
-        checkRequestPermissions(parsedRequest, "s3:PutObject", true);
+        checkRequestPermissions(parsedRequest, true);
         Document document = XmlUtil.parseXmlFromBytes(parsedRequest.getBytes());
         CompleteMultipartUpload completeMultipartUpload = CompleteMultipartUpload
                 .buildFromNode(document.getDocumentElement());
         String eTag = S3_DRIVER.completeMultipartUpload(
                 parsedRequest.getS3ObjectPath(),
-                parsedRequest.getQueryParam("uploadId", null, Function.identity()),
+                parsedRequest.getUploadId(),
                 completeMultipartUpload.getParts(),
                 parsedRequest.getS3User());
         CompleteMultipartUploadResult completeMultipartUploadResult = CompleteMultipartUploadResult.builder()
@@ -44,11 +44,10 @@ public class CompleteMultipartUploadProcessor extends Processor {
                 .setLocation(parsedRequest.getS3ObjectPath().getKeyWithBucket())
                 .setBucket(parsedRequest.getS3ObjectPath().getBucket())
                 .build();
-        String xml = completeMultipartUploadResult.buildXmlText();
         sendResponse(context, request, HttpResponseStatus.OK, response -> {
             response.headers().set("Date", DateTimeUtil.currentDateTime());
             response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/xml");
-        }, xml);
+        }, completeMultipartUploadResult);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.thorinhood.processors.multipart;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.results.InitiateMultipartUploadResult;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.processors.Processor;
@@ -20,24 +21,23 @@ public class CreateMultipartUploadProcessor extends Processor {
     private static final Logger log = LogManager.getLogger(CreateMultipartUploadProcessor.class);
 
     public CreateMultipartUploadProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.PUT_OBJECT);
     }
 
     @Override
     protected void processInner(ChannelHandlerContext context, FullHttpRequest request, ParsedRequest parsedRequest,
                                 Object... arguments) throws Exception {
-        checkRequestPermissions(parsedRequest, "s3:PutObject", true);
+        checkRequestPermissions(parsedRequest, true);
         String uploadId = S3_DRIVER.createMultipartUpload(parsedRequest.getS3ObjectPath(), parsedRequest.getS3User());
         InitiateMultipartUploadResult result = InitiateMultipartUploadResult.builder()
                 .setBucket(parsedRequest.getS3ObjectPath().getBucket())
                 .setKey(parsedRequest.getS3ObjectPath().getKey())
                 .setUploadId(uploadId)
                 .build();
-        String xml = result.buildXmlText();
         sendResponse(context, request, HttpResponseStatus.OK, response -> {
             response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/xml");
             response.headers().set("Date", DateTimeUtil.currentDateTime());
-        }, xml);
+        }, result);
     }
 
     @Override
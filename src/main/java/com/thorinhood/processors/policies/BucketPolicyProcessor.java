@@ -1,5 +1,6 @@
 package com.thorinhood.processors.policies;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.exceptions.S3Exception;
 import com.thorinhood.processors.Processor;
@@ -9,8 +10,8 @@ import java.util.Optional;
 
 public abstract class BucketPolicyProcessor extends Processor {
 
-    public BucketPolicyProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+    public BucketPolicyProcessor(S3Driver s3Driver, S3Action action) {
+        super(s3Driver, action);
     }
 
     @Override
@@ -22,7 +23,7 @@ public abstract class BucketPolicyProcessor extends Processor {
         }
         if (!request.getS3User().isRootUser()) {
             Optional<Boolean> policyCheckResult = S3_DRIVER.checkBucketPolicy(request.getS3BucketPath(),
-                    request.getS3ObjectPathUnsafe().getKeyUnsafe(), METHOD_NAME, request.getS3User());
+                    request.getS3ObjectPathUnsafe().getKeyUnsafe(), ACTION, request.getS3User());
             if (policyCheckResult.isEmpty() || !policyCheckResult.get()) {
                 throw S3Exception.ACCESS_DENIED();
             }
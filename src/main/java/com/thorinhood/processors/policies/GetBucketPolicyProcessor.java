@@ -1,5 +1,6 @@
 package com.thorinhood.processors.policies;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.exceptions.S3Exception;
@@ -22,7 +23,7 @@ public class GetBucketPolicyProcessor extends BucketPolicyProcessor {
     private static final Logger log = LogManager.getLogger(PutBucketPolicyProcessor.class);
 
     public GetBucketPolicyProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.GET_BUCKET_POLICY);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.thorinhood.processors.policies;
 
+import com.thorinhood.data.acl.S3Action;
 import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.utils.DateTimeUtil;
 import com.thorinhood.utils.ParsedRequest;
@@ -17,7 +18,7 @@ public class PutBucketPolicyProcessor extends BucketPolicyProcessor {
     private static final Logger log = LogManager.getLogger(PutBucketPolicyProcessor.class);
 
     public PutBucketPolicyProcessor(S3Driver s3Driver) {
-        super(s3Driver);
+        super(s3Driver, S3Action.PUT_BUCKET_POLICY);
     }
 
     @Override
@@ -1,6 +1,6 @@
 package com.thorinhood.utils;
 
-import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpRequest;
 
 import java.util.Map;
 
@@ -16,7 +16,7 @@ public class Credential {
     private final String credential;
     private final String credentialWithoutAccessKey;
 
-    public static Credential parse(FullHttpRequest request) {
+    public static Credential parse(HttpRequest request) {
         String credential = getCredential(request);
         String credentialWithoutAccessKey = getCredentialWithoutAccessKey(credential);
         Map<String, String> keyValue = extractCredentials(credential);
@@ -52,7 +52,7 @@ public class Credential {
         return credential.substring(credential.indexOf("/") + 1);
     }
 
-    private static String getCredential(FullHttpRequest request) {
+    private static String getCredential(HttpRequest request) {
         String authorization = request.headers().get("Authorization");
         String credential = authorization.substring(authorization.indexOf("Credential=") + "Credential=".length());
         credential = credential.substring(0, credential.indexOf(",")).trim();
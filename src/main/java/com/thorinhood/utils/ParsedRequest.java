@@ -2,8 +2,10 @@ package com.thorinhood.utils;
 
 import com.thorinhood.data.S3FileBucketPath;
 import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.requests.S3Operation;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
 import com.thorinhood.data.S3User;
+import com.thorinhood.data.StreamedContent;
 import com.thorinhood.exceptions.S3Exception;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
@@ -17,6 +19,7 @@ import java.util.function.Function;
 public class ParsedRequest {
 
     private byte[] bytes;
+    private StreamedContent streamedContent;
     private S3FileObjectPath s3FileObjectPath;
     private String signature;
     private Credential credential;
@@ -24,6 +27,10 @@ public class ParsedRequest {
     private PayloadSignType payloadSignType;
     private HttpHeaders headers;
     private Map<String, List<String>> queryParams;
+    private S3Operation operation;
+    private String uploadId;
+    private Integer partNumber;
+    private String listType;
     private HttpMethod method;
     private Map<String, String> metadata;
     private S3User s3User;
@@ -49,6 +56,10 @@ public class ParsedRequest {
         return bytes;
     }
 
+    public StreamedContent getStreamedContent() {
+        return streamedContent;
+    }
+
     public S3FileBucketPath getS3BucketPath() throws S3Exception {
         if (s3FileObjectPath == null) {
             throw S3Exception.builder("Not found bucket name")
@@ -95,6 +106,10 @@ public class ParsedRequest {
         this.bytes = bytes;
     }
 
+    public void setStreamedContent(StreamedContent streamedContent) {
+        this.streamedContent = streamedContent;
+    }
+
     public boolean containsHeader(String header) {
         return headers.contains(header);
     }
@@ -119,6 +134,25 @@ public class ParsedRequest {
         return queryParams;
     }
 
+    public S3Operation getOperation() {
+        return operation;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    /**
+     * @return null if the request has no partNumber
+     */
+    public Integer getPartNumber() {
+        return partNumber;
+    }
+
+    public String getListType() {
+        return listType;
+    }
+
     public S3User getS3User() {
         return s3User;
     }
@@ -162,6 +196,11 @@ public class ParsedRequest {
             return this;
         }
 
+        public Builder setStreamedContent(StreamedContent streamedContent) {
+            parsedRequest.streamedContent = streamedContent;
+            return this;
+        }
+
         public Builder setS3ObjectPath(S3FileObjectPath s3FileObjectPath) {
             parsedRequest.s3FileObjectPath = s3FileObjectPath;
             return this;
@@ -197,6 +236,26 @@ public class ParsedRequest {
             return this;
         }
 
+        public Builder setOperation(S3Operation operation) {
+            parsedRequest.operation = operation;
+            return this;
+        }
+
+        public Builder setUploadId(String uploadId) {
+            parsedRequest.uploadId = uploadId;
+            return this;
+        }
+
+        public Builder setPartNumber(Integer partNumber) {
+            parsedRequest.partNumber = partNumber;
+            return this;
+        }
+
+        public Builder setListType(String listType) {
+            parsedRequest.listType = listType;
+            return this;
+        }
+
         public Builder setMethod(HttpMethod method) {
             parsedRequest.method = method;
             return this;
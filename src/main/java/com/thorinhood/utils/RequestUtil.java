@@ -1,14 +1,20 @@
 package com.thorinhood.utils;
 
 import com.thorinhood.data.requests.S3Headers;
+import com.thorinhood.data.requests.S3Operation;
 import com.thorinhood.data.S3FileObjectPath;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
 import com.thorinhood.data.S3User;
 import com.thorinhood.drivers.user.UserDriver;
 import com.thorinhood.exceptions.S3Exception;
+import com.thorinhood.handlers.StreamedHttpRequest;
 import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import org.apache.commons.codec.digest.DigestUtils;
 
@@ -30,13 +36,38 @@ public class RequestUtil {
     }
 
     public ParsedRequest parseRequest(FullHttpRequest request) throws S3Exception {
+        ParsedRequest parsedRequest = parseRequestHead(request);
+        setContent(parsedRequest, request);
+        return parsedRequest;
+    }
+
+    /**
+     * Parses everything but the body. The head is parsed once when it arrives, the body is attached by
+     * {@link #setContent(ParsedRequest, FullHttpRequest)} when it is received
+     */
+    public ParsedRequest parseRequestHead(HttpRequest request) throws S3Exception {
         PayloadSignType payloadSignType = getPayloadSignType(request);
-        byte[] bytes = convert(request.content().asReadOnly());
-        Credential credential = Credential.parse(request);
-        String requestSignature = extractSignature(request);
+        String authorization = request.headers().get("Authorization");
+        if (authorization == null) {
+            throw S3Exception.ACCESS_DENIED();
+        }
+        Credential credential;
+        String requestSignature;
+        Set<String> signedHeaders;
+        try {
+            credential = Credential.parse(request);
+            requestSignature = extractSignature(authorization);
+            signedHeaders = extractSignedHeaders(authorization);
+        } catch (IndexOutOfBoundsException exception) {
+            // malformed Authorization header
+            throw S3Exception.ACCESS_DENIED();
+        }
         String decodedContentLength = request.headers().get(S3Headers.X_AMZ_DECODED_CONTENT_LENGTH);
         S3FileObjectPath s3FileObjectPath = extractS3Path(request);
         Map<String, List<String>> queryParams = parseQueryParams(request);
+        String listType = getSingleValue(queryParams, "list-type");
+        S3Operation operation = resolveOperation(request.method(), s3FileObjectPath, queryParams, listType,
+                request.headers());
         Map<String, String> metadata = extractMetaData(request);
         Optional<S3User> s3User = userDriver.getS3User(credential.getValue(Credential.ACCESS_KEY));
         if (s3User.isEmpty()) {
@@ -44,31 +75,138 @@ public class RequestUtil {
         }
         return ParsedRequest.builder()
                 .setS3ObjectPath(s3FileObjectPath)
-                .setBytes(bytes)
                 .setCredential(credential)
                 .setDecodedContentLength(decodedContentLength != null ? Integer.parseInt(decodedContentLength) : 0)
                 .setHeaders(request.headers())
                 .setPayloadSignType(payloadSignType)
                 .setSignature(requestSignature)
                 .setQueryParams(queryParams)
+                .setOperation(operation)
+                .setUploadId(getSingleValue(queryParams, "uploadId"))
+                .setPartNumber(extractPartNumber(queryParams))
+                .setListType(listType)
                 .setMethod(request.method())
                 .setMetadata(metadata)
                 .setS3User(s3User.get())
                 .setRawUri(request.uri())
-                .setSignedHeaders(extractSignedHeaders(request))
+                .setSignedHeaders(signedHeaders)
                 .build();
     }
 
-    private Set<String> extractSignedHeaders(FullHttpRequest request) {
-        String authorization = request.headers().get("Authorization");
+    public void setContent(ParsedRequest parsedRequest, FullHttpRequest request) {
+        parsedRequest.setBytes(convert(request.content().asReadOnly()));
+        parsedRequest.setStreamedContent(request instanceof StreamedHttpRequest ?
+                ((StreamedHttpRequest) request).getStreamedContent() : null);
+    }
+
+    /**
+     * @return null if the request has no partNumber
+     */
+    private Integer extractPartNumber(Map<String, List<String>> queryParams) throws S3Exception {
+        String value = getSingleValue(queryParams, "partNumber");
+        if (value == null) {
+            return null;
+        }
+        int partNumber;
+        try {
+            partNumber = Integer.parseInt(value);
+        } catch (NumberFormatException exception) {
+            partNumber = 0;
+        }
+        if (partNumber < 1 || partNumber > 10000) {
+            throw S3Exception.builder("Part number must be an integer between 1 and 10000, inclusive")
+                    .setStatus(HttpResponseStatus.BAD_REQUEST)
+                    .setCode(S3ResponseErrorCodes.INVALID_ARGUMENT)
+                    .setMessage("Part number must be an integer between 1 and 10000, inclusive")
+                    .build();
+        }
+        return partNumber;
+    }
+
+    private S3Operation resolveOperation(HttpMethod method, S3FileObjectPath path,
+                                         Map<String, List<String>> queryParams, String listType,
+                                         HttpHeaders headers) {
+        boolean isPathToObject = path != null && !path.isBucket();
+        if (HttpMethod.GET.equals(method)) {
+            if (path == null) {
+                return S3Operation.LIST_BUCKETS;
+            } else if (queryParams.containsKey("acl")) {
+                return isPathToObject ? S3Operation.GET_OBJECT_ACL : S3Operation.GET_BUCKET_ACL;
+            } else if (queryParams.containsKey("policy")) {
+                return S3Operation.GET_BUCKET_POLICY;
+            } else if (isPathToObject) {
+                return S3Operation.GET_OBJECT;
+            }
+            return "2".equals(listType) ? S3Operation.LIST_OBJECTS_V2 :
+                    S3Operation.LIST_OBJECTS;
+        } else if (HttpMethod.PUT.equals(method)) {
+            if (queryParams.containsKey("acl")) {
+                return isPathToObject ? S3Operation.PUT_OBJECT_ACL : S3Operation.PUT_BUCKET_ACL;
+            } else if (queryParams.containsKey("policy")) {
+                return S3Operation.PUT_BUCKET_POLICY;
+            } else if (!isPathToObject) {
+                return S3Operation.CREATE_BUCKET;
+            } else if (queryParams.containsKey("partNumber") && queryParams.containsKey("uploadId")) {
+                return S3Operation.UPLOAD_PART;
+            }
+            return headers.contains("x-amz-copy-source") ? S3Operation.COPY_OBJECT : S3Operation.PUT_OBJECT;
+        } else if (HttpMethod.HEAD.equals(method)) {
+            return isPathToObject ? S3Operation.HEAD_OBJECT : null;
+        } else if (HttpMethod.DELETE.equals(method)) {
+            if (!isPathToObject) {
+                return S3Operation.DELETE_BUCKET;
+            }
+            return queryParams.containsKey("uploadId") ? S3Operation.ABORT_MULTIPART_UPLOAD :
+                    S3Operation.DELETE_OBJECT;
+        } else if (HttpMethod.POST.equals(method)) {
+            if (queryParams.containsKey("uploads")) {
+                return S3Operation.CREATE_MULTIPART_UPLOAD;
+            } else if (queryParams.containsKey("uploadId")) {
+                return S3Operation.COMPLETE_MULTIPART_UPLOAD;
+            }
+        }
+        return null;
+    }
+
+    private String getSingleValue(Map<String, List<String>> queryParams, String key) {
+        List<String> values = queryParams.get(key);
+        return values != null && values.size() == 1 ? values.get(0) : null;
+    }
+
+    private Set<String> extractSignedHeaders(String authorization) {
         String headers = authorization.substring(authorization.indexOf("SignedHeaders=") + "SignedHeaders=".length());
         headers = headers.substring(0, headers.indexOf(",")).trim();
         return Set.of(headers.split(";"));
     }
 
     public void checkRequest(ParsedRequest parsedRequest) throws S3Exception {
+        checkPayloadHash(parsedRequest);
+        checkSignature(parsedRequest);
+    }
+
+    public void checkContentLength(HttpRequest request, long maxContentLength) throws S3Exception {
+        String decodedContentLength = request.headers().get(S3Headers.X_AMZ_DECODED_CONTENT_LENGTH);
+        long contentLength;
+        try {
+            contentLength = decodedContentLength != null ? Long.parseLong(decodedContentLength) :
+                    HttpUtil.getContentLength(request, 0L);
+        } catch (NumberFormatException exception) {
+            throw S3Exception.builder("Invalid content length : " + exception.getMessage())
+                    .setStatus(HttpResponseStatus.BAD_REQUEST)
+                    .setCode(S3ResponseErrorCodes.INVALID_ARGUMENT)
+                    .setMessage("Invalid content length")
+                    .build();
+        }
+        if (contentLength > maxContentLength) {
+            throw S3Exception.ENTITY_TOO_LARGE(contentLength, maxContentLength);
+        }
+    }
+
+    private void checkPayloadHash(ParsedRequest parsedRequest) throws S3Exception {
         if (parsedRequest.getPayloadSignType() == PayloadSignType.SINGLE_CHUNK) {
-            String calculatedPayloadHash = DigestUtils.sha256Hex(parsedRequest.getBytes());
+            String calculatedPayloadHash = parsedRequest.getStreamedContent() != null ?
+                    parsedRequest.getStreamedContent().getSha256() :
+                    DigestUtils.sha256Hex(parsedRequest.getBytes());
             if (!calculatedPayloadHash.equals(parsedRequest.getHeader(S3Headers.X_AMZ_CONTENT_SHA256))) {
                 throw S3Exception.builder("calculated payload hash not equals with x-amz-content-sha256")
                         .setStatus(HttpResponseStatus.BAD_REQUEST)
@@ -78,7 +216,9 @@ public class RequestUtil {
                         .build();
             }
         }
+    }
 
+    public void checkSignature(ParsedRequest parsedRequest) throws S3Exception {
         String calculatedSignature = SignUtil.calcSignature(parsedRequest);
         if (!calculatedSignature.equals(parsedRequest.getSignature())) {
             throw S3Exception.builder("calculated payload hash not equals with x-amz-content-sha256")
@@ -89,7 +229,7 @@ public class RequestUtil {
         }
     }
 
-    private Map<String, String> extractMetaData(FullHttpRequest request) {
+    private Map<String, String> extractMetaData(HttpRequest request) {
         return request.headers()
                 .entries()
                 .stream()
@@ -99,7 +239,7 @@ public class RequestUtil {
                         Map.Entry::getValue));
     }
 
-    private Map<String, List<String>> parseQueryParams(FullHttpRequest request) {
+    private Map<String, List<String>> parseQueryParams(HttpRequest request) {
         String uri = QueryStringDecoder.decodeComponent(request.uri());
         int indexStart = uri.indexOf("?");
         if (indexStart == -1) {
@@ -128,7 +268,7 @@ public class RequestUtil {
         return result;
     }
 
-    private PayloadSignType getPayloadSignType(FullHttpRequest request) {
+    private PayloadSignType getPayloadSignType(HttpRequest request) {
         if (!request.headers().contains(S3Headers.X_AMZ_CONTENT_SHA256)) {
             throw S3Exception.builder("x-amz-content-sha256 header not found")
                     .setStatus(BAD_REQUEST)
@@ -146,12 +286,11 @@ public class RequestUtil {
         }
     }
 
-    private String extractSignature(FullHttpRequest request) {
-        String authorization = request.headers().get("Authorization");
+    private String extractSignature(String authorization) {
         return authorization.substring(authorization.indexOf("Signature=") + "Signature=".length());
     }
 
-    private S3FileObjectPath extractS3Path(FullHttpRequest request) throws S3Exception {
+    public S3FileObjectPath extractS3Path(HttpRequest request) throws S3Exception {
         String uri = QueryStringDecoder.decodeComponent(request.uri());
         if (uri.isEmpty() || uri.charAt(0) != '/') {
             throw S3Exception.builder("Incorrect uri path")
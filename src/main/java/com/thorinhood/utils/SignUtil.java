@@ -1,38 +1,69 @@
 package com.thorinhood.utils;
 
 import com.thorinhood.data.requests.S3Headers;
-import io.netty.handler.codec.http.FullHttpRequest;
-import org.apache.commons.codec.digest.DigestUtils;
-import software.amazon.awssdk.auth.signer.internal.SignerConstant;
-import software.amazon.awssdk.auth.signer.internal.SigningAlgorithm;
-import software.amazon.awssdk.core.exception.SdkClientException;
-import software.amazon.awssdk.utils.BinaryUtils;
-import software.amazon.awssdk.utils.StringUtils;
-import software.amazon.awssdk.utils.http.SdkHttpUtils;
+import com.thorinhood.exceptions.S3Exception;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * AWS Signature Version 4. Signing keys are derived once per credential scope (access key, date, region, service)
+ * and cached, Mac and MessageDigest instances are reused per thread.
+ */
 public class SignUtil {
 
     public static final String LINE_SEPARATOR = "\n";
 
-    public static String calcPayloadSignature(FullHttpRequest request, Credential credential, String prevSignature,
-                                              byte[] currentChunkData, String secretKey) {
-        String stringToSign = createPayloadStringToSign(request, credential, prevSignature, currentChunkData);
-        byte[] signingKey = newSingingKey(
-                secretKey,
-                credential.getValue(Credential.DATE),
-                credential.getValue(Credential.REGION_NAME),
-                credential.getValue(Credential.SERVICE_NAME));
-        byte[] signature = computeSignature(stringToSign, signingKey);
-        return BinaryUtils.toHex(signature);
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final String SHA256 = "SHA-256";
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String PAYLOAD_ALGORITHM = "AWS4-HMAC-SHA256-PAYLOAD";
+    private static final String AWS4_TERMINATOR = "aws4_request";
+    private static final int MAX_CACHED_SIGNING_KEYS = 4096;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] URL_ENCODING_HEX = "0123456789ABCDEF".toCharArray();
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_SHA256);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    });
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(SHA256);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    });
+    private static final Map<String, SigningKey> SIGNING_KEYS = new ConcurrentHashMap<>();
+    private static final String EMPTY_PAYLOAD_SHA256 = sha256Hex(new byte[0]);
+
+    public static String calcPayloadSignature(String amzDate, Credential credential, String prevSignature,
+                                              String chunkSha256, String secretKey) {
+        String stringToSign = PAYLOAD_ALGORITHM +
+                LINE_SEPARATOR +
+                amzDate +
+                LINE_SEPARATOR +
+                credential.getCredentialWithoutAccessKey() +
+                LINE_SEPARATOR +
+                prevSignature +
+                LINE_SEPARATOR +
+                EMPTY_PAYLOAD_SHA256 +
+                LINE_SEPARATOR +
+                chunkSha256;
+        return toHex(hmac(getSigningKey(credential, secretKey), stringToSign));
     }
 
     public static String calcSignature(ParsedRequest parsedRequest) {
-        String contentSha256 = "";
+        String contentSha256;
         if (parsedRequest.getPayloadSignType() == PayloadSignType.SINGLE_CHUNK) {
             contentSha256 = parsedRequest.getHeader(S3Headers.X_AMZ_CONTENT_SHA256);
         } else if (parsedRequest.getPayloadSignType() == PayloadSignType.CHUNKED) {
@@ -41,159 +72,185 @@ public class SignUtil {
             contentSha256 = PayloadSignType.UNSIGNED_PAYLOAD.getValue();
         }
 
-        int indexOfStartParams = parsedRequest.getRawUri().indexOf("?");
-        String relativePath = parsedRequest.getRawUri().substring(0, indexOfStartParams != -1 ? indexOfStartParams :
-                parsedRequest.getRawUri().length());
+        String rawUri = parsedRequest.getRawUri();
+        int indexOfStartParams = rawUri.indexOf("?");
+        String relativePath = indexOfStartParams != -1 ? rawUri.substring(0, indexOfStartParams) : rawUri;
 
-        String canonicalRequest = createCanonicalRequest(
-                parsedRequest,
-                relativePath,
-                contentSha256
-        );
-        String stringToSign = createStringToSign(canonicalRequest, parsedRequest);
-
-        byte[] signingKey = newSingingKey(
-                parsedRequest.getS3User().getSecretKey(),
-                parsedRequest.getCredential().getValue(Credential.DATE),
-                parsedRequest.getCredential().getValue(Credential.REGION_NAME),
-                parsedRequest.getCredential().getValue(Credential.SERVICE_NAME));
-
-        byte[] signature = computeSignature(stringToSign, signingKey);
-        return BinaryUtils.toHex(signature);
+        String canonicalRequest = createCanonicalRequest(parsedRequest, relativePath, contentSha256);
+        String stringToSign = ALGORITHM +
+                LINE_SEPARATOR +
+                parsedRequest.getHeader(S3Headers.X_AMZ_DATE) +
+                LINE_SEPARATOR +
+                parsedRequest.getCredential().getCredentialWithoutAccessKey() +
+                LINE_SEPARATOR +
+                sha256Hex(canonicalRequest.getBytes(StandardCharsets.UTF_8));
+        return toHex(hmac(getSigningKey(parsedRequest.getCredential(), parsedRequest.getS3User().getSecretKey()),
+                stringToSign));
     }
 
     private static String createCanonicalRequest(ParsedRequest parsedRequest, String relativePath,
                                                  String contentSha256) {
         Map<String, String> headers = new TreeMap<>();
-        for (Map.Entry<String, String> entry : parsedRequest.getHeaders().entries()) {
-            if (parsedRequest.getSignedHeaders().contains(entry.getKey().toLowerCase())) {
+        for (Map.Entry<String, String> entry : parsedRequest.getHeaders()) {
+            String key = entry.getKey().toLowerCase();
+            if (parsedRequest.getSignedHeaders().contains(key)) {
                 if (!(entry.getKey().equals("content-length") && Long.parseLong(entry.getValue()) == 0L)) {
-                    headers.put(entry.getKey().toLowerCase(), entry.getValue());
+                    headers.put(key, entry.getValue());
                 }
             }
         }
-        return parsedRequest.getMethod().toString() +
-                LINE_SEPARATOR +
-                getCanonicalizedResourcePath(relativePath, false) +
-                LINE_SEPARATOR +
-                getCanonicalizedQueryString(parsedRequest.getQueryParams()) +
-                LINE_SEPARATOR +
-                getCanonicalizedHeaderString(headers) +
-                LINE_SEPARATOR +
-                getSignedHeadersString(headers) +
-                LINE_SEPARATOR +
-                contentSha256;
-    }
-
-    private static String createPayloadStringToSign(FullHttpRequest request, Credential credential,
-                                                    String prevSignature, byte[] currentChunkData) {
-        String formattedRequestSigningDateTime = request.headers().get(S3Headers.X_AMZ_DATE);
-        return "AWS4-HMAC-SHA256-PAYLOAD" +
-                LINE_SEPARATOR +
-                formattedRequestSigningDateTime +
-                LINE_SEPARATOR +
-                credential.getCredentialWithoutAccessKey() +
-                LINE_SEPARATOR +
-                prevSignature +
-                LINE_SEPARATOR +
-                BinaryUtils.toHex(DigestUtils.sha256("")) +
-                LINE_SEPARATOR +
-                DigestUtils.sha256Hex(currentChunkData);
+        StringBuilder canonicalRequest = new StringBuilder(512)
+                .append(parsedRequest.getMethod().name())
+                .append(LINE_SEPARATOR);
+        appendCanonicalizedResourcePath(canonicalRequest, relativePath);
+        canonicalRequest.append(LINE_SEPARATOR);
+        appendCanonicalizedQueryString(canonicalRequest, parsedRequest.getQueryParams());
+        canonicalRequest.append(LINE_SEPARATOR);
+        headers.forEach((key, value) -> {
+            canonicalRequest.append(key).append(':');
+            if (value != null) {
+                canonicalRequest.append(value);
+            }
+            canonicalRequest.append(LINE_SEPARATOR);
+        });
+        canonicalRequest.append(LINE_SEPARATOR);
+        boolean first = true;
+        for (String key : headers.keySet()) {
+            if (!first) {
+                canonicalRequest.append(';');
+            }
+            canonicalRequest.append(key);
+            first = false;
+        }
+        return canonicalRequest.append(LINE_SEPARATOR)
+                .append(contentSha256)
+                .toString();
     }
 
-    private static String createStringToSign(String canonicalRequest, ParsedRequest parsedRequest) {
-        return "AWS4-HMAC-SHA256" +
-                LINE_SEPARATOR +
-                parsedRequest.getHeader(S3Headers.X_AMZ_DATE) +
-                LINE_SEPARATOR +
-                parsedRequest.getCredential().getCredentialWithoutAccessKey() +
-                LINE_SEPARATOR +
-                BinaryUtils.toHex(DigestUtils.sha256(canonicalRequest));
+    private static void appendCanonicalizedResourcePath(StringBuilder result, String resourcePath) {
+        if (resourcePath == null || resourcePath.isEmpty()) {
+            result.append('/');
+            return;
+        }
+        if (resourcePath.charAt(0) != '/') {
+            result.append('/');
+        }
+        result.append(resourcePath);
     }
 
-    private static String getCanonicalizedResourcePath(String resourcePath, boolean urlEncode) {
-        if (StringUtils.isEmpty(resourcePath)) {
-            return "/";
-        } else {
-            String value = urlEncode ? SdkHttpUtils.urlEncodeIgnoreSlashes(resourcePath) : resourcePath;
-            if (value.startsWith("/")) {
-                return value;
-            } else {
-                return "/".concat(value);
+    private static void appendCanonicalizedQueryString(StringBuilder result, Map<String, List<String>> parameters) {
+        if (parameters.isEmpty()) {
+            return;
+        }
+        SortedMap<String, List<String>> sorted = new TreeMap<>();
+        for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
+            List<String> encodedValues = new ArrayList<>(entry.getValue().size());
+            for (String value : entry.getValue()) {
+                encodedValues.add(urlEncode(value));
+            }
+            Collections.sort(encodedValues);
+            sorted.put(urlEncode(entry.getKey()), encodedValues);
+        }
+        boolean first = true;
+        for (Map.Entry<String, List<String>> entry : sorted.entrySet()) {
+            for (String value : entry.getValue()) {
+                if (!first) {
+                    result.append('&');
+                }
+                result.append(entry.getKey()).append('=').append(value);
+                first = false;
             }
         }
     }
 
-    private static byte[] computeSignature(String stringToSign, byte[] signingKey) {
-        return sign(stringToSign.getBytes(StandardCharsets.UTF_8), signingKey,
-                SigningAlgorithm.HmacSHA256);
+    private static SecretKeySpec getSigningKey(Credential credential, String secretKey) {
+        SigningKey signingKey = SIGNING_KEYS.get(credential.getCredential());
+        if (signingKey != null && signingKey.secretKey.equals(secretKey)) {
+            return signingKey.key;
+        }
+        if (SIGNING_KEYS.size() >= MAX_CACHED_SIGNING_KEYS) {
+            SIGNING_KEYS.clear();
+        }
+        signingKey = new SigningKey(secretKey, newSigningKey(
+                secretKey,
+                credential.getValue(Credential.DATE),
+                credential.getValue(Credential.REGION_NAME),
+                credential.getValue(Credential.SERVICE_NAME)));
+        SIGNING_KEYS.put(credential.getCredential(), signingKey);
+        return signingKey.key;
     }
 
-    private static byte[] newSingingKey(String key, String dateStamp, String regionName, String serviceName) {
+    private static SecretKeySpec newSigningKey(String key, String dateStamp, String regionName, String serviceName) {
         byte[] kSecret = ("AWS4" + key).getBytes(StandardCharsets.UTF_8);
-        byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
-        byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
-        byte[] kService = sign(serviceName, kRegion, SigningAlgorithm.HmacSHA256);
-        return sign(SignerConstant.AWS4_TERMINATOR, kService, SigningAlgorithm.HmacSHA256);
+        byte[] kDate = hmac(new SecretKeySpec(kSecret, HMAC_SHA256), dateStamp);
+        byte[] kRegion = hmac(new SecretKeySpec(kDate, HMAC_SHA256), regionName);
+        byte[] kService = hmac(new SecretKeySpec(kRegion, HMAC_SHA256), serviceName);
+        return new SecretKeySpec(hmac(new SecretKeySpec(kService, HMAC_SHA256), AWS4_TERMINATOR), HMAC_SHA256);
     }
 
-    private static byte[] sign(String stringData, byte[] key, SigningAlgorithm algorithm) throws SdkClientException {
+    private static byte[] hmac(SecretKeySpec key, String data) throws S3Exception {
         try {
-            byte[] data = stringData.getBytes(StandardCharsets.UTF_8);
-            return sign(data, key, algorithm);
-        } catch (Exception e) {
-            throw SdkClientException.builder()
-                    .message("Unable to calculate a request signature: " + e.getMessage())
-                    .cause(e)
-                    .build();
+            Mac mac = MAC.get();
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException exception) {
+            throw S3Exception.INTERNAL_ERROR("Unable to calculate a request signature: " + exception.getMessage());
         }
     }
 
-    private static byte[] sign(byte[] data, byte[] key, SigningAlgorithm algorithm) throws SdkClientException {
-        try {
-            Mac mac = algorithm.getMac();
-            mac.init(new SecretKeySpec(key, algorithm.toString()));
-            return mac.doFinal(data);
-        } catch (Exception e) {
-            throw SdkClientException.builder()
-                    .message("Unable to calculate a request signature: " + e.getMessage())
-                    .cause(e)
-                    .build();
-        }
+    private static String sha256Hex(byte[] data) {
+        return toHex(DIGEST.get().digest(data));
     }
 
-    private static String getCanonicalizedQueryString(Map<String, List<String>> parameters) {
-        SortedMap<String, List<String>> sorted = new TreeMap<>();
-        for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
-            String encodedParamName = SdkHttpUtils.urlEncode(entry.getKey());
-            List<String> paramValues = entry.getValue();
-            List<String> encodedValues = new ArrayList<>(paramValues.size());
-            for (String value : paramValues) {
-                String encodedValue = SdkHttpUtils.urlEncode(value);
-                String signatureFormattedEncodedValue = encodedValue == null ? "" : encodedValue;
-                encodedValues.add(signatureFormattedEncodedValue);
-            }
-            Collections.sort(encodedValues);
-            sorted.put(encodedParamName, encodedValues);
-
+    private static String toHex(byte[] bytes) {
+        char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i * 2] = HEX[(bytes[i] >> 4) & 0x0F];
+            result[i * 2 + 1] = HEX[bytes[i] & 0x0F];
         }
-        return SdkHttpUtils.flattenQueryParameters(sorted).orElse("");
+        return new String(result);
     }
 
-    private static String getCanonicalizedHeaderString(Map<String, String> headers) {
-        StringBuilder result = new StringBuilder();
-        headers.forEach((key, value) -> {
-            result.append(key).append(":");
-            if (value != null) {
-                result.append(value);
+    /**
+     * RFC 3986 encoding of a query parameter, everything except unreserved characters is percent-encoded
+     */
+    private static String urlEncode(String value) {
+        if (value == null) {
+            return "";
+        }
+        int unreserved = 0;
+        while (unreserved < value.length() && isUnreserved(value.charAt(unreserved))) {
+            unreserved++;
+        }
+        if (unreserved == value.length()) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length() + 16).append(value, 0, unreserved);
+        for (byte b : value.substring(unreserved).getBytes(StandardCharsets.UTF_8)) {
+            int c = b & 0xFF;
+            if (isUnreserved(c)) {
+                result.append((char) c);
+            } else {
+                result.append('%')
+                        .append(URL_ENCODING_HEX[c >> 4])
+                        .append(URL_ENCODING_HEX[c & 0x0F]);
             }
-            result.append(LINE_SEPARATOR);
-        });
+        }
         return result.toString();
     }
 
-    private static String getSignedHeadersString(Map<String, String> headers) {
-        return String.join(";", headers.keySet());
+    private static boolean isUnreserved(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                c == '-' || c == '_' || c == '.' || c == '~';
     }
 
+    private static class SigningKey {
+        private final String secretKey;
+        private final SecretKeySpec key;
+
+        private SigningKey(String secretKey, SecretKeySpec key) {
+            this.secretKey = secretKey;
+            this.key = key;
+        }
+    }
 }
@@ -1,55 +1,38 @@
 package com.thorinhood.utils;
 
-import com.thorinhood.exceptions.S3Exception;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 
 public interface XmlObject {
 
-    default String buildXmlText() throws S3Exception {
+    default ByteBuf buildXmlByteBuf(ByteBufAllocator allocator) {
+        ByteBuf buffer = allocator.buffer();
         try {
-            DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-            Document doc = docBuilder.newDocument();
-            doc.setXmlStandalone(true);
-            doc.appendChild(buildXmlRootNode(doc));
-            return XmlUtil.xmlDocumentToString(doc);
-        } catch (ParserConfigurationException e) {
-            throw S3Exception.INTERNAL_ERROR(e.getMessage());
+            writeXml(new XmlWriter(buffer).declaration());
+            return buffer;
+        } catch (RuntimeException exception) {
+            buffer.release();
+            throw exception;
         }
     }
 
-    default Element createTextElement(Document doc, String key, String value) {
-        if (value == null) {
-            return null;
-        }
-        return createElement(doc, key, doc.createTextNode(value));
-    }
-
-    default Element createElement(Document doc, String key, Node... values) {
-        Element element = doc.createElement(key);
-        for (Node child : values) {
-            if (child != null) {
-                element.appendChild(child);
-            }
+    default byte[] buildXmlBytes() {
+        ByteBuf buffer = buildXmlByteBuf(UnpooledByteBufAllocator.DEFAULT);
+        try {
+            byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.readBytes(bytes);
+            return bytes;
+        } finally {
+            buffer.release();
         }
-        return element;
     }
 
-    default Element appendAttributes(Element element, Map<String, String> attributes) {
-        attributes.forEach((key, value) -> {
-            if (value != null) {
-                element.setAttribute(key, value);
-            }
-        });
-        return element;
+    default String buildXmlText() {
+        return new String(buildXmlBytes(), StandardCharsets.UTF_8);
     }
 
-    Element buildXmlRootNode(Document doc);
+    void writeXml(XmlWriter writer);
 }
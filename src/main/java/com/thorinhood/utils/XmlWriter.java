@@ -0,0 +1,165 @@
+package com.thorinhood.utils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Writes escaped UTF-8 xml straight into a {@link ByteBuf}, without a DOM tree or an intermediate String.
+ */
+public class XmlWriter {
+
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+    private final ByteBufAllocator allocator;
+    private final Consumer<ByteBuf> sink;
+    private final Deque<String> elements;
+    private ByteBuf buffer;
+    private boolean startTagOpen;
+
+    public XmlWriter(ByteBuf buffer) {
+        this(buffer, null, null);
+    }
+
+    /**
+     * Streaming writer, {@link #flush()} hands what is written so far to the sink and continues in a new buffer
+     */
+    public XmlWriter(ByteBufAllocator allocator, Consumer<ByteBuf> sink) {
+        this(allocator.buffer(), allocator, sink);
+    }
+
+    private XmlWriter(ByteBuf buffer, ByteBufAllocator allocator, Consumer<ByteBuf> sink) {
+        this.buffer = buffer;
+        this.allocator = allocator;
+        this.sink = sink;
+        this.elements = new ArrayDeque<>();
+    }
+
+    public XmlWriter declaration() {
+        ByteBufUtil.writeAscii(buffer, DECLARATION);
+        return this;
+    }
+
+    public XmlWriter startElement(String name) {
+        closeStartTag();
+        buffer.writeByte('<');
+        ByteBufUtil.writeUtf8(buffer, name);
+        elements.push(name);
+        startTagOpen = true;
+        return this;
+    }
+
+    public XmlWriter attribute(String name, String value) {
+        if (value == null) {
+            return this;
+        }
+        if (!startTagOpen) {
+            throw new IllegalStateException("Attribute " + name + " must follow a start element");
+        }
+        buffer.writeByte(' ');
+        ByteBufUtil.writeUtf8(buffer, name);
+        buffer.writeByte('=').writeByte('"');
+        writeEscaped(value);
+        buffer.writeByte('"');
+        return this;
+    }
+
+    public XmlWriter text(String value) {
+        closeStartTag();
+        if (value != null) {
+            writeEscaped(value);
+        }
+        return this;
+    }
+
+    public XmlWriter textElement(String name, String value) {
+        if (value == null) {
+            return this;
+        }
+        return startElement(name).text(value).endElement();
+    }
+
+    public XmlWriter element(XmlObject xmlObject) {
+        if (xmlObject != null) {
+            xmlObject.writeXml(this);
+        }
+        return this;
+    }
+
+    public XmlWriter endElement() {
+        String name = elements.pop();
+        if (startTagOpen) {
+            buffer.writeByte('/').writeByte('>');
+            startTagOpen = false;
+        } else {
+            buffer.writeByte('<').writeByte('/');
+            ByteBufUtil.writeUtf8(buffer, name);
+            buffer.writeByte('>');
+        }
+        return this;
+    }
+
+    /**
+     * Does nothing if the writer is not streaming
+     */
+    public XmlWriter flush() {
+        if (sink == null || !buffer.isReadable()) {
+            return this;
+        }
+        ByteBuf written = buffer;
+        buffer = allocator.buffer();
+        sink.accept(written);
+        return this;
+    }
+
+    public ByteBuf getBuffer() {
+        return buffer;
+    }
+
+    private void closeStartTag() {
+        if (startTagOpen) {
+            buffer.writeByte('>');
+            startTagOpen = false;
+        }
+    }
+
+    private void writeEscaped(String value) {
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement = escape(value.charAt(i));
+            if (replacement != null) {
+                if (i > from) {
+                    ByteBufUtil.writeUtf8(buffer, value.subSequence(from, i));
+                }
+                ByteBufUtil.writeAscii(buffer, replacement);
+                from = i + 1;
+            }
+        }
+        if (from == 0) {
+            ByteBufUtil.writeUtf8(buffer, value);
+        } else if (from < value.length()) {
+            ByteBufUtil.writeUtf8(buffer, value.subSequence(from, value.length()));
+        }
+    }
+
+    private static String escape(char c) {
+        switch (c) {
+            case '&':
+                return "&amp;";
+            case '<':
+                return "&lt;";
+            case '>':
+                return "&gt;";
+            case '"':
+                return "&quot;";
+            case '\r':
+                return "&#13;";
+            default:
+                return null;
+        }
+    }
+}
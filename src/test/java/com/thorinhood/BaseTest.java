@@ -10,6 +10,7 @@ import com.thorinhood.drivers.main.S3Driver;
 import com.thorinhood.drivers.main.S3FileDriverImpl;
 import com.thorinhood.drivers.metadata.FileMetadataDriver;
 import com.thorinhood.drivers.metadata.MetadataDriver;
+import com.thorinhood.drivers.metadata.MetadataLayout;
 import com.thorinhood.drivers.principal.PolicyDriver;
 import com.thorinhood.drivers.user.UserDriver;
 import com.thorinhood.utils.RequestUtil;
@@ -67,13 +68,21 @@ public class BaseTest {
     private List<S3AsyncClient> s3AsyncClientsCash;
 
     public BaseTest(String baseFolderName, int port) {
+        this(baseFolderName, port, MetadataLayout.FILES);
+    }
+
+    public BaseTest(String baseFolderName, int port, MetadataLayout metadataLayout) {
+        this(baseFolderName, port, metadataLayout, false);
+    }
+
+    public BaseTest(String baseFolderName, int port, MetadataLayout metadataLayout, boolean virtualMultipart) {
         String home = System.getenv("HOME");
         String basePath = home + File.separatorChar + baseFolderName;
         this.BASE_PATH = basePath;
         this.port = port;
         createUsers();
         EntityLockDriver entityLockDriver = new EntityLockDriver();
-        FILE_DRIVERS_FACTORY = new FileDriversFactory(basePath);
+        FILE_DRIVERS_FACTORY = new FileDriversFactory(basePath, metadataLayout, true, 1, virtualMultipart);
         USER_DRIVER = FILE_DRIVERS_FACTORY.createUserDriver();
         ACL_DRIVER = FILE_DRIVERS_FACTORY.createAclDriver();
         METADATA_DRIVER = FILE_DRIVERS_FACTORY.createMetadataDriver();
@@ -122,6 +131,7 @@ public class BaseTest {
     @AfterAll
     void clean() throws Exception {
         SERVER.stop();
+        USER_DRIVER.close();
         FILE_DRIVERS_FACTORY.clearAll();
         serverThread.interrupt();
     }
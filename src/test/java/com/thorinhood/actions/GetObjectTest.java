@@ -3,6 +3,7 @@ package com.thorinhood.actions;
 import com.thorinhood.BaseTest;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.sync.ResponseTransformer;
@@ -112,4 +113,54 @@ public class GetObjectTest extends BaseTest {
         }
     }
 
+    @Test
+    public void getObjectRange() {
+        S3Client s3 = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        String content = builder.toString();
+        createBucketRaw(s3, "bucket");
+        putObjectRaw(s3, "bucket", "file.txt", content, null);
+
+        ResponseBytes<GetObjectResponse> response = getObjectRange(s3, "bytes=10-19", null);
+        Assertions.assertEquals(content.substring(10, 20), response.asUtf8String());
+        Assertions.assertEquals("bytes 10-19/1000", response.response().contentRange());
+        Assertions.assertEquals(10, response.response().contentLength());
+
+        response = getObjectRange(s3, "bytes=-15", null);
+        Assertions.assertEquals(content.substring(985), response.asUtf8String());
+        response = getObjectRange(s3, "bytes=990-5000", null);
+        Assertions.assertEquals(content.substring(990), response.asUtf8String());
+        Assertions.assertEquals("bytes 990-999/1000", response.response().contentRange());
+
+        response = getObjectRange(s3, "bytes=0-4,20-24", null);
+        Assertions.assertTrue(response.response().contentType().startsWith("multipart/byteranges"));
+        String body = response.asUtf8String();
+        Assertions.assertTrue(body.contains("Content-Range: bytes 0-4/1000\r\n\r\n" + content.substring(0, 5)));
+        Assertions.assertTrue(body.contains("Content-Range: bytes 20-24/1000\r\n\r\n" + content.substring(20, 25)));
+
+        response = getObjectRange(s3, "bytes=10-19", "\"" + calcETag(content) + "\"");
+        Assertions.assertEquals(content.substring(10, 20), response.asUtf8String());
+        response = getObjectRange(s3, "bytes=10-19", "\"aaa\"");
+        Assertions.assertEquals(content, response.asUtf8String());
+        Assertions.assertNull(response.response().contentRange());
+
+        assertException(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE.code(),
+                S3ResponseErrorCodes.INVALID_RANGE, () -> getObjectRange(s3, "bytes=1000-", null));
+    }
+
+    private ResponseBytes<GetObjectResponse> getObjectRange(S3Client s3, String range, String ifRange) {
+        return s3.getObject(GetObjectRequest.builder()
+                .bucket("bucket")
+                .key("file.txt")
+                .range(range)
+                .overrideConfiguration(configuration -> {
+                    if (ifRange != null) {
+                        configuration.putHeader("If-Range", ifRange);
+                    }
+                })
+                .build(), ResponseTransformer.toBytes());
+    }
 }
@@ -0,0 +1,115 @@
+package com.thorinhood.benchmarks;
+
+import com.thorinhood.data.policy.AWSPrincipal;
+import com.thorinhood.data.policy.BucketPolicy;
+import com.thorinhood.data.policy.Statement;
+import com.thorinhood.drivers.principal.CompiledBucketPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of a bucket policy with the recursive matcher that S3FileDriverImpl used before and with
+ * {@link CompiledBucketPolicy}. The only applicable statement is the last one, so every statement is looked at.
+ * Run {@link #main} with the test classpath after {@code mvn test-compile}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BucketPolicyBenchmark {
+
+    private static final String BUCKET = "bucket";
+    private static final String KEY = "folder1/folder2/folder3/file.txt";
+    private static final String METHOD_NAME = "s3:GetObject";
+    private static final String ARN = "arn:aws:iam::123456789012:user/testRootUser";
+
+    @Param({"10", "100", "500"})
+    private int statements;
+
+    private BucketPolicy bucketPolicy;
+    private CompiledBucketPolicy compiledBucketPolicy;
+
+    @Setup
+    public void setup() {
+        List<Statement> policyStatements = new ArrayList<>();
+        for (int i = 0; i < statements - 1; i++) {
+            policyStatements.add(new Statement("statement" + i, Statement.EffectType.Deny,
+                    new AWSPrincipal(List.of("arn:aws:iam::*:user/otherUser" + i)),
+                    List.of("s3:*Object", "s3:ListBucket"),
+                    List.of("arn:aws:s3:::" + BUCKET + "/*/*/*/other" + i + "*")));
+        }
+        policyStatements.add(new Statement("last", Statement.EffectType.Allow,
+                new AWSPrincipal(List.of("arn:aws:iam::*:user/*")),
+                List.of("s3:Get*"),
+                List.of("arn:aws:s3:::" + BUCKET + "/*/*/*/*.txt")));
+        bucketPolicy = new BucketPolicy("2012-10-17", "benchmark", policyStatements);
+        compiledBucketPolicy = CompiledBucketPolicy.compile(bucketPolicy);
+    }
+
+    @Benchmark
+    public Optional<Boolean> recursive() {
+        for (Statement statement : bucketPolicy.getStatements()) {
+            Optional<Boolean> result = checkStatement(statement, BUCKET, KEY, METHOD_NAME, ARN);
+            if (result.isPresent()) {
+                return result;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Benchmark
+    public Optional<Boolean> compiled() {
+        return compiledBucketPolicy.evaluate(BUCKET, KEY, METHOD_NAME, ARN);
+    }
+
+    @Benchmark
+    public CompiledBucketPolicy compile() {
+        return CompiledBucketPolicy.compile(bucketPolicy);
+    }
+
+    private static Optional<Boolean> checkStatement(Statement statement, String bucket, String key,
+                                                    String methodName, String arn) {
+        if (statement.getPrinciple().getAWS().stream().noneMatch(pattern -> match(pattern, arn))) {
+            return Optional.empty();
+        }
+        if (statement.getAction().stream().noneMatch(action -> match(action, methodName))) {
+            return Optional.empty();
+        }
+        String resource = "arn:aws:s3:::" + bucket + (key != null && !key.isEmpty() ? "/" + key : "");
+        if (statement.getResource().stream().noneMatch(pattern -> match(pattern, resource))) {
+            return Optional.empty();
+        }
+        return Optional.of(Statement.EffectType.Allow.equals(statement.getEffect()));
+    }
+
+    private static boolean match(String first, String second) {
+        if (first.length() == 0 && second.length() == 0) {
+            return true;
+        }
+        if (first.length() > 1 && first.charAt(0) == '*' && second.length() == 0) {
+            return false;
+        }
+        if (first.length() != 0 && second.length() != 0 && first.charAt(0) == second.charAt(0)) {
+            return match(first.substring(1), second.substring(1));
+        }
+        if (first.length() > 0 && first.charAt(0) == '*') {
+            return match(first.substring(1), second) || match(first, second.substring(1));
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BucketPolicyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.thorinhood.benchmarks;
+
+import com.thorinhood.drivers.index.ParallelTreeScanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Scan of a bucket folder with {@link ParallelTreeScanner} on different numbers of threads. A wide tree has many
+ * top-level folders with many files, a deep tree has few entries per folder and many levels. The gain depends on the
+ * latency of reading folders, so run it on the storage of the server as well.
+ * Run {@link #main} with the test classpath after {@code mvn test-compile}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeScanBenchmark {
+
+    @Param({"wide", "deep"})
+    private String shape;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private Path bucket;
+    private ParallelTreeScanner scanner;
+
+    @Setup
+    public void setup() throws IOException {
+        bucket = Files.createTempDirectory("treeScanBenchmark");
+        if (shape.equals("wide")) {
+            for (int folder = 0; folder < 64; folder++) {
+                createFiles(bucket.resolve("folder" + folder), 256);
+            }
+        } else {
+            createDeep(bucket, 7);
+        }
+        scanner = new ParallelTreeScanner(threads);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> tree = Files.walk(bucket)) {
+            tree.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<String> scan() throws IOException {
+        return scanner.scanKeys(bucket);
+    }
+
+    private static void createDeep(Path folder, int depth) throws IOException {
+        createFiles(folder, 4);
+        if (depth == 0) {
+            return;
+        }
+        for (int i = 0; i < 3; i++) {
+            createDeep(folder.resolve("level" + depth + "_" + i), depth - 1);
+        }
+    }
+
+    private static void createFiles(Path folder, int files) throws IOException {
+        Files.createDirectories(folder);
+        for (int i = 0; i < files; i++) {
+            Files.writeString(folder.resolve("file" + i + ".txt"), "hello, s3!!!");
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TreeScanBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -6,8 +6,7 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.Bucket;
-import software.amazon.awssdk.services.s3.model.ListBucketsResponse;
+import software.amazon.awssdk.services.s3.model.*;
 
 public class ListBucketsTest extends BaseTest {
     public ListBucketsTest() {
@@ -34,4 +33,41 @@ public class ListBucketsTest extends BaseTest {
         assertException(HttpResponseStatus.FORBIDDEN.code(), S3ResponseErrorCodes.ACCESS_DENIED,
                 s3NotAuth::listBuckets);
     }
+
+    @Test
+    public void listBucketsAfterOwnerChange() {
+        S3Client s3Client = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        S3Client s3Client2 = getS3Client(false, ROOT_USER_2.getAccessKey(), ROOT_USER_2.getSecretKey());
+        createBucketRaw(s3Client, "bucket");
+        createBucketRaw(s3Client, "bucket2");
+        s3Client.putBucketAcl(PutBucketAclRequest.builder()
+                .bucket("bucket2")
+                .accessControlPolicy(AccessControlPolicy.builder()
+                        .owner(Owner.builder()
+                                .displayName(ROOT_USER_2.getAccountName())
+                                .id(ROOT_USER_2.getCanonicalUserId())
+                                .build())
+                        .grants(Grant.builder()
+                                .permission("FULL_CONTROL")
+                                .grantee(Grantee.builder()
+                                        .displayName(ROOT_USER_2.getAccountName())
+                                        .id(ROOT_USER_2.getCanonicalUserId())
+                                        .type(Type.CANONICAL_USER)
+                                        .build())
+                                .build())
+                        .build())
+                .build());
+        ListBucketsResponse response = s3Client.listBuckets();
+        Assertions.assertEquals(1, response.buckets().size());
+        Assertions.assertEquals("bucket", response.buckets().get(0).name());
+        response = s3Client2.listBuckets();
+        Assertions.assertEquals(1, response.buckets().size());
+        Assertions.assertEquals("bucket2", response.buckets().get(0).name());
+        Assertions.assertNotNull(response.buckets().get(0).creationDate());
+
+        s3Client.deleteBucket(DeleteBucketRequest.builder()
+                .bucket("bucket")
+                .build());
+        Assertions.assertTrue(s3Client.listBuckets().buckets().isEmpty());
+    }
 }
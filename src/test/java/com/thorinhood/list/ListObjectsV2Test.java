@@ -1,15 +1,25 @@
 package com.thorinhood.list;
 
 import com.thorinhood.BaseTest;
+import com.thorinhood.data.S3FileBucketPath;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
+import com.thorinhood.drivers.FileDriversFactory;
+import com.thorinhood.drivers.index.KeyIndexDriver;
+import com.thorinhood.drivers.index.KeyPage;
+import com.thorinhood.drivers.index.ParallelTreeScanner;
+import com.thorinhood.drivers.metadata.MetadataLayout;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class ListObjectsV2Test extends BaseTest {
 
@@ -168,10 +178,139 @@ public class ListObjectsV2Test extends BaseTest {
         Assertions.assertNull(nextContinuousToken);
     }
 
+    @Test
+    public void listObjectsV2DelimiterContinuousToken() {
+        S3Client s3 = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3, "bucket");
+        String content = "hello, s3!!!";
+        for (String key : List.of("a.txt", "b/1.txt", "b/2.txt", "c/d/1.txt", "d.txt")) {
+            putObjectRaw(s3, "bucket", key, content, null);
+        }
+        ListObjectsV2Response response = s3.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket("bucket")
+                .delimiter("/")
+                .maxKeys(2)
+                .build());
+        Assertions.assertTrue(response.isTruncated());
+        Assertions.assertEquals(2, response.keyCount());
+        Assertions.assertEquals(List.of("a.txt"), keys(response));
+        Assertions.assertEquals(List.of("b/"), commonPrefixes(response));
+
+        response = s3.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket("bucket")
+                .delimiter("/")
+                .maxKeys(2)
+                .continuationToken(response.nextContinuationToken())
+                .build());
+        Assertions.assertFalse(response.isTruncated());
+        Assertions.assertNull(response.nextContinuationToken());
+        Assertions.assertEquals(List.of("d.txt"), keys(response));
+        Assertions.assertEquals(List.of("c/"), commonPrefixes(response));
+    }
+
+    @Test
+    public void listObjectsV2AfterRestart() throws Exception {
+        S3Client s3 = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3, "bucket");
+        String content = "hello, s3!!!";
+        putObjectRaw(s3, "bucket", "folder1/file.txt", content, null);
+        putObjectRaw(s3, "bucket", "file.txt", content, null);
+        putObjectRaw(s3, "bucket", "afile.txt", content, null);
+        s3.deleteObject(DeleteObjectRequest.builder()
+                .bucket("bucket")
+                .key("afile.txt")
+                .build());
+        S3FileBucketPath bucketPath = new S3FileBucketPath(BASE_PATH, "bucket");
+
+        KeyPage page = FILE_DRIVERS_FACTORY.createKeyIndexDriver().listKeys(bucketPath, null, null, null, null,
+                1000);
+        Assertions.assertEquals(List.of("file.txt", "folder1/file.txt"), page.getKeys());
+
+        Files.delete(Path.of(bucketPath.getPathToBucketKeyIndexFile()));
+        page = FILE_DRIVERS_FACTORY.createKeyIndexDriver().listKeys(bucketPath, null, null, null, null, 1000);
+        Assertions.assertEquals(List.of("file.txt", "folder1/file.txt"), page.getKeys());
+    }
+
+    @Test
+    public void listObjectsV2FetchOwner() {
+        S3Client s3 = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3, "bucket");
+        String content = "hello, s3!!!";
+        for (int i = 0; i < 150; i++) {
+            putObjectRaw(s3, "bucket", "folder/file" + i + ".txt", content, null);
+        }
+        ListObjectsV2Response response = s3.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket("bucket")
+                .build());
+        Assertions.assertEquals(150, response.contents().size());
+        Assertions.assertTrue(response.contents().stream().allMatch(s3Object -> s3Object.owner() == null));
+
+        response = s3.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket("bucket")
+                .fetchOwner(true)
+                .build());
+        Assertions.assertEquals(150, response.contents().size());
+        for (S3Object s3Object : response.contents()) {
+            Assertions.assertTrue(equalsS3Objects(buildS3Object(s3Object.key(), ROOT_USER, content), s3Object));
+        }
+    }
+
+    @Test
+    public void listObjectsV2WithoutIndex() throws IOException {
+        S3Client s3 = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3, "bucket");
+        String content = "hello, s3!!!";
+        for (String key : List.of("a/c/d.txt", "a.txt", "a/b.txt", "a0.txt", "b/x.txt", "b/y/z.txt", "c.txt")) {
+            putObjectRaw(s3, "bucket", key, content, null);
+        }
+        S3FileBucketPath bucketPath = new S3FileBucketPath(BASE_PATH, "bucket");
+        KeyIndexDriver index = FILE_DRIVERS_FACTORY.createKeyIndexDriver();
+        KeyIndexDriver tree = new FileDriversFactory(BASE_PATH, MetadataLayout.FILES, false)
+                .createKeyIndexDriver();
+
+        KeyPage page = tree.listKeys(bucketPath, null, null, null, null, 1000);
+        Assertions.assertEquals(List.of("a.txt", "a/b.txt", "a/c/d.txt", "a0.txt", "b/x.txt", "b/y/z.txt", "c.txt"),
+                page.getKeys());
+        Assertions.assertEquals(page.getKeys(),
+                new ParallelTreeScanner(4).scanKeys(Path.of(bucketPath.getPathToBucket())));
+        page = tree.listKeys(bucketPath, null, "/", null, null, 1000);
+        Assertions.assertEquals(List.of("a.txt", "a0.txt", "c.txt"), page.getKeys());
+        Assertions.assertEquals(List.of("a/", "b/"), page.getCommonPrefixes());
+
+        for (String prefix : new String[] {null, "a", "a/", "b/y", "d"}) {
+            for (String delimiter : new String[] {null, "/"}) {
+                for (String startAfter : new String[] {null, "a/b.txt", "a/"}) {
+                    String from = null;
+                    do {
+                        KeyPage expected = index.listKeys(bucketPath, prefix, delimiter, startAfter, from, 2);
+                        KeyPage actual = tree.listKeys(bucketPath, prefix, delimiter, startAfter, from, 2);
+                        Assertions.assertEquals(expected.getKeys(), actual.getKeys());
+                        Assertions.assertEquals(expected.getCommonPrefixes(), actual.getCommonPrefixes());
+                        Assertions.assertEquals(expected.getNextKey(), actual.getNextKey());
+                        from = actual.getNextKey();
+                    } while (from != null);
+                }
+            }
+        }
+    }
+
+    private List<String> keys(ListObjectsV2Response response) {
+        return response.contents().stream()
+                .map(S3Object::key)
+                .collect(Collectors.toList());
+    }
+
+    private List<String> commonPrefixes(ListObjectsV2Response response) {
+        return response.commonPrefixes().stream()
+                .map(CommonPrefix::prefix)
+                .collect(Collectors.toList());
+    }
+
     public String listObjects(S3Client s3, String bucket, Integer maxKeys, String prefix, String startAfter,
                             String continuousToken, List<S3Object> expected) {
         ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
-                .bucket(bucket);
+                .bucket(bucket)
+                .fetchOwner(true);
         if (maxKeys != null) {
             request.maxKeys(maxKeys);
         }
@@ -0,0 +1,128 @@
+package com.thorinhood.metadata;
+
+import com.thorinhood.BaseTest;
+import com.thorinhood.data.Owner;
+import com.thorinhood.data.S3FileObjectPath;
+import com.thorinhood.data.acl.Grant;
+import com.thorinhood.data.acl.Grantee;
+import com.thorinhood.data.acl.Permission;
+import com.thorinhood.drivers.FileDriversFactory;
+import com.thorinhood.drivers.metadata.MetadataLayout;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scenarios every layout which keeps metadata and ACL in one record has to pass, the subclasses tell where the record
+ * of an object is
+ */
+public abstract class MetadataLayoutTest extends BaseTest {
+
+    public MetadataLayoutTest(MetadataLayout metadataLayout) {
+        super("testS3Java", 9999, metadataLayout);
+    }
+
+    protected abstract boolean hasRecord(String bucketKey) throws IOException;
+
+    @Test
+    public void putAndGetObject() throws IOException {
+        S3Client s3Client = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3Client, "bucket");
+        String content = createContent(500);
+        Map<String, String> metadata = Map.of("key1", "value1", "key2", "value2");
+        putObjectRaw(s3Client, "bucket", "folder/file.txt", content, metadata);
+        getObject(s3Client, "bucket", "folder/file.txt", content, metadata);
+        HeadObjectResponse response = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket("bucket")
+                .key("folder/file.txt")
+                .build());
+        Assertions.assertEquals("\"" + calcETag(content) + "\"", response.eTag());
+        Assertions.assertTrue(equalsMaps(metadata, response.metadata()));
+        Assertions.assertTrue(hasRecord("bucket/folder/file.txt"));
+        Assertions.assertFalse(checkFolder("bucket/folder/.#file.txt"));
+    }
+
+    @Test
+    public void putAndGetObjectAcl() {
+        S3Client s3Client = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        S3Client s3Client2 = getS3Client(false, ROOT_USER_2.getAccessKey(), ROOT_USER_2.getSecretKey());
+        createBucketRaw(s3Client, "bucket");
+        String content = createContent(500);
+        Map<String, String> metadata = Map.of("key", "value");
+        putObjectRaw(s3Client, "bucket", "file.txt", content, metadata);
+        s3Client.putObjectAcl(PutObjectAclRequest.builder()
+                .bucket("bucket")
+                .key("file.txt")
+                .accessControlPolicy(AccessControlPolicy.builder()
+                        .owner(software.amazon.awssdk.services.s3.model.Owner.builder()
+                                .displayName(ROOT_USER.getAccountName())
+                                .id(ROOT_USER.getCanonicalUserId())
+                                .build())
+                        .grants(software.amazon.awssdk.services.s3.model.Grant.builder()
+                                        .permission("READ")
+                                        .grantee(software.amazon.awssdk.services.s3.model.Grantee.builder()
+                                                .displayName(ROOT_USER_2.getAccountName())
+                                                .id(ROOT_USER_2.getCanonicalUserId())
+                                                .type(Type.CANONICAL_USER)
+                                                .build())
+                                        .build(),
+                                software.amazon.awssdk.services.s3.model.Grant.builder()
+                                        .permission("FULL_CONTROL")
+                                        .grantee(software.amazon.awssdk.services.s3.model.Grantee.builder()
+                                                .displayName(ROOT_USER.getAccountName())
+                                                .id(ROOT_USER.getCanonicalUserId())
+                                                .type(Type.CANONICAL_USER)
+                                                .build())
+                                        .build())
+                        .build())
+                .build());
+        getObject(s3Client2, "bucket", "file.txt", content, metadata);
+        GetObjectAclResponse response = s3Client.getObjectAcl(GetObjectAclRequest.builder()
+                .bucket("bucket")
+                .key("file.txt")
+                .build());
+        Assertions.assertEquals(2, response.grants().size());
+        Assertions.assertEquals(ROOT_USER_2.getCanonicalUserId(), response.grants().get(0).grantee().id());
+        Assertions.assertEquals(Permission.READ.name(), response.grants().get(0).permissionAsString());
+    }
+
+    @Test
+    public void migrateFromFiles() throws Exception {
+        S3Client s3Client = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3Client, "bucket");
+        String content = createContent(500);
+        Map<String, String> metadata = Map.of("key", "value");
+        S3FileObjectPath s3FileObjectPath = S3FileObjectPath.raw(BASE_PATH, "bucket", "folder/file.txt");
+        new File(s3FileObjectPath.getPathToObjectFolder()).mkdirs();
+        Files.writeString(new File(s3FileObjectPath.getPathToObject()).toPath(), content);
+        new FileDriversFactory(BASE_PATH).createMetadataDriver().putObjectMetadata(s3FileObjectPath, metadata,
+                calcETag(content), com.thorinhood.data.acl.AccessControlPolicy.builder()
+                        .setOwner(Owner.builder()
+                                .setDisplayName(ROOT_USER.getAccountName())
+                                .setId(ROOT_USER.getCanonicalUserId())
+                                .build())
+                        .setAccessControlList(List.of(Grant.builder()
+                                .setGrantee(Grantee.builder()
+                                        .setDisplayName(ROOT_USER.getAccountName())
+                                        .setId(ROOT_USER.getCanonicalUserId())
+                                        .setType("Canonical User")
+                                        .build())
+                                .setPermission(Permission.FULL_CONTROL)
+                                .build()))
+                        .build());
+        Assertions.assertTrue(checkFolder("bucket/folder/.#file.txt"));
+        getObject(s3Client, "bucket", "folder/file.txt", content, metadata);
+
+        Assertions.assertEquals(1, FILE_DRIVERS_FACTORY.migrateMetadata());
+        Assertions.assertFalse(checkFolder("bucket/folder/.#file.txt"));
+        Assertions.assertTrue(hasRecord("bucket/folder/file.txt"));
+        getObject(s3Client, "bucket", "folder/file.txt", content, metadata);
+    }
+}
@@ -0,0 +1,49 @@
+package com.thorinhood.metadata;
+
+import com.thorinhood.drivers.metadata.MetadataLayout;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class RecordLayoutTest extends MetadataLayoutTest {
+
+    public RecordLayoutTest() {
+        super(MetadataLayout.RECORD);
+    }
+
+    @Override
+    protected boolean hasRecord(String bucketKey) {
+        return new File(recordPath(bucketKey)).isFile();
+    }
+
+    @Test
+    public void listAndDeleteObjects() {
+        S3Client s3Client = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3Client, "bucket");
+        putObjectRaw(s3Client, "bucket", "a.txt", "a", null);
+        putObjectRaw(s3Client, "bucket", "folder/b.txt", "b", null);
+        ListObjectsV2Response response = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket("bucket")
+                .build());
+        Assertions.assertEquals(List.of("a.txt", "folder/b.txt"), response.contents().stream()
+                .map(S3Object::key)
+                .collect(Collectors.toList()));
+        s3Client.deleteObject(DeleteObjectRequest.builder()
+                .bucket("bucket")
+                .key("folder/b.txt")
+                .build());
+        Assertions.assertFalse(new File(recordPath("bucket/folder/b.txt")).exists());
+        Assertions.assertFalse(checkFolder("bucket/folder"));
+    }
+
+    private String recordPath(String bucketKey) {
+        int lastSlash = bucketKey.lastIndexOf('/');
+        return BASE_PATH + File.separatorChar + bucketKey.substring(0, lastSlash + 1) + ".@" +
+                bucketKey.substring(lastSlash + 1);
+    }
+}
@@ -0,0 +1,36 @@
+package com.thorinhood.metadata;
+
+import com.thorinhood.drivers.metadata.MetadataLayout;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.List;
+import java.util.Map;
+
+public class XattrLayoutTest extends MetadataLayoutTest {
+
+    public XattrLayoutTest() {
+        super(MetadataLayout.XATTR);
+    }
+
+    @Override
+    protected boolean hasRecord(String bucketKey) throws IOException {
+        return Files.getFileAttributeView(Path.of(BASE_PATH, bucketKey), UserDefinedFileAttributeView.class)
+                .list()
+                .contains("s3.record");
+    }
+
+    @Test
+    public void putObjectWithoutSidecar() {
+        S3Client s3Client = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3Client, "bucket");
+        putObjectRaw(s3Client, "bucket", "folder/file.txt", createContent(500), Map.of("key", "value"));
+        Assertions.assertEquals(List.of("file.txt"), List.of(new File(BASE_PATH + "/bucket/folder").list()));
+    }
+}
@@ -3,12 +3,17 @@ package com.thorinhood.multipart;
 import com.thorinhood.BaseTest;
 import com.thorinhood.data.requests.S3ResponseErrorCodes;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -51,7 +56,7 @@ public class MultipartTest extends BaseTest {
         Assertions.assertEquals("bucket", completeResponse.bucket());
         Assertions.assertEquals("folder/bigfile.txt", completeResponse.key());
         String fullContent = IntStream.range(0, 5).mapToObj(i -> part).collect(Collectors.joining());
-        String eTag = calcETag(fullContent);
+        String eTag = calcMultipartETag(part, 5);
         Assertions.assertEquals("\"" + eTag + "\"", completeResponse.eTag());
         checkObject("bucket", "folder", "bigfile.txt", fullContent,
                 null, true);
@@ -153,6 +158,10 @@ public class MultipartTest extends BaseTest {
                                     .build())
                             .build());
         });
+        Assertions.assertFalse(new File(BASE_PATH + "/bucket/folder/bigfile.txt").exists());
+        Assertions.assertTrue(s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket("bucket")
+                .build()).contents().isEmpty());
     }
 
     @Test
@@ -190,7 +199,7 @@ public class MultipartTest extends BaseTest {
                                 .build())
                         .build());
         String fullContent = IntStream.range(0, 3).mapToObj(i -> part).collect(Collectors.joining());
-        String eTag = calcETag(fullContent);
+        String eTag = calcMultipartETag(part, 3);
         Assertions.assertEquals("\"" + eTag + "\"", completeResponse.eTag());
         checkObject("bucket", "folder", "bigfile.txt", fullContent,
                 null, true);
@@ -243,6 +252,81 @@ public class MultipartTest extends BaseTest {
         Assertions.assertFalse(checkFolder("bucket/.#bigfile.txt"));
     }
 
+    @Test
+    public void getObjectPartNumber() {
+        S3Client s3Client = getS3Client(true, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3Client, "bucket");
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .key("bigfile.txt")
+                .bucket("bucket")
+                .build()).uploadId();
+        List<String> contents = List.of(createContent(5 * 1024 * 1024),
+                createContent(5 * 1024 * 1024).replace('a', 'b'),
+                createContent(5 * 1024 * 1024 + 100).replace('a', 'c'));
+        List<CompletedPart> completedParts = new ArrayList<>();
+        for (int i = 1; i <= contents.size(); i++) {
+            UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                    .uploadId(uploadId)
+                    .partNumber(i)
+                    .bucket("bucket")
+                    .key("bigfile.txt")
+                    .build(), RequestBody.fromString(contents.get(i - 1)));
+            completedParts.add(CompletedPart.builder()
+                    .eTag(response.eTag())
+                    .partNumber(i)
+                    .build());
+        }
+        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .uploadId(uploadId)
+                .bucket("bucket")
+                .key("bigfile.txt")
+                .multipartUpload(CompletedMultipartUpload.builder()
+                        .parts(completedParts)
+                        .build())
+                .build());
+
+        ResponseBytes<GetObjectResponse> part = s3Client.getObject(GetObjectRequest.builder()
+                .bucket("bucket")
+                .key("bigfile.txt")
+                .partNumber(2)
+                .build(), ResponseTransformer.toBytes());
+        Assertions.assertEquals(contents.get(1), part.asUtf8String());
+        Assertions.assertEquals(3, part.response().partsCount());
+        Assertions.assertEquals("bytes 5242880-10485759/15728740", part.response().contentRange());
+
+        HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket("bucket")
+                .key("bigfile.txt")
+                .partNumber(3)
+                .build());
+        Assertions.assertEquals(contents.get(2).length(), head.contentLength());
+        Assertions.assertEquals(3, head.partsCount());
+
+        assertException(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE.code(),
+                S3ResponseErrorCodes.INVALID_PART_NUMBER, () -> s3Client.getObject(GetObjectRequest.builder()
+                        .bucket("bucket")
+                        .key("bigfile.txt")
+                        .partNumber(4)
+                        .build(), ResponseTransformer.toBytes()));
+
+        putObjectRaw(s3Client, "bucket", "bigfile.txt", contents.get(0), null);
+        part = s3Client.getObject(GetObjectRequest.builder()
+                .bucket("bucket")
+                .key("bigfile.txt")
+                .partNumber(1)
+                .build(), ResponseTransformer.toBytes());
+        Assertions.assertEquals(contents.get(0), part.asUtf8String());
+        Assertions.assertNull(part.response().partsCount());
+    }
+
+    private String calcMultipartETag(String part, int count) {
+        byte[] partDigest = DigestUtils.md5(part.getBytes());
+        ByteArrayOutputStream digests = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            digests.writeBytes(partDigest);
+        }
+        return DigestUtils.md5Hex(digests.toByteArray()) + "-" + count;
+    }
 
     private List<CompletedPart> uploadParts(S3Client s3Client, String bucket, String key, String uploadId, int count,
                                             String content) {
@@ -0,0 +1,91 @@
+package com.thorinhood.multipart;
+
+import com.thorinhood.BaseTest;
+import com.thorinhood.drivers.metadata.MetadataLayout;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class VirtualMultipartTest extends BaseTest {
+
+    public VirtualMultipartTest() {
+        super("testS3Java", 9999, MetadataLayout.FILES, true);
+    }
+
+    @Test
+    public void getVirtualObject() {
+        S3Client s3Client = getS3Client(true, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        createBucketRaw(s3Client, "bucket");
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .key("folder/bigfile.txt")
+                .bucket("bucket")
+                .build()).uploadId();
+        List<String> contents = List.of(createContent(5 * 1024 * 1024),
+                createContent(5 * 1024 * 1024).replace('a', 'b'),
+                createContent(5 * 1024 * 1024 + 100).replace('a', 'c'));
+        List<CompletedPart> completedParts = new ArrayList<>();
+        for (int i = 1; i <= contents.size(); i++) {
+            UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                    .uploadId(uploadId)
+                    .partNumber(i)
+                    .bucket("bucket")
+                    .key("folder/bigfile.txt")
+                    .build(), RequestBody.fromString(contents.get(i - 1)));
+            completedParts.add(CompletedPart.builder()
+                    .eTag(response.eTag())
+                    .partNumber(i)
+                    .build());
+        }
+        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .uploadId(uploadId)
+                .bucket("bucket")
+                .key("folder/bigfile.txt")
+                .multipartUpload(CompletedMultipartUpload.builder()
+                        .parts(completedParts)
+                        .build())
+                .build());
+        Assertions.assertTrue(checkFolder("bucket/folder/.#bigfile.txt/parts/" + uploadId));
+        Assertions.assertFalse(checkFolder("bucket/folder/.#bigfile.txt/multipart"));
+
+        String fullContent = String.join("", contents);
+        ResponseBytes<GetObjectResponse> object = s3Client.getObject(GetObjectRequest.builder()
+                .bucket("bucket")
+                .key("folder/bigfile.txt")
+                .build(), ResponseTransformer.toBytes());
+        Assertions.assertEquals(fullContent, object.asUtf8String());
+
+        ResponseBytes<GetObjectResponse> range = s3Client.getObject(GetObjectRequest.builder()
+                .bucket("bucket")
+                .key("folder/bigfile.txt")
+                .range("bytes=10485700-10485799")
+                .build(), ResponseTransformer.toBytes());
+        Assertions.assertEquals(fullContent.substring(10485700, 10485800), range.asUtf8String());
+        Assertions.assertEquals("bytes 10485700-10485799/15728740", range.response().contentRange());
+
+        ResponseBytes<GetObjectResponse> part = s3Client.getObject(GetObjectRequest.builder()
+                .bucket("bucket")
+                .key("folder/bigfile.txt")
+                .partNumber(2)
+                .build(), ResponseTransformer.toBytes());
+        Assertions.assertEquals(contents.get(1), part.asUtf8String());
+        Assertions.assertEquals(3, part.response().partsCount());
+
+        s3Client.copyObject(CopyObjectRequest.builder()
+                .copySource("bucket/folder/bigfile.txt")
+                .destinationBucket("bucket")
+                .destinationKey("copy.txt")
+                .build());
+        getObject(s3Client, "bucket", "copy.txt", fullContent, null);
+
+        putObjectRaw(s3Client, "bucket", "folder/bigfile.txt", contents.get(2), null);
+        getObject(s3Client, "bucket", "folder/bigfile.txt", contents.get(2), null);
+        Assertions.assertFalse(checkFolder("bucket/folder/.#bigfile.txt/parts"));
+    }
+}
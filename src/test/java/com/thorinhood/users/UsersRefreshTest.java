@@ -0,0 +1,59 @@
+package com.thorinhood.users;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thorinhood.BaseTest;
+import com.thorinhood.data.S3User;
+import com.thorinhood.data.requests.S3ResponseErrorCodes;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.File;
+
+public class UsersRefreshTest extends BaseTest {
+
+    private static final long REFRESH_TIMEOUT_MS = 5000;
+
+    public UsersRefreshTest() {
+        super("testS3Java", 9999);
+    }
+
+    @Test
+    public void changedSecretKey() throws Exception {
+        S3User changedUser = new S3User(
+                ROOT_USER.getAccessKey(),
+                "changedSecretKey",
+                ROOT_USER.getPath(),
+                ROOT_USER.getUserName(),
+                ROOT_USER.getUserId(),
+                ROOT_USER.getArn(),
+                ROOT_USER.getCanonicalUserId(),
+                ROOT_USER.getAccountName());
+        File userFile = new File(BASE_PATH + "/.##config/users/" + ROOT_USER.getAccessKey() + "/identity.json");
+        Assertions.assertTrue(userFile.isFile());
+        new ObjectMapper().writeValue(userFile, changedUser);
+
+        S3Client changedClient = getS3Client(false, ROOT_USER.getAccessKey(), "changedSecretKey");
+        Assertions.assertTrue(isAccepted(changedClient));
+        S3Client oldClient = getS3Client(false, ROOT_USER.getAccessKey(), ROOT_USER.getSecretKey());
+        assertException(HttpResponseStatus.BAD_REQUEST.code(), S3ResponseErrorCodes.SIGNATURE_DOES_NOT_MATCH,
+                () -> oldClient.listBuckets());
+    }
+
+    private boolean isAccepted(S3Client s3Client) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + REFRESH_TIMEOUT_MS;
+        while (true) {
+            try {
+                s3Client.listBuckets();
+                return true;
+            } catch (S3Exception exception) {
+                if (System.currentTimeMillis() > deadline) {
+                    return false;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+}